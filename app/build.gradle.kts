@@ -15,6 +15,13 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        javaCompileOptions {
+            annotationProcessorOptions {
+                // 导出Room数据库结构，用于审查迁移
+                arguments += mapOf("room.schemaLocation" to "$projectDir/schemas")
+            }
+        }
     }
 
     buildTypes {
@@ -30,6 +37,16 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+
+    sourceSets {
+        // MigrationTestHelper从assets读取导出的数据库结构
+        getByName("androidTest").assets.srcDir("$projectDir/schemas")
+    }
+
+    testOptions {
+        // 本地单元测试中android.util.Log等方法返回默认值，不抛出异常
+        unitTests.isReturnDefaultValues = true
+    }
     
     packaging {
         resources {
@@ -51,6 +68,7 @@ dependencies {
     // Room
     implementation(libs.room.runtime)
     annotationProcessor(libs.room.compiler)
+    androidTestImplementation(libs.room.testing)
 
     // Lifecycle
     implementation(libs.lifecycle.livedata)
@@ -60,6 +78,9 @@ dependencies {
     implementation(libs.hilt.android)
     annotationProcessor(libs.hilt.compiler)
 
+    // 后台任务（归档）
+    implementation(libs.work.runtime)
+
     // 网络请求
     implementation("com.squareup.okhttp3:okhttp:4.12.0")
     implementation("com.squareup.retrofit2:retrofit:2.9.0")
@@ -0,0 +1,103 @@
+package com.example.smarttasksapp.infrastructure.database;
+
+import android.database.Cursor;
+
+import androidx.room.migration.Migration;
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.smarttasksapp.core.constants.Constants;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 数据库迁移测试：用app/schemas下导出的结构创建旧版本数据库，执行Migrations后
+ * 由MigrationTestHelper按目标版本的导出结构校验表、索引、外键与全文索引
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+
+    private static final String TEST_DB = "migration-test";
+    private static final int FIRST_VERSION = 5;
+    private static final int LATEST_VERSION = 16;
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(), AppDatabase.class);
+
+    @Test
+    public void migrate5To16_keepsTasksAndMatchesSchema() throws IOException {
+        try (SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, FIRST_VERSION)) {
+            db.execSQL("INSERT INTO `tasks` (`id`, `title`, `description`, `createdAt`, `sortIndex`, `isCompleted`, `startTime`) "
+                    + "VALUES (1, '买牛奶', '两盒', 1000, 2, 0, 5000)");
+            db.execSQL("INSERT INTO `tasks` (`id`, `title`, `description`, `createdAt`, `sortIndex`, `isCompleted`, `startTime`) "
+                    + "VALUES (2, '写周报', 'quarterly numbers', 2000, 1, 1, 0)");
+        }
+
+        try (SupportSQLiteDatabase db = helper.runMigrationsAndValidate(TEST_DB, LATEST_VERSION, true, Migrations.ALL)) {
+            try (Cursor cursor = db.query("SELECT `id`, `title`, `description`, `listId`, `isCompleted`, "
+                    + "`completedAt`, `deletedAt`, `version` FROM `tasks` ORDER BY `id`")) {
+                assertTrue(cursor.moveToNext());
+                assertEquals(1, cursor.getLong(0));
+                assertEquals("买牛奶", cursor.getString(1));
+                assertEquals("两盒", cursor.getString(2));
+                assertEquals(Constants.DEFAULT_TASK_LIST_ID, cursor.getLong(3));
+                assertEquals(0, cursor.getInt(4));
+                assertEquals(0, cursor.getLong(5));
+                assertEquals(0, cursor.getLong(6));
+                assertEquals(0, cursor.getLong(7));
+
+                assertTrue(cursor.moveToNext());
+                assertEquals(2, cursor.getLong(0));
+                assertEquals(Constants.DEFAULT_TASK_LIST_ID, cursor.getLong(3));
+                assertEquals(1, cursor.getInt(4));
+                // 8 -> 9为已完成任务补上完成时间
+                assertTrue(cursor.getLong(5) > 0);
+                assertFalse(cursor.moveToNext());
+            }
+
+            // 迁移前写入的任务也要能被全文检索到
+            try (Cursor cursor = db.query("SELECT `docid` FROM `tasks_fts` WHERE `tasks_fts` MATCH 'quarterly'")) {
+                assertTrue(cursor.moveToFirst());
+                assertEquals(2, cursor.getLong(0));
+            }
+
+            try (Cursor cursor = db.query("SELECT `totalCount`, `completedCount` FROM `task_stats`")) {
+                assertTrue(cursor.moveToFirst());
+                assertEquals(2, cursor.getInt(0));
+                assertEquals(1, cursor.getInt(1));
+            }
+
+            try (Cursor cursor = db.query("SELECT `name`, `taskCount`, `completedCount` FROM `task_lists` "
+                    + "WHERE `id` = " + Constants.DEFAULT_TASK_LIST_ID)) {
+                assertTrue(cursor.moveToFirst());
+                assertEquals(Constants.DEFAULT_TASK_LIST_NAME, cursor.getString(0));
+                assertEquals(2, cursor.getInt(1));
+                assertEquals(1, cursor.getInt(2));
+            }
+
+            try (Cursor cursor = db.query("PRAGMA foreign_key_check")) {
+                assertFalse(cursor.moveToFirst());
+            }
+        }
+    }
+
+    @Test
+    public void eachMigration_matchesExportedSchema() throws IOException {
+        for (Migration migration : Migrations.ALL) {
+            String name = TEST_DB + "-" + migration.startVersion;
+            helper.createDatabase(name, migration.startVersion).close();
+            helper.runMigrationsAndValidate(name, migration.endVersion, true, migration).close();
+        }
+    }
+}
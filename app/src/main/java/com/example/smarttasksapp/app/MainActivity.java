@@ -20,6 +20,7 @@ import androidx.core.view.WindowInsetsCompat;
 import androidx.fragment.app.Fragment;
 
 import com.example.smarttasksapp.R;
+import com.example.smarttasksapp.feature.tasks.ui.fragment.AgendaFragment;
 import com.example.smarttasksapp.feature.tasks.ui.fragment.TasksFragment;
 import com.example.smarttasksapp.feature.ai.ui.fragment.AiFragment;
 
@@ -50,6 +51,8 @@ public class MainActivity extends AppCompatActivity {
             
             if (itemId == R.id.nav_tasks) {
                 selectedFragment = new TasksFragment();
+            } else if (itemId == R.id.nav_agenda) {
+                selectedFragment = new AgendaFragment();
             } else if (itemId == R.id.nav_ai) {
                 selectedFragment = new AiFragment();
             }
@@ -1,15 +1,26 @@
 package com.example.smarttasksapp.app;
 
 import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.util.Log;
 
+import com.example.smarttasksapp.core.executor.AppExecutors;
 import com.example.smarttasksapp.feature.reminder.service.ReminderManager;
+import com.example.smarttasksapp.infrastructure.archive.TaskArchiveWorker;
 import com.example.smarttasksapp.feature.reminder.service.TaskReminderService;
 import com.example.smarttasksapp.feature.tasks.event.TaskEventBus;
 
+import javax.inject.Inject;
+
 import dagger.hilt.android.HiltAndroidApp;
 
 @HiltAndroidApp
 public class SmartTasksApplication extends Application {
+    private static final String TAG = "SmartTasksApplication";
+
+    @Inject
+    AppExecutors appExecutors;
+
     private TaskReminderService taskReminderService;
     
     @Override
@@ -21,6 +32,19 @@ public class SmartTasksApplication extends Application {
         TaskEventBus taskEventBus = TaskEventBus.getInstance();
         taskReminderService = new TaskReminderService(reminderManager, taskEventBus);
         taskReminderService.startListening();
+        
+        // 定期归档完成已久的任务
+        TaskArchiveWorker.schedule(this);
+    }
+    
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // 界面进入后台时打印各线程池和事件总线的排队和耗时统计，便于发现争用
+        if (level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            appExecutors.logStats();
+            Log.i(TAG, TaskEventBus.getInstance().getStats().toString());
+        }
     }
     
     @Override
@@ -4,6 +4,52 @@ public class Constants {
     // 数据库相关
     public static final String TABLE_NAME = "tasks";
     
+    // 任务清单：默认清单由数据库创建，不能删除；没有指定清单的任务都放在默认清单中
+    public static final long DEFAULT_TASK_LIST_ID = 1;
+    public static final String DEFAULT_TASK_LIST_NAME = "收件箱";
+    public static final int TASK_LIST_NAME_MAX_LENGTH = 50;
+    
+    // 分页相关
+    public static final int TASK_PAGE_SIZE = 50;
+    public static final int TASK_PAGE_PREFETCH_DISTANCE = 10;
+    
+    // 搜索相关：单次搜索最多返回的结果数；任务表变化后等待该时长再重新搜索，期间的变化只搜索一次
+    public static final int SEARCH_RESULT_LIMIT = 100;
+    public static final long SEARCH_REFRESH_DELAY_MS = 300;
+    
+    // 排序键相关：相邻任务的排序键之间保留间隔，移动任务时只需改写一行
+    public static final long SORT_KEY_GAP = 1L << 16;
+    
+    // 列表中描述预览的最大字符数，完整描述在详情页按需读取
+    public static final int TASK_DESCRIPTION_PREVIEW_LENGTH = 100;
+    
+    // 归档相关：完成超过该天数的任务移到归档表，每批最多移动的任务数
+    public static final int ARCHIVE_AFTER_DAYS = 30;
+    public static final int ARCHIVE_BATCH_SIZE = 200;
+    
+    // 软删除相关：删除超过该天数的任务由后台维护任务物理清除，每批最多清除的任务数
+    public static final int PURGE_AFTER_DAYS = 7;
+    public static final int PURGE_BATCH_SIZE = 500;
+    
+    // 日程相关：可滚动的日期范围（今天前后的天数），可见日期之外预读的天数，每天任务数预读的天数
+    public static final int AGENDA_DAYS_BEFORE = 365;
+    public static final int AGENDA_DAYS_AFTER = 365;
+    public static final int AGENDA_TASK_WINDOW_PADDING_DAYS = 7;
+    public static final int AGENDA_COUNT_WINDOW_PADDING_DAYS = 31;
+    
+    // 备份相关：导出时每次读取、导入时每个事务写入的任务数
+    public static final int BACKUP_BATCH_SIZE = 500;
+    
+    // 撤销相关：最多保留的操作数，每记录多少次操作在后台裁剪一次撤销记录
+    public static final int UNDO_HISTORY_LIMIT = 100;
+    public static final int UNDO_COMPACT_INTERVAL = 50;
+    
+    // 任务内存缓存最多保存的任务数
+    public static final int TASK_CACHE_CAPACITY = 256;
+    
+    // 任务事件总线环形缓冲区的容量（2的幂），缓冲区满时新事件被丢弃并计数
+    public static final int TASK_EVENT_BUFFER_CAPACITY = 1024;
+    
     // 缓存相关
     public static final String PREF_NAME = "add_task_cache";
     public static final String KEY_TITLE = "cached_title";
@@ -39,6 +85,8 @@ public class Constants {
     public static final String ADD_TASK_FAILED = "添加任务失败: ";
     public static final String ERROR_ADDING_TASK = "添加任务时出错: ";
     public static final String UPDATE_TASK_FAILED = "更新任务失败: ";
+    public static final String TASK_UPDATE_CONFLICT = "任务已在别处被修改，已读取最新版本，确认后请重新保存";
+    public static final String TASK_NOT_FOUND = "任务不存在或已被删除";
     public static final String ERROR_UPDATING_TASK = "更新任务时出错: ";
     public static final String DELETE_TASK_FAILED = "删除任务失败: ";
     public static final String ERROR_DELETING_TASK = "删除任务时出错: ";
@@ -68,6 +116,26 @@ public class Constants {
     public static final String CANCEL = "取消";
     public static final String TASK_DELETED = "任务已删除";
     
+    // 撤销和重做
+    public static final String TASK_COMPLETED_HINT = "任务已完成";
+    public static final String TASK_REOPENED_HINT = "任务已恢复为未完成";
+    public static final String TASK_MOVED_HINT = "任务已移动";
+    public static final String UNDO = "撤销";
+    public static final String REDO = "重做";
+    public static final String UNDO_DONE = "已撤销";
+    public static final String NOTHING_TO_UNDO = "该操作已无法撤销";
+    public static final String UNDO_FAILED = "撤销失败: ";
+    public static final String REDO_FAILED = "重做失败: ";
+    
+    // 任务清单
+    public static final String NEW_TASK_LIST = "新建清单…";
+    public static final String DELETE_TASK_LIST = "删除当前清单";
+    public static final String TASK_LIST_NAME_HINT = "清单名称";
+    public static final String CREATE = "创建";
+    public static final String CONFIRM_DELETE_TASK_LIST_MESSAGE = "清单中的任务会一起删除，且无法撤销。确定删除吗？";
+    public static final String ADD_TASK_LIST_FAILED = "创建清单失败: ";
+    public static final String DELETE_TASK_LIST_FAILED = "删除清单失败: ";
+    
     // Fragment标签
     public static final String FRAGMENT_TASK_DETAIL = "taskDetail";
     public static final String FRAGMENT_ADD_TASK = "addTask";
@@ -2,15 +2,14 @@ package com.example.smarttasksapp.core.di;
 
 import android.content.Context;
 
+import com.example.smarttasksapp.core.executor.AppExecutors;
 import com.example.smarttasksapp.feature.reminder.service.IReminderService;
 import com.example.smarttasksapp.feature.reminder.service.impl.ReminderService;
 import com.example.smarttasksapp.feature.tasks.data.ITaskRepository;
 import com.example.smarttasksapp.infrastructure.database.AppDatabase;
+import com.example.smarttasksapp.infrastructure.database.DatabaseProfile;
 import com.example.smarttasksapp.infrastructure.repository.TaskRepositoryImpl;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
 import javax.inject.Singleton;
 
 import dagger.Module;
@@ -22,18 +21,29 @@ import dagger.hilt.components.SingletonComponent;
 @Module
 @InstallIn(SingletonComponent.class)
 public class DependencyInjectionModule {
-    
+
+    /**
+     * 数据库连接配置，基准测试时可替换为 DatabaseProfile.ROOM_DEFAULT 对比
+     */
+    @Provides
+    @Singleton
+    public DatabaseProfile provideDatabaseProfile() {
+        return DatabaseProfile.TUNED;
+    }
+
     @Provides
     @Singleton
-    public AppDatabase provideAppDatabase(@ApplicationContext Context context) {
-        return AppDatabase.getInstance(context);
+    public AppDatabase provideAppDatabase(@ApplicationContext Context context,
+                                          DatabaseProfile profile,
+                                          AppExecutors executors) {
+        // Room的异步查询和失效通知走数据库读通道，事务走数据库写通道
+        return AppDatabase.getInstance(context, profile, executors.dbRead(), executors.dbWrite());
     }
     
     @Provides
     @Singleton
-    public ITaskRepository provideTaskRepository(@ApplicationContext Context context) {
-        ExecutorService executorService = Executors.newFixedThreadPool(4);
-        return new TaskRepositoryImpl(context, executorService);
+    public ITaskRepository provideTaskRepository(AppDatabase database, AppExecutors executors) {
+        return new TaskRepositoryImpl(database, executors.dbRead(), executors.dbWrite(), executors.timer());
     }
     
     @Provides
@@ -42,4 +52,4 @@ public class DependencyInjectionModule {
         return new ReminderService(context);
     }
 
-}
\ No newline at end of file
+}
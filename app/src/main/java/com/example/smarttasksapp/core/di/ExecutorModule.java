@@ -0,0 +1,24 @@
+package com.example.smarttasksapp.core.di;
+
+import com.example.smarttasksapp.core.executor.AppExecutors;
+
+import javax.inject.Singleton;
+
+import dagger.Module;
+import dagger.Provides;
+import dagger.hilt.InstallIn;
+import dagger.hilt.components.SingletonComponent;
+
+@Module
+@InstallIn(SingletonComponent.class)
+public class ExecutorModule {
+
+    /**
+     * 全应用共用的后台线程池，按数据库读、数据库写、网络和计算划分通道
+     */
+    @Provides
+    @Singleton
+    public AppExecutors provideAppExecutors() {
+        return new AppExecutors();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.smarttasksapp.core.executor;
+
+import android.os.Process;
+import android.util.Log;
+
+import com.example.smarttasksapp.core.util.NamedThreadFactory;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 应用内全部后台线程池，按执行通道划分（见ExecutorLane）
+ * 由Hilt以单例提供，业务代码不再自行创建线程或使用公共ForkJoinPool
+ */
+public class AppExecutors {
+    private static final String TAG = "AppExecutors";
+
+    private final Map<ExecutorLane, MeteredExecutor> lanes = new EnumMap<>(ExecutorLane.class);
+    // 各处共用的定时线程
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+            new NamedThreadFactory("timer", Process.THREAD_PRIORITY_BACKGROUND));
+
+    public AppExecutors() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    AppExecutors(int cores) {
+        for (ExecutorLane lane : ExecutorLane.values()) {
+            lanes.put(lane, new MeteredExecutor(lane, lane.poolSize(cores)));
+        }
+    }
+
+    public ExecutorService lane(ExecutorLane lane) {
+        return lanes.get(lane);
+    }
+
+    /**
+     * 界面等待结果的数据库读取
+     */
+    public ExecutorService dbRead() {
+        return lanes.get(ExecutorLane.DB_READ);
+    }
+
+    /**
+     * 数据库写入，单线程串行执行
+     */
+    public ExecutorService dbWrite() {
+        return lanes.get(ExecutorLane.DB_WRITE);
+    }
+
+    public Executor network() {
+        return lanes.get(ExecutorLane.NETWORK);
+    }
+
+    public Executor cpu() {
+        return lanes.get(ExecutorLane.CPU);
+    }
+
+    /**
+     * 共用的定时线程，只负责计时：到时后把工作交给某个通道执行，耗时计入该通道的统计
+     */
+    public ScheduledExecutorService timer() {
+        return timer;
+    }
+
+    /**
+     * 各通道的统计快照，按ExecutorLane的声明顺序排列
+     */
+    public List<ExecutorLaneStats> getStats() {
+        List<ExecutorLaneStats> stats = new ArrayList<>(lanes.size());
+        for (MeteredExecutor executor : lanes.values()) {
+            stats.add(executor.getStats());
+        }
+        return stats;
+    }
+
+    public void resetStats() {
+        for (MeteredExecutor executor : lanes.values()) {
+            executor.resetStats();
+        }
+    }
+
+    /**
+     * 把各通道的统计打印到日志
+     */
+    public void logStats() {
+        for (ExecutorLaneStats stats : getStats()) {
+            Log.i(TAG, stats.toString());
+        }
+    }
+
+    /**
+     * 停止接收新任务并等待已提交的任务完成，只在测试或进程退出前使用
+     */
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        timer.shutdown();
+        for (MeteredExecutor executor : lanes.values()) {
+            executor.shutdown();
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (MeteredExecutor executor : lanes.values()) {
+            executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+    }
+}
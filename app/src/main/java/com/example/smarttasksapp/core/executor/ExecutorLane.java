@@ -0,0 +1,77 @@
+package com.example.smarttasksapp.core.executor;
+
+import android.os.Process;
+
+/**
+ * 后台任务的执行通道
+ * 每个通道有独立的线程池、线程名前缀和线程优先级，互不抢占线程；
+ * 线程数按CPU核数确定
+ */
+public enum ExecutorLane {
+    /**
+     * 界面等待结果的数据库读取（分页、按ID读取、计数、变更日志），优先级与界面线程之外的默认线程相同
+     */
+    DB_READ("db-read", Process.THREAD_PRIORITY_DEFAULT) {
+        @Override
+        int poolSize(int cores) {
+            return Math.max(2, Math.min(4, cores));
+        }
+    },
+
+    /**
+     * 数据库写入；SQLite同一时刻只有一个写事务，单线程串行提交避免写线程互相等待锁
+     */
+    DB_WRITE("db-write", Process.THREAD_PRIORITY_BACKGROUND) {
+        @Override
+        int poolSize(int cores) {
+            return 1;
+        }
+    },
+
+    /**
+     * 网络请求，线程大部分时间阻塞在IO上，线程数不受核数限制
+     */
+    NETWORK("network", Process.THREAD_PRIORITY_BACKGROUND) {
+        @Override
+        int poolSize(int cores) {
+            return Math.max(4, Math.min(8, cores * 2));
+        }
+    },
+
+    /**
+     * 计算密集的工作（图片压缩、解析等），给界面线程留出一个核
+     */
+    CPU("cpu", Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_MORE_FAVORABLE) {
+        @Override
+        int poolSize(int cores) {
+            return Math.max(1, cores - 1);
+        }
+    };
+
+    private final String threadName;
+    private final int threadPriority;
+
+    ExecutorLane(String threadName, int threadPriority) {
+        this.threadName = threadName;
+        this.threadPriority = threadPriority;
+    }
+
+    /**
+     * 线程名前缀
+     */
+    public String getThreadName() {
+        return threadName;
+    }
+
+    /**
+     * 线程优先级（android.os.Process的取值，数值越小优先级越高）
+     */
+    public int getThreadPriority() {
+        return threadPriority;
+    }
+
+    /**
+     * 按CPU核数计算的线程数
+     */
+    abstract int poolSize(int cores);
+}
@@ -0,0 +1,58 @@
+package com.example.smarttasksapp.core.executor;
+
+import java.util.Locale;
+
+/**
+ * 执行通道的运行统计快照
+ * 等待时间从提交到开始执行，运行时间从开始执行到结束，单位为毫秒
+ */
+public final class ExecutorLaneStats {
+    private final ExecutorLane lane;
+    private final int poolSize;
+    private final int activeCount;
+    private final int queueDepth;
+    private final int maxQueueDepth;
+    private final long completedCount;
+    private final double averageWaitMillis;
+    private final double maxWaitMillis;
+    private final double averageRunMillis;
+    private final double maxRunMillis;
+
+    ExecutorLaneStats(ExecutorLane lane, int poolSize, int activeCount, int queueDepth, int maxQueueDepth,
+                      long completedCount, double averageWaitMillis, double maxWaitMillis,
+                      double averageRunMillis, double maxRunMillis) {
+        this.lane = lane;
+        this.poolSize = poolSize;
+        this.activeCount = activeCount;
+        this.queueDepth = queueDepth;
+        this.maxQueueDepth = maxQueueDepth;
+        this.completedCount = completedCount;
+        this.averageWaitMillis = averageWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.averageRunMillis = averageRunMillis;
+        this.maxRunMillis = maxRunMillis;
+    }
+
+    public ExecutorLane getLane() { return lane; }
+    public int getPoolSize() { return poolSize; }
+    // 正在执行的任务数
+    public int getActiveCount() { return activeCount; }
+    // 当前排队等待的任务数
+    public int getQueueDepth() { return queueDepth; }
+    // 统计以来出现过的最大排队数
+    public int getMaxQueueDepth() { return maxQueueDepth; }
+    public long getCompletedCount() { return completedCount; }
+    public double getAverageWaitMillis() { return averageWaitMillis; }
+    public double getMaxWaitMillis() { return maxWaitMillis; }
+    public double getAverageRunMillis() { return averageRunMillis; }
+    public double getMaxRunMillis() { return maxRunMillis; }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "%s[threads=%d, active=%d, queued=%d, maxQueued=%d, completed=%d, "
+                        + "wait avg=%.2fms max=%.2fms, run avg=%.2fms max=%.2fms]",
+                lane.getThreadName(), poolSize, activeCount, queueDepth, maxQueueDepth, completedCount,
+                averageWaitMillis, maxWaitMillis, averageRunMillis, maxRunMillis);
+    }
+}
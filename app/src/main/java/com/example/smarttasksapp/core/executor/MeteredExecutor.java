@@ -0,0 +1,132 @@
+package com.example.smarttasksapp.core.executor;
+
+import android.util.Log;
+
+import com.example.smarttasksapp.core.util.NamedThreadFactory;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 记录排队和执行耗时的线程池，一个执行通道对应一个实例
+ * 每个任务在提交时记下时间，开始执行时得到等待时间，结束时得到运行时间；
+ * 统计只用原子计数，不加锁
+ */
+public class MeteredExecutor extends ThreadPoolExecutor {
+    private static final String TAG = "MeteredExecutor";
+
+    // 等待时间超过一帧时打印警告，说明该通道出现了排队；同一通道每秒最多一条
+    private static final long SLOW_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+    private static final long WARN_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // 空闲线程的存活时间，通道空闲时线程退出，需要时重新创建
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final ExecutorLane lane;
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final LongAdder completedCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalRunNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong maxRunNanos = new AtomicLong();
+    private final AtomicLong lastWarnAt = new AtomicLong(System.nanoTime() - WARN_INTERVAL_NANOS);
+
+    MeteredExecutor(ExecutorLane lane, int poolSize) {
+        super(poolSize, poolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new NamedThreadFactory(lane.getThreadName(), lane.getThreadPriority()));
+        this.lane = lane;
+        allowCoreThreadTimeOut(true);
+    }
+
+    public ExecutorLane getLane() {
+        return lane;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) throw new NullPointerException();
+        super.execute(new MeteredTask(command));
+        int depth = getQueue().size();
+        if (depth > maxQueueDepth.get()) {
+            maxQueueDepth.accumulateAndGet(depth, Math::max);
+        }
+    }
+
+    /**
+     * 当前统计快照
+     */
+    public ExecutorLaneStats getStats() {
+        long completed = completedCount.sum();
+        return new ExecutorLaneStats(lane, getMaximumPoolSize(), getActiveCount(), getQueue().size(),
+                maxQueueDepth.get(), completed,
+                averageMillis(totalWaitNanos.sum(), completed), toMillis(maxWaitNanos.get()),
+                averageMillis(totalRunNanos.sum(), completed), toMillis(maxRunNanos.get()));
+    }
+
+    /**
+     * 清零累计统计，便于只观察某一段操作
+     */
+    public void resetStats() {
+        maxQueueDepth.set(0);
+        completedCount.reset();
+        totalWaitNanos.reset();
+        totalRunNanos.reset();
+        maxWaitNanos.set(0);
+        maxRunNanos.set(0);
+    }
+
+    private void recordWait(long waitNanos) {
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        if (waitNanos > SLOW_WAIT_NANOS && shouldWarn()) {
+            Log.w(TAG, lane.getThreadName() + " task waited " + toMillis(waitNanos) + "ms, queued "
+                    + getQueue().size() + ", active " + getActiveCount() + "/" + getMaximumPoolSize());
+        }
+    }
+
+    private boolean shouldWarn() {
+        long now = System.nanoTime();
+        long last = lastWarnAt.get();
+        return now - last >= WARN_INTERVAL_NANOS && lastWarnAt.compareAndSet(last, now);
+    }
+
+    private void recordRun(long runNanos) {
+        totalRunNanos.add(runNanos);
+        maxRunNanos.accumulateAndGet(runNanos, Math::max);
+        completedCount.increment();
+    }
+
+    private static double averageMillis(long totalNanos, long count) {
+        return count == 0 ? 0 : toMillis(totalNanos) / count;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * 包装提交的任务，记录等待和运行时间
+     */
+    private final class MeteredTask implements Runnable {
+        private final Runnable command;
+        private final long enqueuedAt = System.nanoTime();
+
+        MeteredTask(Runnable command) {
+            this.command = command;
+        }
+
+        @Override
+        public void run() {
+            long startedAt = System.nanoTime();
+            recordWait(startedAt - enqueuedAt);
+            try {
+                command.run();
+            } finally {
+                recordRun(System.nanoTime() - startedAt);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.smarttasksapp.core.util;
+
+import android.os.Process;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 带名称前缀的线程工厂
+ * 便于在trace和日志中识别线程所属的线程池；指定优先级时线程启动后先设置自身的优先级
+ */
+public class NamedThreadFactory implements ThreadFactory {
+    private static final int INHERIT_PRIORITY = Integer.MIN_VALUE;
+
+    private final String prefix;
+    private final int threadPriority;
+    private final AtomicInteger counter = new AtomicInteger(1);
+
+    public NamedThreadFactory(String prefix) {
+        this(prefix, INHERIT_PRIORITY);
+    }
+
+    /**
+     * @param threadPriority android.os.Process的线程优先级，如Process.THREAD_PRIORITY_BACKGROUND
+     */
+    public NamedThreadFactory(String prefix, int threadPriority) {
+        this.prefix = prefix;
+        this.threadPriority = threadPriority;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Runnable target = threadPriority == INHERIT_PRIORITY ? runnable : () -> {
+            // Process.setThreadPriority只作用于调用线程，需要在新线程中设置
+            Process.setThreadPriority(threadPriority);
+            runnable.run();
+        };
+        Thread thread = new Thread(target, prefix + "-" + counter.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -33,6 +33,7 @@ import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import com.example.smarttasksapp.R;
+import com.example.smarttasksapp.core.executor.AppExecutors;
 import com.example.smarttasksapp.feature.ai.data.remote.model.request.Message;
 import com.example.smarttasksapp.feature.ai.data.remote.model.response.ChatCompletionResponse;
 import com.example.smarttasksapp.feature.ai.ui.viewmodel.AiViewModel;
@@ -53,6 +54,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import javax.inject.Inject;
 
 @AndroidEntryPoint
 public class AiFragment extends Fragment {
@@ -61,6 +63,9 @@ public class AiFragment extends Fragment {
     private static final int REQUEST_CODE_PERMISSIONS = 1002;
     private static final int REQUEST_CODE_CAMERA = 1003;
 
+    @Inject
+    AppExecutors appExecutors;
+
     private AiViewModel viewModel;
     private TaskViewModel taskViewModel;
     private AliyunOcrManager ocrManager;
@@ -89,7 +94,7 @@ public class AiFragment extends Fragment {
 
         // 初始化OCR管理器
         if (getActivity() != null) {
-            ocrManager = new AliyunOcrManager(getActivity());
+            ocrManager = new AliyunOcrManager(getActivity(), appExecutors.network());
         }
     }
 
@@ -537,8 +542,17 @@ public class AiFragment extends Fragment {
         chatContainer.addView(titleView);
 
         // 为每个任务创建一个卡片
+        List<View> taskCards = new ArrayList<>();
         for (TaskEntity taskEntity : tasks) {
-            addTaskCardToChat(taskEntity);
+            View taskCard = addTaskCardToChat(taskEntity);
+            if (taskCard != null) {
+                taskCards.add(taskCard);
+            }
+        }
+
+        // 多个任务时提供一次性全部添加，整批在一个事务中写入
+        if (taskCards.size() > 1) {
+            addAddAllButtonToChat(taskCards);
         }
 
         // 滚动到底部
@@ -549,9 +563,9 @@ public class AiFragment extends Fragment {
      * 将单个任务卡片添加到聊天界面
      */
     @RequiresApi(api = Build.VERSION_CODES.S)
-    private void addTaskCardToChat(TaskEntity taskEntity) {
+    private View addTaskCardToChat(TaskEntity taskEntity) {
         View rootView = getView();
-        if (rootView == null || getContext() == null) return;
+        if (rootView == null || getContext() == null) return null;
 
         LinearLayout chatContainer = rootView.findViewById(R.id.chat_container);
         ScrollView scrollView = rootView.findViewById(R.id.content_scroll);
@@ -571,12 +585,14 @@ public class AiFragment extends Fragment {
 
         // 设置添加任务按钮点击事件
         addToTaskBtn.setOnClickListener(v -> {
-            // 更新任务实体的数据
-            taskEntity.setTitle(taskTitle.getText().toString().trim());
-            taskEntity.setDescription(taskDescription.getText().toString().trim());
+            // 用卡片上编辑后的内容生成任务
+            TaskEntity edited = taskEntity.toBuilder()
+                    .setTitle(taskTitle.getText().toString().trim())
+                    .setDescription(taskDescription.getText().toString().trim())
+                    .build();
 
             // 添加任务到数据库
-            addTaskToDatabase(taskEntity);
+            addTaskToDatabase(edited);
 
             // 立即更新按钮状态为已添加并禁用
             addToTaskBtn.setText("已添加");
@@ -595,6 +611,55 @@ public class AiFragment extends Fragment {
 
         // 滚动到底部
         scrollView.post(() -> scrollView.fullScroll(ScrollView.FOCUS_DOWN));
+        return taskCardView;
+    }
+
+    /**
+     * 添加"全部添加"按钮，把一组任务卡片中尚未添加的任务一次性写入数据库
+     */
+    @RequiresApi(api = Build.VERSION_CODES.S)
+    private void addAddAllButtonToChat(List<View> taskCards) {
+        View rootView = getView();
+        if (rootView == null || getContext() == null) return;
+
+        LinearLayout chatContainer = rootView.findViewById(R.id.chat_container);
+
+        Button addAllBtn = new Button(getContext());
+        addAllBtn.setText("全部添加");
+        LinearLayout.LayoutParams layoutParams = new LinearLayout.LayoutParams(
+                LinearLayout.LayoutParams.MATCH_PARENT, LinearLayout.LayoutParams.WRAP_CONTENT);
+        layoutParams.setMargins(8, 4, 8, 8);
+        addAllBtn.setLayoutParams(layoutParams);
+
+        addAllBtn.setOnClickListener(v -> {
+            List<TaskEntity> pending = new ArrayList<>();
+            List<Button> pendingButtons = new ArrayList<>();
+            for (View taskCardView : taskCards) {
+                Button addToTaskBtn = taskCardView.findViewById(R.id.add_to_task_btn);
+                TaskEntity taskEntity = taskViewMap.get(taskCardView);
+                if (taskEntity == null || !addToTaskBtn.isEnabled()) continue;
+
+                EditText taskTitle = taskCardView.findViewById(R.id.task_title);
+                EditText taskDescription = taskCardView.findViewById(R.id.task_description);
+                pending.add(taskEntity.toBuilder()
+                        .setTitle(taskTitle.getText().toString().trim())
+                        .setDescription(taskDescription.getText().toString().trim())
+                        .build());
+                pendingButtons.add(addToTaskBtn);
+            }
+            if (pending.isEmpty()) return;
+
+            taskViewModel.addTasks(pending);
+
+            for (Button addToTaskBtn : pendingButtons) {
+                addToTaskBtn.setText("已添加");
+                addToTaskBtn.setEnabled(false);
+                addToTaskBtn.setBackgroundColor(getResources().getColor(android.R.color.darker_gray));
+            }
+            addAllBtn.setEnabled(false);
+        });
+
+        chatContainer.addView(addAllBtn);
     }
 
     /**
@@ -4,11 +4,13 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
+import com.example.smarttasksapp.core.executor.AppExecutors;
 import com.example.smarttasksapp.feature.ai.data.remote.model.request.Message;
 import com.example.smarttasksapp.feature.ai.data.remote.model.response.ChatCompletionResponse;
 import com.example.smarttasksapp.feature.ai.domain.usecase.ChatCompletionsUseCase;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import javax.inject.Inject;
 
@@ -17,12 +19,14 @@ import dagger.hilt.android.lifecycle.HiltViewModel;
 @HiltViewModel
 public class AiViewModel extends ViewModel {
     private final ChatCompletionsUseCase useCase;
+    private final Executor networkExecutor;
     private final MutableLiveData<ChatCompletionResponse> responseLiveData = new MutableLiveData<>();
     private final MutableLiveData<String> errorLiveData = new MutableLiveData<>();
 
     @Inject
-    public AiViewModel(ChatCompletionsUseCase useCase) {
+    public AiViewModel(ChatCompletionsUseCase useCase, AppExecutors executors) {
         this.useCase = useCase;
+        this.networkExecutor = executors.network();
     }
 
     public LiveData<ChatCompletionResponse> getResponseLiveData() {
@@ -34,7 +38,7 @@ public class AiViewModel extends ViewModel {
     }
 
     public void chatCompletions(String model, List<Message> messages) {
-        new Thread(() -> {
+        networkExecutor.execute(() -> {
             try {
                 ChatCompletionResponse response = useCase.execute(model, messages);
                 if (response != null) {
@@ -45,6 +49,6 @@ public class AiViewModel extends ViewModel {
             } catch (Exception e) {
                 errorLiveData.postValue(e.getMessage());
             }
-        }).start();
+        });
     }
 }
\ No newline at end of file
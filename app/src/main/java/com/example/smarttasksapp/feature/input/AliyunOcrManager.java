@@ -13,6 +13,7 @@ import com.google.gson.Gson;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import com.example.smarttasksapp.feature.input.OcrResult;
 
@@ -27,14 +28,20 @@ public class AliyunOcrManager {
 
     private AsyncClient client;
     private Context context;
+    // 图片压缩和等待识别结果所在的线程池
+    private final Executor executor;
 
     // 阿里云AccessKey ID和AccessKey Secret
     // 请在使用时替换为实际的密钥
     private String accessKeyId = "your";
     private String accessKeySecret = "your";
 
-    public AliyunOcrManager(Context context) {
+    /**
+     * @param executor 执行识别的线程池，识别会阻塞等待网络响应
+     */
+    public AliyunOcrManager(Context context, Executor executor) {
         this.context = context;
+        this.executor = executor;
         initializeClient();
     }
 
@@ -70,7 +77,7 @@ public class AliyunOcrManager {
      * @return 识别结果的CompletableFuture对象
      */
     public CompletableFuture<OcrResult> recognizeText(Bitmap bitmap) {
-        // 创建一个在后台线程中执行的CompletableFuture
+        // 在传入的线程池中执行，不占用公共ForkJoinPool
         return CompletableFuture.supplyAsync(() -> {
             try {
                 // 将Bitmap转换为字节数组
@@ -122,7 +129,7 @@ public class AliyunOcrManager {
                 
                 return errorResult;
             }
-        });
+        }, executor);
     }
 
     /**
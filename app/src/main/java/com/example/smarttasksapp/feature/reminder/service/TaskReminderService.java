@@ -4,9 +4,13 @@ import com.example.smarttasksapp.feature.reminder.domain.ReminderConfig;
 import com.example.smarttasksapp.feature.tasks.domain.TaskEntity;
 import com.example.smarttasksapp.feature.tasks.event.TaskEventBus;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class TaskReminderService {
     private final ReminderManager reminderManager;
     private final TaskEventBus taskEventBus;
+    private final List<TaskEventBus.Subscription> subscriptions = new ArrayList<>();
     
     public TaskReminderService(ReminderManager reminderManager, TaskEventBus taskEventBus) {
         this.reminderManager = reminderManager;
@@ -14,20 +18,31 @@ public class TaskReminderService {
     }
     
     public void startListening() {
-        taskEventBus.getEvents(TaskEventBus.TaskAddedEvent.class).observeForever(this::handleTaskAdded);
-        taskEventBus.getEvents(TaskEventBus.TaskUpdatedEvent.class).observeForever(this::handleTaskUpdated);
-        taskEventBus.getEvents(TaskEventBus.TaskDeletedEvent.class).observeForever(this::handleTaskDeleted);
+        if (!subscriptions.isEmpty()) return;
+        subscriptions.add(taskEventBus.subscribe(TaskEventBus.TaskAddedEvent.class, this::handleTaskAdded));
+        subscriptions.add(taskEventBus.subscribe(TaskEventBus.TasksAddedEvent.class, this::handleTasksAdded));
+        subscriptions.add(taskEventBus.subscribe(TaskEventBus.TaskUpdatedEvent.class, this::handleTaskUpdated));
+        subscriptions.add(taskEventBus.subscribe(TaskEventBus.TaskDeletedEvent.class, this::handleTaskDeleted));
     }
     
     public void stopListening() {
-        taskEventBus.getEvents(TaskEventBus.TaskAddedEvent.class).removeObserver(this::handleTaskAdded);
-        taskEventBus.getEvents(TaskEventBus.TaskUpdatedEvent.class).removeObserver(this::handleTaskUpdated);
-        taskEventBus.getEvents(TaskEventBus.TaskDeletedEvent.class).removeObserver(this::handleTaskDeleted);
+        for (TaskEventBus.Subscription subscription : subscriptions) {
+            subscription.unsubscribe();
+        }
+        subscriptions.clear();
     }
     
     private void handleTaskAdded(TaskEventBus.TaskAddedEvent event) {
-        TaskEntity task = event.getTask();
-        
+        scheduleReminder(event.getTask());
+    }
+    
+    private void handleTasksAdded(TaskEventBus.TasksAddedEvent event) {
+        for (TaskEntity task : event.getTasks()) {
+            scheduleReminder(task);
+        }
+    }
+    
+    private void scheduleReminder(TaskEntity task) {
         // 检查任务是否有有效的开始时间
         if (task.getStartTime() > 0) {
             // 创建提醒配置
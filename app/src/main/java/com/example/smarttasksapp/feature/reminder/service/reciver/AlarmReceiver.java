@@ -10,20 +10,47 @@ import androidx.core.app.NotificationCompat;
 
 import com.example.smarttasksapp.feature.reminder.domain.ReminderConfig;
 import com.example.smarttasksapp.feature.reminder.service.ReminderManager;
+import com.example.smarttasksapp.feature.tasks.data.ITaskRepository;
+
+import dagger.hilt.EntryPoint;
+import dagger.hilt.InstallIn;
+import dagger.hilt.android.EntryPointAccessors;
+import dagger.hilt.components.SingletonComponent;
 
 public class AlarmReceiver extends BroadcastReceiver {
     private static final String CHANNEL_ID = "task_reminder_channel";
     private static final String CHANNEL_NAME = "任务提醒";
     private static final int NOTIFICATION_ID = 1;
     
+    @EntryPoint
+    @InstallIn(SingletonComponent.class)
+    public interface AlarmReceiverEntryPoint {
+        ITaskRepository taskRepository();
+    }
+    
     @Override
     public void onReceive(Context context, Intent intent) {
         String taskTitle = intent.getStringExtra("taskTitle");
         long taskStartTime = intent.getLongExtra("taskStartTime", 0);
         long taskId = intent.getLongExtra("taskId", 0);
 
-        // 显示通知
-        showNotification(context, taskTitle, taskId);
+        // 按ID读取任务的最新内容（通常命中内存缓存），任务已删除或已完成时不再提醒
+        ITaskRepository repository = EntryPointAccessors
+                .fromApplication(context.getApplicationContext(), AlarmReceiverEntryPoint.class)
+                .taskRepository();
+        PendingResult pendingResult = goAsync();
+        repository.getTask(taskId).whenComplete((task, throwable) -> {
+            try {
+                if (throwable != null) {
+                    // 读取失败时使用闹钟中保存的标题
+                    showNotification(context, taskTitle, taskId);
+                } else if (task != null && !task.isCompleted()) {
+                    showNotification(context, task.getTitle(), taskId);
+                }
+            } finally {
+                pendingResult.finish();
+            }
+        });
     }
     
     private void showNotification(Context context, String taskTitle, long taskId) {
@@ -2,26 +2,217 @@ package com.example.smarttasksapp.feature.tasks.data;
 
 import androidx.lifecycle.LiveData;
 
+import com.example.smarttasksapp.feature.tasks.domain.TaskBackupResult;
+import com.example.smarttasksapp.feature.tasks.domain.TaskCacheStats;
+import com.example.smarttasksapp.feature.tasks.domain.TaskChangeSet;
 import com.example.smarttasksapp.feature.tasks.domain.TaskEntity;
+import com.example.smarttasksapp.feature.tasks.domain.TaskListEntity;
+import com.example.smarttasksapp.feature.tasks.domain.TaskPageKey;
+import com.example.smarttasksapp.feature.tasks.domain.TaskPatch;
+import com.example.smarttasksapp.feature.tasks.domain.TaskPatchResult;
+import com.example.smarttasksapp.feature.tasks.domain.TaskStatistics;
 
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 public interface ITaskRepository {
-    LiveData<List<TaskEntity>> observeAll();
+    /**
+     * 观察一个清单中的全部任务，按列表排序；描述只是预览
+     */
+    LiveData<List<TaskEntity>> observeList(long listId);
+
+    /**
+     * 按键集分页读取一个清单的任务列表，读取量只与清单大小有关
+     * @param listId 清单ID
+     * @param after 上一页最后一行的游标，为null时读取第一页
+     * @param limit 每页最大条数
+     * @return 按列表排序的一页任务，条数小于limit表示已到末尾；
+     *         描述只是预览（见TaskEntity.isDescriptionTruncated），完整内容使用 {@link #getTask(long)}
+     */
+    CompletableFuture<List<TaskEntity>> loadTaskPage(long listId, TaskPageKey after, int limit);
+
+    /**
+     * 观察全部清单及各自的任务计数，默认清单在最前；计数由数据库维护，不扫描任务表
+     */
+    LiveData<List<TaskListEntity>> observeTaskLists();
+
+    /**
+     * 创建清单
+     * @return 新清单的ID
+     */
+    CompletableFuture<Long> addTaskList(String name);
+
+    /**
+     * 删除清单及其中的全部任务（物理删除，不能撤销）；默认清单不能删除
+     * @return 清单不存在或是默认清单时为false
+     */
+    CompletableFuture<Boolean> deleteTaskList(long listId);
+
+    /**
+     * 清单中未删除的任务数，读取数据库维护的计数器
+     * @param isCompleted 为null时统计全部任务，否则只统计对应完成状态的任务
+     */
+    CompletableFuture<Integer> countTasksInList(long listId, Boolean isCompleted);
+
+    /**
+     * 按标题和描述全文搜索任务
+     * 每个词做前缀匹配，结果按相关度排序，任务变化后稍作延迟再刷新；描述只是预览
+     * @param query 用户输入的搜索词
+     */
+    LiveData<List<TaskEntity>> searchTasks(String query);
+
+    /**
+     * 观察任务变更集
+     * 每批写入提交后发出涉及的新增、修改（含最新内容）和删除的任务，按提交顺序在主线程投递；
+     * 收到reset时应重新读取已加载的数据
+     */
+    LiveData<TaskChangeSet> observeTaskChanges();
+
+    /**
+     * 观察开始时间在[from, to)内的任务，按开始时间排列，任务变化时自动刷新；描述只是预览
+     * @param from 起始时间（毫秒，包含）
+     * @param to 结束时间（毫秒，不包含）
+     */
+    LiveData<List<TaskEntity>> observeTasksInRange(long from, long to);
+
+    /**
+     * 观察开始时间在[from, to)内每天（本地时区）的任务数，没有任务的日期不在结果中
+     */
+    LiveData<Map<LocalDate, Integer>> countTasksPerDay(long from, long to);
+
+    /**
+     * 观察任务统计（总数、已完成、逾期）
+     * 读取数据库维护的计数器，计数变化或有任务到期时在主线程更新，不扫描任务表
+     */
+    LiveData<TaskStatistics> observeTaskStatistics();
+
+    /**
+     * 按ID读取任务，先查内存缓存，命中时返回已完成的Future
+     * @return 任务副本，任务不存在时为null
+     */
+    CompletableFuture<TaskEntity> getTask(long taskId);
+
+    /**
+     * 任务缓存的命中、未命中和淘汰统计
+     */
+    TaskCacheStats getTaskCacheStats();
     
     /**
-     * 添加任务并返回任务ID
+     * 添加任务并返回任务ID，任务排在清单内未完成任务的最后
+     * @param listId 所属清单
      * @param title 任务标题
      * @param description 任务描述
      * @param startTime 开始时间
      * @return 新创建的任务ID
      */
-    CompletableFuture<Long> addTask(String title, String description, long startTime);
+    CompletableFuture<Long> addTask(long listId, String title, String description, long startTime);
 
+    /**
+     * 在一个事务中批量添加任务
+     * @param tasks 已校验过的任务，使用其清单、标题、描述和开始时间
+     * @return 按输入顺序排列的新任务ID
+     */
+    CompletableFuture<List<Long>> addTasks(List<TaskEntity> tasks);
+
+    /**
+     * 按给定顺序重写列表中每个任务的排序索引，列表应只包含同一清单的任务
+     * 会改写整个列表，单个任务的拖拽请使用 {@link #moveTask(long, long, long)}
+     */
     CompletableFuture<Boolean> persistOrder(List<TaskEntity> ordered);
-    CompletableFuture<Boolean> updateTask(TaskEntity task);
-    CompletableFuture<Boolean> updateTaskCompletedStatus(long taskId, boolean isCompleted);
+
+    /**
+     * 把任务移动到同一清单内两个相邻任务之间，只改写被移动任务的排序键
+     * @param taskId 被移动的任务ID
+     * @param aboveTaskId 移动后位于其上方的任务ID，没有时传0
+     * @param belowTaskId 移动后位于其下方的任务ID，没有时传0
+     * @return 撤销这次移动用的批次ID，排序没有改变时为0
+     */
+    CompletableFuture<Long> moveTask(long taskId, long aboveTaskId, long belowTaskId);
+    /**
+     * 只写入修改中设置过的字段，行版本与patch.getExpectedVersion()不一致时不写入
+     * @return APPLIED时带有新的行版本，CONFLICT时带有任务当前的行版本
+     */
+    CompletableFuture<TaskPatchResult> patchTask(TaskPatch patch);
+    /**
+     * @return 撤销这次修改用的批次ID，完成状态没有改变时为0
+     */
+    CompletableFuture<Long> updateTaskCompletedStatus(long taskId, boolean isCompleted);
     CompletableFuture<Boolean> updateTaskStartTime(long taskId, long startTime);
-    CompletableFuture<Boolean> deleteTask(long taskId);
+    /**
+     * 删除任务（软删除），任务从列表中消失，可以用restoreDeletedTask恢复，直到被清除
+     * @return 撤销这次删除用的批次ID，任务不存在或已删除时为0
+     */
+    CompletableFuture<Long> deleteTask(long taskId);
+
+    /**
+     * 撤销一次操作（删除、完成状态、开始时间、内容修改、排序），一次操作涉及的所有修改在一个事务中恢复
+     * 撤销记录保存在数据库中，应用重启后仍可撤销；任务已被清除或归档时对应的修改不再生效，
+     * 之后的操作又修改过同一任务时不撤销
+     * @param batchId 执行操作时返回的批次ID
+     * @return 被恢复的任务ID，没有撤销任何修改时为空
+     */
+    CompletableFuture<Set<Long>> undoOperation(long batchId);
+
+    /**
+     * 重做已撤销的一次操作；撤销之后有新的操作时不能再重做
+     * @return 被重做的任务ID，没有重做任何修改时为空
+     */
+    CompletableFuture<Set<Long>> redoOperation(long batchId);
+
+    /**
+     * 裁剪撤销记录：只保留最近的操作，删除任务已不存在的记录
+     * @return 删除的记录数
+     */
+    CompletableFuture<Integer> compactOperationJournal();
+
+    /**
+     * 恢复已删除但尚未清除的任务，任务回到删除前的位置
+     * @return 任务没有被删除或已被清除时为false
+     */
+    CompletableFuture<Boolean> restoreDeletedTask(long taskId);
+
+    /**
+     * 分批物理清除删除时间早于deletedBefore的任务
+     * @return 清除的任务数
+     */
+    CompletableFuture<Integer> purgeDeletedTasks(long deletedBefore);
+
+    /**
+     * 把完成时间早于completedBefore的任务分批移到归档表
+     * @return 归档的任务数
+     */
+    CompletableFuture<Integer> archiveCompletedTasks(long completedBefore);
+
+    /**
+     * 按完成时间倒序分页浏览归档任务
+     * @param after 上一页最后一个任务，为null时读取第一页
+     * @param limit 每页最大条数
+     */
+    CompletableFuture<List<TaskEntity>> loadArchivedTasks(TaskEntity after, int limit);
+
+    CompletableFuture<Integer> getArchivedTaskCount();
+
+    /**
+     * 把归档任务恢复到任务列表（已完成分区，保留原ID和排序键）
+     * @return 任务不在归档中时为false
+     */
+    CompletableFuture<Boolean> restoreArchivedTask(long taskId);
+
+    /**
+     * 把任务（含归档任务）和清单导出为备份文件，逐批读取并流式写入，内存占用与任务数无关；不关闭通道
+     * @param incremental 为true时只写入上次导出之后新增、修改、归档或删除的任务
+     */
+    CompletableFuture<TaskBackupResult> exportTasks(WritableByteChannel target, boolean incremental);
+
+    /**
+     * 从备份文件导入任务：先在读取线程上完整解析文件，成功后再分批在事务中写入，文件损坏时不写入任何数据；不关闭通道
+     * 备份中的任务作为新任务导入（归档任务写入归档），使用新的本机ID，不覆盖本机已有的任务；
+     * 删除记录只作用于本次导入的任务（可恢复）；备份中的清单按ID和名称对应到本机清单，本机没有时新建
+     */
+    CompletableFuture<TaskBackupResult> importTasks(ReadableByteChannel source);
 }
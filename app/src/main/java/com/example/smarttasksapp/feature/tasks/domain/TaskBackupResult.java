@@ -0,0 +1,62 @@
+package com.example.smarttasksapp.feature.tasks.domain;
+
+/**
+ * 一次备份导出或导入的结果
+ */
+public final class TaskBackupResult {
+    private final boolean incremental;
+    private final int taskCount;
+    private final int deletedCount;
+    private final int archivedCount;
+    private final int listCount;
+    private final long byteCount;
+
+    public TaskBackupResult(boolean incremental, int taskCount, int deletedCount, int archivedCount,
+                            int listCount, long byteCount) {
+        this.incremental = incremental;
+        this.taskCount = taskCount;
+        this.deletedCount = deletedCount;
+        this.archivedCount = archivedCount;
+        this.listCount = listCount;
+        this.byteCount = byteCount;
+    }
+
+    /**
+     * 是否为增量备份（只包含上次导出之后变化的任务）
+     */
+    public boolean isIncremental() { return incremental; }
+
+    /**
+     * 写入或恢复的任务数
+     */
+    public int getTaskCount() { return taskCount; }
+
+    /**
+     * 记录为已删除的任务数
+     */
+    public int getDeletedCount() { return deletedCount; }
+
+    /**
+     * 写入或恢复的归档任务数
+     */
+    public int getArchivedCount() { return archivedCount; }
+
+    /**
+     * 写入或读取的清单数
+     */
+    public int getListCount() { return listCount; }
+
+    public long getByteCount() { return byteCount; }
+
+    @Override
+    public String toString() {
+        return "TaskBackupResult{" +
+                "incremental=" + incremental +
+                ", tasks=" + taskCount +
+                ", deleted=" + deletedCount +
+                ", archived=" + archivedCount +
+                ", lists=" + listCount +
+                ", bytes=" + byteCount +
+                '}';
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.smarttasksapp.feature.tasks.domain;
+
+/**
+ * 任务缓存的统计信息快照
+ */
+public final class TaskCacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final int size;
+    private final int capacity;
+
+    public TaskCacheStats(long hitCount, long missCount, long evictionCount, int size, int capacity) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+        this.capacity = capacity;
+    }
+
+    public long getHitCount() { return hitCount; }
+
+    public long getMissCount() { return missCount; }
+
+    public long getEvictionCount() { return evictionCount; }
+
+    public int getSize() { return size; }
+
+    public int getCapacity() { return capacity; }
+
+    /**
+     * 命中率（0~1），还没有读取时为0
+     */
+    public double getHitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0.0 : (double) hitCount / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskCacheStats{" +
+                "hits=" + hitCount +
+                ", misses=" + missCount +
+                ", evictions=" + evictionCount +
+                ", size=" + size + "/" + capacity +
+                '}';
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.smarttasksapp.feature.tasks.domain;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 一批任务变更
+ * 包含新增、修改的任务（变更提交后的最新内容，描述为列表预览）和被删除的任务ID；
+ * isReset()为true时变更过多或期间有变更未被记录，调用方应重新读取已加载的数据
+ */
+public final class TaskChangeSet {
+    private final boolean reset;
+    private final List<TaskEntity> inserted;
+    private final List<TaskEntity> updated;
+    private final Set<Long> deletedIds;
+
+    public TaskChangeSet(List<TaskEntity> inserted, List<TaskEntity> updated, Set<Long> deletedIds) {
+        this(false, inserted, updated, deletedIds);
+    }
+
+    private TaskChangeSet(boolean reset, List<TaskEntity> inserted, List<TaskEntity> updated, Set<Long> deletedIds) {
+        this.reset = reset;
+        this.inserted = Collections.unmodifiableList(inserted);
+        this.updated = Collections.unmodifiableList(updated);
+        this.deletedIds = Collections.unmodifiableSet(deletedIds);
+    }
+
+    /**
+     * 需要整体重新读取的变更
+     * 每次返回新的实例，观察者可以按引用区分重新投递的旧值与新发出的reset
+     */
+    public static TaskChangeSet reset() {
+        return new TaskChangeSet(true, Collections.emptyList(), Collections.emptyList(), Collections.emptySet());
+    }
+
+    public boolean isReset() { return reset; }
+
+    public List<TaskEntity> getInserted() { return inserted; }
+
+    public List<TaskEntity> getUpdated() { return updated; }
+
+    public Set<Long> getDeletedIds() { return deletedIds; }
+
+    public int size() {
+        return inserted.size() + updated.size() + deletedIds.size();
+    }
+
+    public boolean isEmpty() {
+        return !reset && size() == 0;
+    }
+
+    @Override
+    public String toString() {
+        if (reset) return "TaskChangeSet{reset}";
+        return "TaskChangeSet{" +
+                "inserted=" + inserted.size() +
+                ", updated=" + updated.size() +
+                ", deleted=" + deletedIds.size() +
+                '}';
+    }
+}
@@ -1,65 +1,100 @@
 package com.example.smarttasksapp.feature.tasks.domain;
 
-import java.io.Serializable;
+import com.example.smarttasksapp.core.constants.Constants;
 
 /**
  * 任务领域实体
  * 用于feature层内部使用，与infrastructure层解耦
+ *
+ * 实例不可变：列表数据流在行版本不变时复用上一次发出的实例，同一个对象会同时出现在多次发出的列表、
+ * 缓存和事件中；需要修改时用toBuilder()得到修改后的新实例
  */
-public class TaskEntity implements Serializable {
+public final class TaskEntity {
 
-    private static final long serialVersionUID = 1L;
-    private long id;
-    private String title;
-    private String description;
-    private long createdAt;
-    private long sortIndex;
-    private boolean isCompleted;
-    private long startTime;
-
-    public TaskEntity() {}
+    private final long id;
+    private final String title;
+    private final String description;
+    private final long createdAt;
+    // 所属清单
+    private final long listId;
+    private final long sortIndex;
+    private final boolean isCompleted;
+    private final long startTime;
+    // 完成时间，未完成时为0
+    private final long completedAt;
+    // 为true时description只是列表使用的预览，完整描述需按ID读取
+    private final boolean descriptionTruncated;
+    // 行版本，数据库中的任务每次修改都会增大；未保存的任务为0
+    private final long version;
 
+    /**
+     * 未保存的新任务，放入默认清单，ID和排序键在保存时分配
+     */
     public TaskEntity(String title, String description, long startTime) {
-        this.title = title;
-        this.description = description;
-        this.startTime = startTime;
-        this.createdAt = System.currentTimeMillis();
-        this.isCompleted = false;
-        this.sortIndex = 0;
+        this(builder()
+                .setTitle(title)
+                .setDescription(description)
+                .setStartTime(startTime)
+                .setCreatedAt(System.currentTimeMillis()));
+    }
+
+    private TaskEntity(Builder builder) {
+        this.id = builder.id;
+        this.title = builder.title;
+        this.description = builder.description;
+        this.createdAt = builder.createdAt;
+        this.listId = builder.listId;
+        this.sortIndex = builder.sortIndex;
+        this.isCompleted = builder.isCompleted;
+        this.startTime = builder.startTime;
+        this.completedAt = builder.completedAt;
+        this.descriptionTruncated = builder.descriptionTruncated;
+        this.version = builder.version;
     }
 
-    public TaskEntity(long id, String title, String description, long createdAt,
-                      long sortIndex, boolean isCompleted, long startTime) {
-        this.id = id;
-        this.title = title;
-        this.description = description;
-        this.createdAt = createdAt;
-        this.sortIndex = sortIndex;
-        this.isCompleted = isCompleted;
-        this.startTime = startTime;
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 以当前任务的全部字段为初始值的Builder
+     */
+    public Builder toBuilder() {
+        return new Builder()
+                .setId(id)
+                .setTitle(title)
+                .setDescription(description)
+                .setCreatedAt(createdAt)
+                .setListId(listId)
+                .setSortIndex(sortIndex)
+                .setCompleted(isCompleted)
+                .setStartTime(startTime)
+                .setCompletedAt(completedAt)
+                .setDescriptionTruncated(descriptionTruncated)
+                .setVersion(version);
     }
 
-    // Getters and Setters
     public long getId() { return id; }
-    public void setId(long id) { this.id = id; }
 
     public String getTitle() { return title; }
-    public void setTitle(String title) { this.title = title; }
 
     public String getDescription() { return description; }
-    public void setDescription(String description) { this.description = description; }
 
     public long getCreatedAt() { return createdAt; }
-    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+
+    public long getListId() { return listId; }
 
     public long getSortIndex() { return sortIndex; }
-    public void setSortIndex(long sortIndex) { this.sortIndex = sortIndex; }
-    
+
     public boolean isCompleted() { return isCompleted; }
-    public void setCompleted(boolean completed) { isCompleted = completed; }
-    
+
     public long getStartTime() { return startTime; }
-    public void setStartTime(long startTime) { this.startTime = startTime; }
+
+    public long getCompletedAt() { return completedAt; }
+
+    public boolean isDescriptionTruncated() { return descriptionTruncated; }
+
+    public long getVersion() { return version; }
 
     @Override
     public boolean equals(Object o) {
@@ -81,9 +116,86 @@ public class TaskEntity implements Serializable {
                 ", title='" + title + '\'' +
                 ", description='" + description + '\'' +
                 ", createdAt=" + createdAt +
+                ", listId=" + listId +
                 ", sortIndex=" + sortIndex +
                 ", isCompleted=" + isCompleted +
                 ", startTime=" + startTime +
+                ", version=" + version +
                 '}';
     }
+
+    public static final class Builder {
+        private long id;
+        private String title;
+        private String description;
+        private long createdAt;
+        private long listId = Constants.DEFAULT_TASK_LIST_ID;
+        private long sortIndex;
+        private boolean isCompleted;
+        private long startTime;
+        private long completedAt;
+        private boolean descriptionTruncated;
+        private long version;
+
+        private Builder() {}
+
+        public Builder setId(long id) {
+            this.id = id;
+            return this;
+        }
+
+        public Builder setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+
+        public Builder setDescription(String description) {
+            this.description = description;
+            return this;
+        }
+
+        public Builder setCreatedAt(long createdAt) {
+            this.createdAt = createdAt;
+            return this;
+        }
+
+        public Builder setListId(long listId) {
+            this.listId = listId;
+            return this;
+        }
+
+        public Builder setSortIndex(long sortIndex) {
+            this.sortIndex = sortIndex;
+            return this;
+        }
+
+        public Builder setCompleted(boolean completed) {
+            this.isCompleted = completed;
+            return this;
+        }
+
+        public Builder setStartTime(long startTime) {
+            this.startTime = startTime;
+            return this;
+        }
+
+        public Builder setCompletedAt(long completedAt) {
+            this.completedAt = completedAt;
+            return this;
+        }
+
+        public Builder setDescriptionTruncated(boolean descriptionTruncated) {
+            this.descriptionTruncated = descriptionTruncated;
+            return this;
+        }
+
+        public Builder setVersion(long version) {
+            this.version = version;
+            return this;
+        }
+
+        public TaskEntity build() {
+            return new TaskEntity(this);
+        }
+    }
 }
@@ -0,0 +1,45 @@
+package com.example.smarttasksapp.feature.tasks.domain;
+
+import com.example.smarttasksapp.core.constants.Constants;
+
+/**
+ * 任务清单及其任务计数快照（不含已删除的任务）
+ */
+public final class TaskListEntity {
+    private final long id;
+    private final String name;
+    private final int taskCount;
+    private final int completedCount;
+
+    public TaskListEntity(long id, String name, int taskCount, int completedCount) {
+        this.id = id;
+        this.name = name;
+        this.taskCount = taskCount;
+        this.completedCount = completedCount;
+    }
+
+    public long getId() { return id; }
+
+    public String getName() { return name; }
+
+    public int getTaskCount() { return taskCount; }
+
+    public int getCompletedCount() { return completedCount; }
+
+    public int getPendingCount() { return taskCount - completedCount; }
+
+    /**
+     * 默认清单由数据库创建，不能删除
+     */
+    public boolean isDefault() { return id == Constants.DEFAULT_TASK_LIST_ID; }
+
+    @Override
+    public String toString() {
+        return "TaskListEntity{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", taskCount=" + taskCount +
+                ", completedCount=" + completedCount +
+                '}';
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.smarttasksapp.feature.tasks.domain;
+
+import java.util.Comparator;
+
+/**
+ * 任务分页游标
+ * 对应列表排序 (isCompleted ASC, sortIndex DESC, createdAt ASC, id ASC) 中的一行，
+ * 用于键集分页：下一页从该行之后开始读取，而不是使用OFFSET
+ */
+public final class TaskPageKey {
+    /**
+     * 任务列表的排序，与数据库中的列表排序一致
+     */
+    public static final Comparator<TaskEntity> LIST_ORDER = (a, b) -> {
+        if (a.isCompleted() != b.isCompleted()) return a.isCompleted() ? 1 : -1;
+        if (a.getSortIndex() != b.getSortIndex()) return Long.compare(b.getSortIndex(), a.getSortIndex());
+        if (a.getCreatedAt() != b.getCreatedAt()) return Long.compare(a.getCreatedAt(), b.getCreatedAt());
+        return Long.compare(a.getId(), b.getId());
+    };
+
+    private final boolean isCompleted;
+    private final long sortIndex;
+    private final long createdAt;
+    private final long id;
+
+    public TaskPageKey(boolean isCompleted, long sortIndex, long createdAt, long id) {
+        this.isCompleted = isCompleted;
+        this.sortIndex = sortIndex;
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    /**
+     * 以列表中的某个任务作为游标
+     */
+    public static TaskPageKey of(TaskEntity task) {
+        return new TaskPageKey(task.isCompleted(), task.getSortIndex(), task.getCreatedAt(), task.getId());
+    }
+
+    public boolean isCompleted() { return isCompleted; }
+
+    public long getSortIndex() { return sortIndex; }
+
+    public long getCreatedAt() { return createdAt; }
+
+    public long getId() { return id; }
+
+    @Override
+    public String toString() {
+        return "TaskPageKey{" +
+                "isCompleted=" + isCompleted +
+                ", sortIndex=" + sortIndex +
+                ", createdAt=" + createdAt +
+                ", id=" + id +
+                '}';
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.smarttasksapp.feature.tasks.domain;
+
+/**
+ * 任务的部分修改
+ * 只写入设置过的字段，排序键、创建时间等未设置的字段保持不变；
+ * expectedVersion为读取任务时的行版本（TaskEntity.getVersion），任务在此之后被修改过时不写入
+ */
+public final class TaskPatch {
+    /**
+     * 不检查行版本，直接覆盖设置的字段
+     */
+    public static final long ANY_VERSION = -1;
+
+    private final long taskId;
+    private final long expectedVersion;
+
+    private boolean hasTitle;
+    private String title;
+    private boolean hasDescription;
+    private String description;
+    private boolean hasStartTime;
+    private long startTime;
+    private boolean hasCompleted;
+    private boolean completed;
+
+    private TaskPatch(long taskId, long expectedVersion) {
+        this.taskId = taskId;
+        this.expectedVersion = expectedVersion;
+    }
+
+    /**
+     * 基于已读取的任务创建修改，使用其ID和行版本
+     */
+    public static TaskPatch of(TaskEntity task) {
+        return new TaskPatch(task.getId(), task.getVersion());
+    }
+
+    /**
+     * @param expectedVersion 读取任务时的行版本，不检查时传ANY_VERSION
+     */
+    public static TaskPatch of(long taskId, long expectedVersion) {
+        return new TaskPatch(taskId, expectedVersion);
+    }
+
+    public TaskPatch setTitle(String title) {
+        this.title = title;
+        this.hasTitle = true;
+        return this;
+    }
+
+    public TaskPatch setDescription(String description) {
+        this.description = description;
+        this.hasDescription = true;
+        return this;
+    }
+
+    public TaskPatch setStartTime(long startTime) {
+        this.startTime = startTime;
+        this.hasStartTime = true;
+        return this;
+    }
+
+    /**
+     * 修改完成状态，完成时间随之更新
+     */
+    public TaskPatch setCompleted(boolean completed) {
+        this.completed = completed;
+        this.hasCompleted = true;
+        return this;
+    }
+
+    public long getTaskId() { return taskId; }
+
+    public long getExpectedVersion() { return expectedVersion; }
+
+    public boolean hasTitle() { return hasTitle; }
+
+    public String getTitle() { return title; }
+
+    public boolean hasDescription() { return hasDescription; }
+
+    public String getDescription() { return description; }
+
+    public boolean hasStartTime() { return hasStartTime; }
+
+    public long getStartTime() { return startTime; }
+
+    public boolean hasCompleted() { return hasCompleted; }
+
+    public boolean isCompleted() { return completed; }
+
+    /**
+     * 是否没有设置任何字段
+     */
+    public boolean isEmpty() {
+        return !hasTitle && !hasDescription && !hasStartTime && !hasCompleted;
+    }
+
+    /**
+     * 把修改应用到任务上，返回修改后的新实例，用于更新内存中的任务
+     */
+    public TaskEntity applyTo(TaskEntity task, long completedAt) {
+        TaskEntity.Builder builder = task.toBuilder();
+        if (hasTitle) builder.setTitle(title);
+        if (hasDescription) {
+            builder.setDescription(description).setDescriptionTruncated(false);
+        }
+        if (hasStartTime) builder.setStartTime(startTime);
+        if (hasCompleted) {
+            builder.setCompleted(completed).setCompletedAt(completedAt);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        return "TaskPatch{" +
+                "taskId=" + taskId +
+                ", expectedVersion=" + expectedVersion +
+                (hasTitle ? ", title" : "") +
+                (hasDescription ? ", description" : "") +
+                (hasStartTime ? ", startTime=" + startTime : "") +
+                (hasCompleted ? ", completed=" + completed : "") +
+                '}';
+    }
+}
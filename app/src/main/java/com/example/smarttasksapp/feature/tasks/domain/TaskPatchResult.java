@@ -0,0 +1,54 @@
+package com.example.smarttasksapp.feature.tasks.domain;
+
+/**
+ * 一次部分修改的结果
+ */
+public final class TaskPatchResult {
+    public enum Status {
+        // 已写入
+        APPLIED,
+        // 任务在读取之后被修改过，没有写入
+        CONFLICT,
+        // 任务不存在或已删除
+        NOT_FOUND
+    }
+
+    private static final TaskPatchResult NOT_FOUND_RESULT = new TaskPatchResult(Status.NOT_FOUND, 0);
+
+    private final Status status;
+    private final long version;
+
+    private TaskPatchResult(Status status, long version) {
+        this.status = status;
+        this.version = version;
+    }
+
+    public static TaskPatchResult applied(long newVersion) {
+        return new TaskPatchResult(Status.APPLIED, newVersion);
+    }
+
+    public static TaskPatchResult conflict(long currentVersion) {
+        return new TaskPatchResult(Status.CONFLICT, currentVersion);
+    }
+
+    public static TaskPatchResult notFound() {
+        return NOT_FOUND_RESULT;
+    }
+
+    public Status getStatus() { return status; }
+
+    public boolean isApplied() { return status == Status.APPLIED; }
+
+    /**
+     * 写入后的行版本（APPLIED），或任务当前的行版本（CONFLICT）；NOT_FOUND时为0
+     */
+    public long getVersion() { return version; }
+
+    @Override
+    public String toString() {
+        return "TaskPatchResult{" +
+                "status=" + status +
+                ", version=" + version +
+                '}';
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.smarttasksapp.feature.tasks.domain;
+
+/**
+ * 任务统计信息快照（不含已删除的任务）
+ */
+public final class TaskStatistics {
+    private static final TaskStatistics EMPTY = new TaskStatistics(0, 0, 0);
+
+    private final int totalTasks;
+    private final int completedTasks;
+    private final int overdueTasks;
+
+    public TaskStatistics(int totalTasks, int completedTasks, int overdueTasks) {
+        this.totalTasks = totalTasks;
+        this.completedTasks = completedTasks;
+        this.overdueTasks = overdueTasks;
+    }
+
+    public static TaskStatistics empty() {
+        return EMPTY;
+    }
+
+    public int getTotalTasks() { return totalTasks; }
+
+    public int getCompletedTasks() { return completedTasks; }
+
+    public int getPendingTasks() { return totalTasks - completedTasks; }
+
+    /**
+     * 已到开始时间但还没有完成的任务数
+     */
+    public int getOverdueTasks() { return overdueTasks; }
+
+    /**
+     * 完成率（0~100），没有任务时为0
+     */
+    public double getCompletionRate() {
+        return totalTasks > 0 ? (double) completedTasks / totalTasks * 100 : 0.0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TaskStatistics)) return false;
+        TaskStatistics that = (TaskStatistics) o;
+        return totalTasks == that.totalTasks
+                && completedTasks == that.completedTasks
+                && overdueTasks == that.overdueTasks;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * totalTasks + completedTasks) + overdueTasks;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskStatistics{" +
+                "total=" + totalTasks +
+                ", completed=" + completedTasks +
+                ", overdue=" + overdueTasks +
+                '}';
+    }
+}
@@ -3,14 +3,24 @@ package com.example.smarttasksapp.feature.tasks.domain.usecase;
 import android.os.Build;
 
 import androidx.annotation.RequiresApi;
+import androidx.lifecycle.LiveData;
 
+import com.example.smarttasksapp.core.constants.Constants;
 import com.example.smarttasksapp.core.util.CompletableFutureUtil;
 import com.example.smarttasksapp.feature.tasks.data.ITaskRepository;
 import com.example.smarttasksapp.feature.tasks.domain.TaskEntity;
+import com.example.smarttasksapp.feature.tasks.domain.TaskListEntity;
+import com.example.smarttasksapp.feature.tasks.domain.TaskPatch;
+import com.example.smarttasksapp.feature.tasks.domain.TaskPatchResult;
+import com.example.smarttasksapp.feature.tasks.domain.TaskStatistics;
 import com.example.smarttasksapp.feature.tasks.event.TaskEventBus;
 import com.example.smarttasksapp.feature.tasks.event.TaskEventBus.TaskAddedEvent;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 import javax.inject.Inject;
@@ -35,43 +45,87 @@ public class TaskUseCase {
     }
     
     /**
-     * 添加任务
+     * 添加任务到taskEntity所属的清单
      */
     @RequiresApi(api = Build.VERSION_CODES.S)
     public CompletableFuture<Long> addTask(TaskEntity taskEntity) {
         // 业务逻辑验证
-        if (taskEntity == null) {
-            return CompletableFutureUtil.failedFuture(new IllegalArgumentException("任务实体不能为空"));
+        String error = validateNewTask(taskEntity);
+        if (error != null) {
+            return CompletableFutureUtil.failedFuture(new IllegalArgumentException(error));
         }
         
+        return repository.addTask(taskEntity.getListId(), taskEntity.getTitle().trim(),
+                        taskEntity.getDescription(), taskEntity.getStartTime())
+                .thenApply(taskId -> {
+                    // 发布任务添加事件
+                    TaskEventBus.getInstance().postEvent(new TaskAddedEvent(taskEntity.toBuilder().setId(taskId).build()));
+                    return taskId;
+                });
+    }
+    
+    /**
+     * 批量添加任务
+     * 先校验全部任务，有任何一个不合法则整批不写入；写入后只发布一次批量添加事件
+     */
+    @RequiresApi(api = Build.VERSION_CODES.S)
+    public CompletableFuture<List<Long>> addTasks(List<TaskEntity> taskEntities) {
+        if (taskEntities == null || taskEntities.isEmpty()) {
+            return CompletableFutureUtil.failedFuture(new IllegalArgumentException("任务列表不能为空"));
+        }
+        
+        List<TaskEntity> validated = new ArrayList<>(taskEntities.size());
+        for (int i = 0; i < taskEntities.size(); i++) {
+            TaskEntity taskEntity = taskEntities.get(i);
+            String error = validateNewTask(taskEntity);
+            if (error != null) {
+                return CompletableFutureUtil.failedFuture(new IllegalArgumentException("第" + (i + 1) + "个任务：" + error));
+            }
+            validated.add(new TaskEntity(taskEntity.getTitle().trim(), taskEntity.getDescription(), taskEntity.getStartTime())
+                    .toBuilder()
+                    .setListId(taskEntity.getListId())
+                    .build());
+        }
+        
+        return repository.addTasks(validated)
+                .thenApply(taskIds -> {
+                    List<TaskEntity> added = new ArrayList<>(validated.size());
+                    for (int i = 0; i < validated.size(); i++) {
+                        added.add(validated.get(i).toBuilder().setId(taskIds.get(i)).build());
+                    }
+                    // 发布批量添加事件
+                    TaskEventBus.getInstance().postEvent(new TaskEventBus.TasksAddedEvent(added));
+                    return taskIds;
+                });
+    }
+    
+    /**
+     * 校验新任务，合法时返回null，否则返回错误信息
+     */
+    private String validateNewTask(TaskEntity taskEntity) {
+        if (taskEntity == null) {
+            return "任务实体不能为空";
+        }
         String title = taskEntity.getTitle();
         if (title == null || title.trim().isEmpty()) {
-            return CompletableFutureUtil.failedFuture(new IllegalArgumentException("任务标题不能为空"));
+            return "任务标题不能为空";
         }
-        
         if (title.length() > 200) {
-            return CompletableFutureUtil.failedFuture(new IllegalArgumentException("任务标题过长，不能超过200个字符"));
+            return "任务标题过长，不能超过200个字符";
         }
-        
-        long startTime = taskEntity.getStartTime();
-        if (startTime <= 0) {
-            return CompletableFutureUtil.failedFuture(new IllegalArgumentException("开始时间无效"));
+        if (taskEntity.getStartTime() <= 0) {
+            return "开始时间无效";
         }
-        
-        return repository.addTask(title.trim(), taskEntity.getDescription(), startTime)
-                .thenApply(taskId -> {
-                    // 发布任务添加事件
-                    taskEntity.setId(taskId);
-                    TaskEventBus.getInstance().postEvent(new TaskAddedEvent(taskEntity));
-                    return taskId;
-                });
+        return null;
     }
     
     /**
-     * 更新任务
+     * 更新任务的标题、描述和开始时间，其余字段（排序、创建时间、完成状态）保持不变
+     * @param expectedVersion 读取任务时的行版本，任务在此之后被修改过时不写入；不检查时传TaskPatch.ANY_VERSION
      */
     @RequiresApi(api = Build.VERSION_CODES.S)
-    public CompletableFuture<Boolean> updateTask(long taskId, String title, String description, long startTime) {
+    public CompletableFuture<TaskPatchResult> updateTask(long taskId, long expectedVersion,
+                                                         String title, String description, long startTime) {
         // 业务逻辑验证
         if (taskId <= 0) {
             return CompletableFutureUtil.failedFuture(new IllegalArgumentException("任务ID无效"));
@@ -89,43 +143,52 @@ public class TaskUseCase {
             return CompletableFutureUtil.failedFuture(new IllegalArgumentException("开始时间无效"));
         }
         
-        TaskEntity task = new TaskEntity(title.trim(), description, startTime);
-        task.setId(taskId);
+        TaskPatch patch = TaskPatch.of(taskId, expectedVersion)
+                .setTitle(title.trim())
+                .setDescription(description)
+                .setStartTime(startTime);
         
-        return repository.updateTask(task)
-                .thenApply(success -> {
-                    // 发布任务更新事件
-                    if (success) {
-                        TaskEventBus.getInstance().postEvent(new TaskEventBus.TaskUpdatedEvent(task));
+        return repository.patchTask(patch)
+                .thenCompose(result -> {
+                    if (!result.isApplied()) {
+                        return CompletableFuture.completedFuture(result);
                     }
-                    return success;
+                    // 发布任务更新事件，事件中是修改后的完整任务（缓存已随修改更新）
+                    return repository.getTask(taskId).thenApply(task -> {
+                        if (task != null) {
+                            TaskEventBus.getInstance().postEvent(new TaskEventBus.TaskUpdatedEvent(task));
+                        }
+                        return result;
+                    });
                 });
     }
     
     /**
      * 删除任务
+     * @return 撤销这次删除用的批次ID，任务不存在或已删除时为0
      */
     @RequiresApi(api = Build.VERSION_CODES.S)
-    public CompletableFuture<Boolean> deleteTask(long taskId) {
+    public CompletableFuture<Long> deleteTask(long taskId) {
         if (taskId <= 0) {
             return CompletableFutureUtil.failedFuture(new IllegalArgumentException("任务ID无效"));
         }
         
         return repository.deleteTask(taskId)
-                .thenApply(success -> {
+                .thenApply(batchId -> {
                     // 发布任务删除事件
-                    if (success) {
+                    if (batchId > 0) {
                         TaskEventBus.getInstance().postEvent(new TaskEventBus.TaskDeletedEvent(taskId));
                     }
-                    return success;
+                    return batchId;
                 });
     }
     
     /**
      * 更新任务状态
+     * @return 撤销这次修改用的批次ID，状态没有改变时为0
      */
     @RequiresApi(api = Build.VERSION_CODES.S)
-    public CompletableFuture<Boolean> updateTaskStatus(long taskId, boolean isCompleted) {
+    public CompletableFuture<Long> updateTaskStatus(long taskId, boolean isCompleted) {
         if (taskId <= 0) {
             return CompletableFutureUtil.failedFuture(new IllegalArgumentException("任务ID无效"));
         }
@@ -161,40 +224,102 @@ public class TaskUseCase {
     }
     
     /**
-     * 获取任务统计信息
+     * 把任务移动到两个相邻任务之间
+     * @return 撤销这次移动用的批次ID，排序没有改变时为0
      */
-    public TaskStatistics getTaskStatistics(List<TaskEntity> tasks) {
-        if (tasks == null) {
-            return new TaskStatistics(0, 0, 0, 0.0);
+    public CompletableFuture<Long> moveTask(long taskId, long aboveTaskId, long belowTaskId) {
+        if (taskId <= 0) {
+            return CompletableFutureUtil.failedFuture(new IllegalArgumentException("任务ID无效"));
         }
         
-        int total = tasks.size();
-        int completed = (int) tasks.stream().filter(TaskEntity::isCompleted).count();
-        int pending = total - completed;
-        double completionRate = total > 0 ? (double) completed / total * 100 : 0.0;
-        
-        return new TaskStatistics(total, completed, pending, completionRate);
+        return repository.moveTask(taskId, Math.max(aboveTaskId, 0), Math.max(belowTaskId, 0));
     }
     
     /**
-     * 任务统计信息
+     * 观察全部清单及各自的任务计数
      */
-    public static class TaskStatistics {
-        private final int totalTasks;
-        private final int completedTasks;
-        private final int pendingTasks;
-        private final double completionRate;
+    public LiveData<List<TaskListEntity>> observeTaskLists() {
+        return repository.observeTaskLists();
+    }
+    
+    /**
+     * 创建清单
+     */
+    public CompletableFuture<Long> addTaskList(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return CompletableFutureUtil.failedFuture(new IllegalArgumentException("清单名称不能为空"));
+        }
         
-        public TaskStatistics(int totalTasks, int completedTasks, int pendingTasks, double completionRate) {
-            this.totalTasks = totalTasks;
-            this.completedTasks = completedTasks;
-            this.pendingTasks = pendingTasks;
-            this.completionRate = completionRate;
+        if (name.trim().length() > Constants.TASK_LIST_NAME_MAX_LENGTH) {
+            return CompletableFutureUtil.failedFuture(new IllegalArgumentException(
+                    "清单名称过长，不能超过" + Constants.TASK_LIST_NAME_MAX_LENGTH + "个字符"));
         }
         
-        public int getTotalTasks() { return totalTasks; }
-        public int getCompletedTasks() { return completedTasks; }
-        public int getPendingTasks() { return pendingTasks; }
-        public double getCompletionRate() { return completionRate; }
+        return repository.addTaskList(name.trim());
+    }
+    
+    /**
+     * 删除清单及其中的任务，默认清单不能删除
+     */
+    public CompletableFuture<Boolean> deleteTaskList(long listId) {
+        if (listId == Constants.DEFAULT_TASK_LIST_ID) {
+            return CompletableFutureUtil.failedFuture(new IllegalArgumentException("默认清单不能删除"));
+        }
+        
+        return repository.deleteTaskList(listId);
+    }
+    
+    /**
+     * 撤销一次操作（完成状态、开始时间、编辑、删除、排序）
+     * @param batchId 执行操作时返回的批次ID
+     * @return 没有撤销任何修改时为false
+     */
+    public CompletableFuture<Boolean> undo(long batchId) {
+        return repository.undoOperation(batchId).thenCompose(this::publishReplayed);
+    }
+    
+    /**
+     * 重做已撤销的一次操作
+     * @return 没有重做任何修改时为false
+     */
+    public CompletableFuture<Boolean> redo(long batchId) {
+        return repository.redoOperation(batchId).thenCompose(this::publishReplayed);
+    }
+    
+    /**
+     * 为撤销或重做涉及的任务发布事件，提醒等订阅者据此重新安排；
+     * 回放后已被删除的任务发布删除事件，其余发布带最新内容的更新事件
+     */
+    private CompletableFuture<Boolean> publishReplayed(Set<Long> taskIds) {
+        if (taskIds.isEmpty()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        List<CompletableFuture<Void>> published = new ArrayList<>(taskIds.size());
+        for (long taskId : taskIds) {
+            published.add(repository.getTask(taskId).thenAccept(task -> TaskEventBus.getInstance().postEvent(
+                    task != null ? new TaskEventBus.TaskUpdatedEvent(task) : new TaskEventBus.TaskDeletedEvent(taskId))));
+        }
+        return CompletableFuture.allOf(published.toArray(new CompletableFuture[0])).thenApply(ignored -> true);
+    }
+    
+    /**
+     * 观察开始时间在[from, to)内的任务
+     */
+    public LiveData<List<TaskEntity>> observeTasksInRange(long from, long to) {
+        return repository.observeTasksInRange(from, Math.max(from, to));
+    }
+    
+    /**
+     * 观察开始时间在[from, to)内每天的任务数
+     */
+    public LiveData<Map<LocalDate, Integer>> countTasksPerDay(long from, long to) {
+        return repository.countTasksPerDay(from, Math.max(from, to));
+    }
+    
+    /**
+     * 观察任务统计信息，由数据库计数器维护，不遍历任务列表
+     */
+    public LiveData<TaskStatistics> observeTaskStatistics() {
+        return repository.observeTaskStatistics();
     }
 }
@@ -1,49 +1,277 @@
 package com.example.smarttasksapp.feature.tasks.event;
 
-import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MutableLiveData;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
+import com.example.smarttasksapp.core.constants.Constants;
 import com.example.smarttasksapp.feature.tasks.domain.TaskEntity;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 任务事件总线
  * 处理任务相关的事件通信
+ *
+ * 事件按发布顺序存入定长环形缓冲区，由分发线程（默认主线程）逐个投递给订阅了该类型（或其父类型）的监听器，
+ * 连续发布的事件不会合并；缓冲区满时新事件被丢弃并计入统计。
+ * 发布只写入预先分配的数组，分发时按事件类型缓存订阅者数组，稳定状态下不产生额外对象
  */
 public class TaskEventBus {
+    private static final String TAG = "TaskEventBus";
+    private static final Subscriber<?>[] NO_SUBSCRIBERS = new Subscriber<?>[0];
+
     private static TaskEventBus instance;
-    private final MutableLiveData<TaskEvent> eventBus = new MutableLiveData<>();
 
-    private TaskEventBus() {}
+    private final Executor dispatcher;
+    private final Object lock = new Object();
+    // 环形缓冲区，head为下一个待分发事件的序号，tail为下一个写入位置的序号
+    private final TaskEvent[] buffer;
+    private final long[] postedAt;
+    private final int mask;
+    private long head = 0;
+    private long tail = 0;
+    private boolean drainScheduled = false;
+    private final Runnable drainTask = this::drain;
+
+    // 全部订阅者，修改时整体替换
+    private volatile Subscriber<?>[] subscribers = NO_SUBSCRIBERS;
+    // 事件类型 -> 接收该类型的订阅者，订阅变化时清空
+    private final Map<Class<?>, Subscriber<?>[]> subscribersByType = new ConcurrentHashMap<>();
+
+    private final AtomicLong postedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    // 以下只在分发线程上修改
+    private volatile long deliveredCount = 0;
+    private volatile long totalLatencyNanos = 0;
+    private volatile long maxLatencyNanos = 0;
+
+    /**
+     * @param capacity 缓冲区容量，向上取整为2的幂
+     * @param dispatcher 投递事件的线程，需要串行执行
+     */
+    public TaskEventBus(int capacity, Executor dispatcher) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.buffer = new TaskEvent[size];
+        this.postedAt = new long[size];
+        this.mask = size - 1;
+        this.dispatcher = dispatcher;
+    }
 
     public static synchronized TaskEventBus getInstance() {
         if (instance == null) {
-            instance = new TaskEventBus();
+            Handler mainHandler = new Handler(Looper.getMainLooper());
+            instance = new TaskEventBus(Constants.TASK_EVENT_BUFFER_CAPACITY, mainHandler::post);
         }
         return instance;
     }
 
-    public LiveData<TaskEvent> getEvents() {
-        return eventBus;
+    /**
+     * 订阅一种事件，事件在分发线程上按发布顺序投递
+     * @param eventType 事件类型，同时接收其子类型的事件；传TaskEvent.class接收全部事件
+     * @return 订阅句柄，不再需要时调用unsubscribe
+     */
+    public <T extends TaskEvent> Subscription subscribe(Class<T> eventType, Listener<? super T> listener) {
+        Subscriber<T> subscriber = new Subscriber<>(eventType, listener);
+        synchronized (lock) {
+            Subscriber<?>[] current = subscribers;
+            Subscriber<?>[] updated = new Subscriber<?>[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, current.length);
+            updated[current.length] = subscriber;
+            subscribers = updated;
+            subscribersByType.clear();
+        }
+        return subscriber;
+    }
+
+    /**
+     * 发布事件，可在任意线程调用，不阻塞
+     * @return 缓冲区已满、事件被丢弃时为false
+     */
+    public boolean postEvent(TaskEvent event) {
+        boolean scheduleDrain = false;
+        synchronized (lock) {
+            if (tail - head == buffer.length) {
+                long dropped = droppedCount.incrementAndGet();
+                Log.w(TAG, "Event buffer full, dropped " + event.getClass().getSimpleName()
+                        + " (" + dropped + " dropped in total)");
+                return false;
+            }
+            int index = (int) (tail & mask);
+            buffer[index] = event;
+            postedAt[index] = System.nanoTime();
+            tail++;
+            if (!drainScheduled) {
+                drainScheduled = true;
+                scheduleDrain = true;
+            }
+        }
+        postedCount.incrementAndGet();
+        if (scheduleDrain) {
+            dispatcher.execute(drainTask);
+        }
+        return true;
+    }
+
+    /**
+     * 发布、投递和丢弃的事件数，以及从发布到开始投递的延迟
+     */
+    public Stats getStats() {
+        long pending;
+        synchronized (lock) {
+            pending = tail - head;
+        }
+        long delivered = deliveredCount;
+        return new Stats(postedCount.get(), delivered, droppedCount.get(), pending,
+                delivered == 0 ? 0 : totalLatencyNanos / 1_000_000.0 / delivered,
+                maxLatencyNanos / 1_000_000.0);
+    }
+
+    /**
+     * 在分发线程上投递缓冲区中的全部事件，投递期间新发布的事件也在本轮投递
+     */
+    private void drain() {
+        while (true) {
+            TaskEvent event;
+            long latency;
+            synchronized (lock) {
+                if (head == tail) {
+                    drainScheduled = false;
+                    return;
+                }
+                int index = (int) (head & mask);
+                event = buffer[index];
+                latency = System.nanoTime() - postedAt[index];
+                buffer[index] = null;
+                head++;
+            }
+            dispatch(event);
+            deliveredCount++;
+            totalLatencyNanos += latency;
+            if (latency > maxLatencyNanos) {
+                maxLatencyNanos = latency;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void dispatch(TaskEvent event) {
+        for (Subscriber<?> subscriber : subscribersFor(event.getClass())) {
+            if (!subscriber.active) continue;
+            try {
+                ((Listener<TaskEvent>) subscriber.listener).onEvent(event);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error delivering " + event.getClass().getSimpleName() + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private Subscriber<?>[] subscribersFor(Class<?> eventClass) {
+        Subscriber<?>[] matching = subscribersByType.get(eventClass);
+        if (matching != null) return matching;
+        Subscriber<?>[] all = subscribers;
+        List<Subscriber<?>> list = new ArrayList<>();
+        for (Subscriber<?> subscriber : all) {
+            if (subscriber.eventType.isAssignableFrom(eventClass)) {
+                list.add(subscriber);
+            }
+        }
+        matching = list.toArray(NO_SUBSCRIBERS);
+        // 计算期间订阅发生变化时不缓存，下次重新计算
+        if (subscribers == all) {
+            subscribersByType.put(eventClass, matching);
+        }
+        return matching;
     }
-    
-    public <T extends TaskEvent> LiveData<T> getEvents(Class<T> eventType) {
-        // 创建一个过滤特定事件类型的LiveData
-        MutableLiveData<T> filteredLiveData = new MutableLiveData<>();
-        
-        // 观察所有事件，并只转发指定类型的事件
-        eventBus.observeForever(event -> {
-            if (eventType.isInstance(event)) {
-                filteredLiveData.postValue(eventType.cast(event));
+
+    private void remove(Subscriber<?> subscriber) {
+        synchronized (lock) {
+            Subscriber<?>[] current = subscribers;
+            List<Subscriber<?>> remaining = new ArrayList<>(current.length);
+            for (Subscriber<?> s : current) {
+                if (s != subscriber) remaining.add(s);
             }
-        });
-        
-        return filteredLiveData;
+            if (remaining.size() == current.length) return;
+            subscribers = remaining.toArray(NO_SUBSCRIBERS);
+            subscribersByType.clear();
+        }
+    }
+
+    /**
+     * 事件监听器
+     */
+    public interface Listener<T extends TaskEvent> {
+        void onEvent(T event);
+    }
+
+    /**
+     * 订阅句柄
+     */
+    public interface Subscription {
+        /**
+         * 取消订阅，之后不再收到事件（包括已发布但尚未投递的事件）；重复调用无副作用
+         */
+        void unsubscribe();
     }
 
-    public void postEvent(TaskEvent event) {
-        eventBus.postValue(event);
+    private final class Subscriber<T extends TaskEvent> implements Subscription {
+        final Class<T> eventType;
+        final Listener<? super T> listener;
+        volatile boolean active = true;
+
+        Subscriber(Class<T> eventType, Listener<? super T> listener) {
+            this.eventType = eventType;
+            this.listener = listener;
+        }
+
+        @Override
+        public void unsubscribe() {
+            active = false;
+            remove(this);
+        }
+    }
+
+    /**
+     * 事件总线的统计快照，延迟单位为毫秒
+     */
+    public static final class Stats {
+        private final long postedCount;
+        private final long deliveredCount;
+        private final long droppedCount;
+        private final long pendingCount;
+        private final double averageLatencyMillis;
+        private final double maxLatencyMillis;
+
+        Stats(long postedCount, long deliveredCount, long droppedCount, long pendingCount,
+              double averageLatencyMillis, double maxLatencyMillis) {
+            this.postedCount = postedCount;
+            this.deliveredCount = deliveredCount;
+            this.droppedCount = droppedCount;
+            this.pendingCount = pendingCount;
+            this.averageLatencyMillis = averageLatencyMillis;
+            this.maxLatencyMillis = maxLatencyMillis;
+        }
+
+        public long getPostedCount() { return postedCount; }
+        public long getDeliveredCount() { return deliveredCount; }
+        public long getDroppedCount() { return droppedCount; }
+        // 已发布但尚未投递的事件数
+        public long getPendingCount() { return pendingCount; }
+        public double getAverageLatencyMillis() { return averageLatencyMillis; }
+        public double getMaxLatencyMillis() { return maxLatencyMillis; }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "TaskEventBus[posted=%d, delivered=%d, dropped=%d, pending=%d, latency avg=%.2fms max=%.2fms]",
+                    postedCount, deliveredCount, droppedCount, pendingCount, averageLatencyMillis, maxLatencyMillis);
+        }
     }
 
     /**
@@ -76,6 +304,22 @@ public class TaskEventBus {
         }
     }
 
+    /**
+     * 任务批量添加事件
+     * 一次批量写入只发布一个事件
+     */
+    public static class TasksAddedEvent extends TaskEvent {
+        private final List<TaskEntity> tasks;
+
+        public TasksAddedEvent(List<TaskEntity> tasks) {
+            this.tasks = tasks;
+        }
+
+        public List<TaskEntity> getTasks() {
+            return tasks;
+        }
+    }
+
     /**
      * 任务更新事件
      */
@@ -0,0 +1,149 @@
+package com.example.smarttasksapp.feature.tasks.ui.adapter;
+
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.smarttasksapp.R;
+import com.example.smarttasksapp.core.constants.Constants;
+import com.example.smarttasksapp.feature.tasks.domain.TaskEntity;
+import com.example.smarttasksapp.feature.tasks.ui.viewmodel.AgendaViewModel;
+
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 日程列表适配器，每一项是一天
+ * 已读取任务的日期显示当天的任务，其余日期只显示任务数
+ */
+public class AgendaAdapter extends RecyclerView.Adapter<AgendaAdapter.DayViewHolder> {
+
+    public interface OnTaskClickListener {
+        void onTaskClick(TaskEntity task);
+    }
+
+    private final AgendaViewModel viewModel;
+    private final DateTimeFormatter dayFormat = DateTimeFormatter.ofPattern("MM-dd EEE", Locale.getDefault());
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
+    private final LocalDate today = LocalDate.now();
+    private AgendaViewModel.DayWindow taskWindow;
+    private Map<LocalDate, List<TaskEntity>> tasksByDay = Collections.emptyMap();
+    private Map<LocalDate, Integer> taskCounts = Collections.emptyMap();
+    private OnTaskClickListener taskClickListener;
+
+    public AgendaAdapter(AgendaViewModel viewModel) {
+        this.viewModel = viewModel;
+    }
+
+    public void setOnTaskClickListener(OnTaskClickListener listener) {
+        this.taskClickListener = listener;
+    }
+
+    /**
+     * 更新已读取范围内的任务，只刷新该范围内的日期
+     */
+    public void setTasks(AgendaViewModel.DayWindow window, Map<LocalDate, List<TaskEntity>> tasksByDay) {
+        AgendaViewModel.DayWindow previous = this.taskWindow;
+        this.taskWindow = window;
+        this.tasksByDay = tasksByDay != null ? tasksByDay : Collections.emptyMap();
+        if (previous != null) {
+            notifyDays(previous);
+        }
+        notifyDays(window);
+    }
+
+    public void setTaskCounts(AgendaViewModel.DayWindow window, Map<LocalDate, Integer> taskCounts) {
+        this.taskCounts = taskCounts != null ? taskCounts : Collections.emptyMap();
+        notifyDays(window);
+    }
+
+    private void notifyDays(AgendaViewModel.DayWindow window) {
+        if (window == null) return;
+        int start = Math.max(0, viewModel.getPositionOf(window.getFrom()));
+        int end = Math.min(getItemCount(), viewModel.getPositionOf(window.getTo()));
+        if (end > start) {
+            notifyItemRangeChanged(start, end - start);
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return viewModel.getDayCount();
+    }
+
+    @NonNull
+    @Override
+    public DayViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_agenda_day, parent, false);
+        return new DayViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull DayViewHolder holder, int position) {
+        holder.bind(viewModel.getDayAt(position));
+    }
+
+    class DayViewHolder extends RecyclerView.ViewHolder {
+        final TextView day;
+        final TextView count;
+        final LinearLayout tasksContainer;
+
+        DayViewHolder(@NonNull View itemView) {
+            super(itemView);
+            day = itemView.findViewById(R.id.tvAgendaDay);
+            count = itemView.findViewById(R.id.tvAgendaCount);
+            tasksContainer = itemView.findViewById(R.id.agendaTasksContainer);
+        }
+
+        void bind(LocalDate date) {
+            String dayText = date.format(dayFormat);
+            day.setText(date.equals(today) ? dayText + " 今天" : dayText);
+            day.setTextColor(date.equals(today) ? Color.parseColor(Constants.COLOR_PENDING) : Color.BLACK);
+
+            Integer taskCount = taskCounts.get(date);
+            count.setText(taskCount != null && taskCount > 0 ? taskCount + "项" : "");
+
+            tasksContainer.removeAllViews();
+            boolean loaded = taskWindow != null && taskWindow.contains(date, date);
+            List<TaskEntity> tasks = loaded ? tasksByDay.get(date) : null;
+            if (tasks == null) {
+                tasksContainer.setVisibility(View.GONE);
+                return;
+            }
+            tasksContainer.setVisibility(View.VISIBLE);
+            for (TaskEntity task : tasks) {
+                tasksContainer.addView(createTaskRow(task));
+            }
+        }
+
+        private TextView createTaskRow(TaskEntity task) {
+            TextView row = (TextView) LayoutInflater.from(itemView.getContext())
+                    .inflate(R.layout.item_agenda_task, tasksContainer, false);
+            row.setText(timeFormat.format(new Date(task.getStartTime())) + "  " + task.getTitle());
+            if (task.isCompleted()) {
+                row.setTextColor(Color.GRAY);
+                row.setPaintFlags(row.getPaintFlags() | Paint.STRIKE_THRU_TEXT_FLAG);
+            }
+            row.setOnClickListener(v -> {
+                if (taskClickListener != null) {
+                    taskClickListener.onTaskClick(task);
+                }
+            });
+            return row;
+        }
+    }
+}
@@ -79,16 +79,10 @@ public class SwipeToCompleteCallback extends ItemTouchHelper.Callback {
                 
                 // 创建任务列表副本并更新当前任务状态
                 List<TaskEntity> updatedTasks = new ArrayList<>(adapter.getCurrentList());
-                // 使用正确的构造函数创建更新后的任务
-                TaskEntity updatedTask = new TaskEntity(
-                    task.getId(),
-                    task.getTitle(),
-                    task.getDescription(),
-                    task.getCreatedAt(),
-                    task.getSortIndex(),
-                    newStatus,
-                    task.getStartTime()
-                );
+                // 任务不可变，复制一份并修改完成状态
+                TaskEntity updatedTask = task.toBuilder()
+                    .setCompleted(newStatus)
+                    .build();
                 updatedTasks.set(position, updatedTask);
                 
                 // 先更新UI列表，保持排序状态
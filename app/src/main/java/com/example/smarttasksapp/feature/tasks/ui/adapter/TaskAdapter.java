@@ -58,6 +58,8 @@ public class TaskAdapter extends ListAdapter<TaskEntity, TaskAdapter.TaskViewHol
 
         @Override
         public boolean areContentsTheSame(@NonNull TaskEntity oldItem, @NonNull TaskEntity newItem) {
+            // 没有变化的任务在新列表中沿用同一个实例，直接按引用判断
+            if (oldItem == newItem) return true;
             // 优化比较逻辑，只比较关键字段
             return Objects.equals(oldItem.getTitle(), newItem.getTitle()) &&
                    Objects.equals(oldItem.getDescription(), newItem.getDescription()) &&
@@ -129,7 +131,7 @@ public class TaskAdapter extends ListAdapter<TaskEntity, TaskAdapter.TaskViewHol
                     taskClickListener.onTaskClick(task);
                 } else {
                     // 默认行为：显示详情
-                    TaskDetailBottomSheet.newInstance(task)
+                    TaskDetailBottomSheet.newInstance(task.getId())
                             .show(((androidx.fragment.app.FragmentActivity) v.getContext()).getSupportFragmentManager(), "taskDetail");
                 }
             });
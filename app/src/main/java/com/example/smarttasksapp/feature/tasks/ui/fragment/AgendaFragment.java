@@ -0,0 +1,87 @@
+package com.example.smarttasksapp.feature.tasks.ui.fragment;
+
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.smarttasksapp.R;
+import com.example.smarttasksapp.feature.tasks.ui.adapter.AgendaAdapter;
+import com.example.smarttasksapp.feature.tasks.ui.view.TaskDetailBottomSheet;
+import com.example.smarttasksapp.feature.tasks.ui.viewmodel.AgendaViewModel;
+
+import dagger.hilt.android.AndroidEntryPoint;
+
+/**
+ * 日程页面
+ * 按天列出任务，只读取可见日期附近的任务，滚动时随可见日期移动读取范围
+ */
+@AndroidEntryPoint
+public class AgendaFragment extends Fragment {
+
+    private AgendaViewModel viewModel;
+    private LinearLayoutManager layoutManager;
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        viewModel = new ViewModelProvider(this).get(AgendaViewModel.class);
+    }
+
+    @Nullable
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
+        View rootView = inflater.inflate(R.layout.fragment_agenda, container, false);
+
+        RecyclerView recyclerView = rootView.findViewById(R.id.rvAgenda);
+        AgendaAdapter adapter = new AgendaAdapter(viewModel);
+        layoutManager = new LinearLayoutManager(getContext());
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setAdapter(adapter);
+
+        adapter.setOnTaskClickListener(task -> TaskDetailBottomSheet.newInstance(task.getId())
+                .show(getChildFragmentManager(), "taskDetail"));
+
+        // 可见日期变化时移动读取范围
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                notifyVisibleRange();
+            }
+        });
+
+        viewModel.getTasksByDay().observe(getViewLifecycleOwner(), tasksByDay ->
+                adapter.setTasks(viewModel.getTaskWindow().getValue(), tasksByDay));
+        viewModel.getTaskCounts().observe(getViewLifecycleOwner(), counts ->
+                adapter.setTaskCounts(viewModel.getCountWindow().getValue(), counts));
+
+        // 回到今天
+        rootView.findViewById(R.id.tvAgendaToday).setOnClickListener(v ->
+                layoutManager.scrollToPositionWithOffset(viewModel.getTodayPosition(), 0));
+
+        if (savedInstanceState == null) {
+            layoutManager.scrollToPositionWithOffset(viewModel.getTodayPosition(), 0);
+        }
+        // 首次布局完成前还没有可见项，先按今天所在的位置读取
+        recyclerView.post(this::notifyVisibleRange);
+
+        return rootView;
+    }
+
+    private void notifyVisibleRange() {
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION) {
+            first = viewModel.getTodayPosition();
+            last = first;
+        }
+        viewModel.onVisibleRangeChanged(first, last);
+    }
+}
@@ -1,12 +1,19 @@
 package com.example.smarttasksapp.feature.tasks.ui.fragment;
 
+import android.app.AlertDialog;
 import android.os.Build;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextUtils;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.LayoutInflater;
+import android.view.Menu;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.Toast;
+import android.widget.EditText;
+import android.widget.PopupMenu;
+import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -19,15 +26,19 @@ import androidx.recyclerview.widget.RecyclerView;
 import androidx.recyclerview.widget.ItemTouchHelper;
 
 import com.example.smarttasksapp.R;
+import com.example.smarttasksapp.core.constants.Constants;
 import com.example.smarttasksapp.feature.tasks.ui.adapter.TaskAdapter;
 import com.example.smarttasksapp.feature.tasks.ui.adapter.SwipeToCompleteCallback;
+import com.example.smarttasksapp.feature.tasks.ui.utils.UndoSnackbar;
 import com.example.smarttasksapp.feature.tasks.ui.view.AddTaskBottomSheet;
 import com.example.smarttasksapp.feature.tasks.ui.view.TaskDetailBottomSheet;
 import com.example.smarttasksapp.feature.tasks.ui.viewmodel.TaskViewModel;
 import com.example.smarttasksapp.feature.tasks.domain.TaskEntity;
+import com.example.smarttasksapp.feature.tasks.domain.TaskListEntity;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import com.example.smarttasksapp.infrastructure.entity.Task;
@@ -40,6 +51,8 @@ public class TasksFragment extends Fragment {
     private static final String TAG = "TasksFragment";
     private TaskViewModel viewModel;
     private TaskAdapter adapter;
+    // 当前拖拽中的任务ID，没有拖拽时为0
+    private long draggedTaskId = 0;
 
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
@@ -57,19 +70,38 @@ public class TasksFragment extends Fragment {
         // 初始化RecyclerView
         RecyclerView recyclerView = rootView.findViewById(R.id.rvTasks);
         adapter = new TaskAdapter();
-        recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        recyclerView.setLayoutManager(layoutManager);
         recyclerView.setAdapter(adapter);
 
+        // 滚动接近末尾时加载下一页
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy <= 0) return;
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible >= adapter.getItemCount() - Constants.TASK_PAGE_PREFETCH_DISTANCE) {
+                    viewModel.loadMoreTasks();
+                }
+            }
+        });
+
         // 初始化SwipeToCompleteCallback，实现左滑完成和长按拖拽排序
         SwipeToCompleteCallback swipeToCompleteCallback = new SwipeToCompleteCallback(adapter, (taskId, isCompleted) -> {
-            viewModel.updateTaskStatus(taskId, isCompleted);
+            showUndoSnackbar(isCompleted ? Constants.TASK_COMPLETED_HINT : Constants.TASK_REOPENED_HINT,
+                    viewModel.updateTaskStatus(taskId, isCompleted));
         });
 
         // 设置任务拖拽排序监听器
         swipeToCompleteCallback.setOnMoveListener((from, to) -> {
+            // 搜索结果按相关度排列，不支持拖拽排序
+            if (isSearching()) return false;
             // 交换列表中的任务位置
             List<TaskEntity> tasks = adapter.getCurrentList();
             TaskEntity movedTask = tasks.get(from);
+            if (draggedTaskId == 0) {
+                draggedTaskId = movedTask.getId();
+            }
             List<TaskEntity> newTasks = new ArrayList<>(tasks);
             newTasks.remove(from);
             newTasks.add(to, movedTask);
@@ -77,9 +109,12 @@ public class TasksFragment extends Fragment {
             return true;
         });
 
-        // 设置拖拽完成监听器，更新排序索引
+        // 设置拖拽完成监听器，只改写被拖动任务的排序键
         swipeToCompleteCallback.setOnDragCompleteListener(orderedTasks -> {
-            viewModel.persistTaskOrder(new ArrayList<>(orderedTasks));
+            if (draggedTaskId != 0) {
+                persistMove(orderedTasks, draggedTaskId);
+                draggedTaskId = 0;
+            }
         });
 
         // 将ItemTouchHelper与RecyclerView关联
@@ -87,25 +122,172 @@ public class TasksFragment extends Fragment {
 
         // 设置任务点击监听器，用于显示任务详情
         adapter.setOnTaskClickListener(task -> {
-            TaskDetailBottomSheet.newInstance(task)
+            TaskDetailBottomSheet.newInstance(task.getId())
                     .show(getChildFragmentManager(), "taskDetail");
         });
 
         // 观察任务列表变化
         viewModel.getTasks().observe(getViewLifecycleOwner(), tasks -> {
-            if (tasks != null) {
-                adapter.submitList(tasks);
-                // 更新空状态提示
-                rootView.findViewById(R.id.tv_empty_hint).setVisibility(tasks.isEmpty() ? View.VISIBLE : View.GONE);
+            if (tasks != null && !isSearching()) {
+                showTasks(rootView, tasks);
             }
         });
 
-        // 添加任务按钮点击事件
+        // 搜索：输入时实时查询全文索引，清空后回到完整列表
+        EditText etSearch = rootView.findViewById(R.id.et_search);
+        etSearch.addTextChangedListener(new TextWatcher() {
+            @Override public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+            @Override public void onTextChanged(CharSequence s, int start, int before, int count) {}
+            @Override public void afterTextChanged(Editable s) { viewModel.setSearchQuery(s.toString()); }
+        });
+        viewModel.getSearchResults().observe(getViewLifecycleOwner(), results -> {
+            if (results != null && isSearching()) {
+                showTasks(rootView, results);
+            }
+        });
+        viewModel.getSearchQuery().observe(getViewLifecycleOwner(), query -> {
+            List<TaskEntity> tasks = viewModel.getTasks().getValue();
+            if (!isSearching() && tasks != null) {
+                showTasks(rootView, tasks);
+            }
+        });
+
+        // 清单切换：标题显示当前清单，点击弹出清单菜单
+        TextView tvTitle = rootView.findViewById(R.id.tv_title);
+        tvTitle.setOnClickListener(this::showTaskListMenu);
+        viewModel.getTaskLists().observe(getViewLifecycleOwner(), lists -> updateTitle(tvTitle));
+        viewModel.getCurrentListId().observe(getViewLifecycleOwner(), listId -> updateTitle(tvTitle));
+
+        // 添加任务按钮点击事件，新任务添加到当前清单
         rootView.findViewById(R.id.fabAdd).setOnClickListener(v -> {
-            AddTaskBottomSheet bottomSheet = new AddTaskBottomSheet();
+            AddTaskBottomSheet bottomSheet = AddTaskBottomSheet.newInstance(currentListId());
             bottomSheet.show(getChildFragmentManager(), "addTask");
         });
 
         return rootView;
     }
-}
\ No newline at end of file
+
+    private long currentListId() {
+        Long listId = viewModel.getCurrentListId().getValue();
+        return listId != null ? listId : Constants.DEFAULT_TASK_LIST_ID;
+    }
+
+    private TaskListEntity currentTaskList() {
+        List<TaskListEntity> lists = viewModel.getTaskLists().getValue();
+        if (lists == null) return null;
+        for (TaskListEntity list : lists) {
+            if (list.getId() == currentListId()) return list;
+        }
+        return null;
+    }
+
+    private void updateTitle(TextView tvTitle) {
+        TaskListEntity list = currentTaskList();
+        tvTitle.setText(list == null ? Constants.DEFAULT_TASK_LIST_NAME
+                : list.getName() + " (" + list.getPendingCount() + ")");
+    }
+
+    /**
+     * 清单菜单：各清单及其未完成任务数，之后是新建清单和删除当前清单
+     */
+    private void showTaskListMenu(View anchor) {
+        List<TaskListEntity> lists = viewModel.getTaskLists().getValue();
+        if (lists == null) return;
+        PopupMenu menu = new PopupMenu(requireContext(), anchor);
+        for (int i = 0; i < lists.size(); i++) {
+            TaskListEntity list = lists.get(i);
+            menu.getMenu().add(Menu.NONE, i, i, list.getName() + " (" + list.getPendingCount() + ")");
+        }
+        int newListItem = lists.size();
+        int deleteListItem = lists.size() + 1;
+        menu.getMenu().add(Menu.NONE, newListItem, newListItem, Constants.NEW_TASK_LIST);
+        TaskListEntity current = currentTaskList();
+        if (current != null && !current.isDefault()) {
+            menu.getMenu().add(Menu.NONE, deleteListItem, deleteListItem, Constants.DELETE_TASK_LIST);
+        }
+        menu.setOnMenuItemClickListener(item -> {
+            int id = item.getItemId();
+            if (id < lists.size()) {
+                viewModel.selectList(lists.get(id).getId());
+            } else if (id == newListItem) {
+                showNewTaskListDialog();
+            } else if (id == deleteListItem && current != null) {
+                confirmDeleteTaskList(current);
+            }
+            return true;
+        });
+        menu.show();
+    }
+
+    private void showNewTaskListDialog() {
+        EditText input = new EditText(requireContext());
+        input.setHint(Constants.TASK_LIST_NAME_HINT);
+        input.setSingleLine(true);
+        new AlertDialog.Builder(requireContext())
+                .setTitle(Constants.NEW_TASK_LIST)
+                .setView(input)
+                .setPositiveButton(Constants.CREATE, (dialog, which) -> {
+                    String name = input.getText().toString().trim();
+                    if (name.isEmpty()) return;
+                    // 创建后切换到新清单
+                    viewModel.addTaskList(name).thenAccept(listId -> {
+                        if (listId != null) {
+                            input.post(() -> viewModel.selectList(listId));
+                        }
+                    });
+                })
+                .setNegativeButton(Constants.CANCEL, null)
+                .show();
+    }
+
+    private void confirmDeleteTaskList(TaskListEntity list) {
+        new AlertDialog.Builder(requireContext())
+                .setTitle(Constants.DELETE_TASK_LIST + "「" + list.getName() + "」")
+                .setMessage(Constants.CONFIRM_DELETE_TASK_LIST_MESSAGE)
+                .setPositiveButton(Constants.CONFIRM_DELETE, (dialog, which) -> viewModel.deleteTaskList(list.getId()))
+                .setNegativeButton(Constants.CANCEL, null)
+                .show();
+    }
+
+    private boolean isSearching() {
+        return !TextUtils.isEmpty(viewModel.getSearchQuery().getValue());
+    }
+
+    private void showTasks(View rootView, List<TaskEntity> tasks) {
+        adapter.submitList(tasks);
+        // 更新空状态提示
+        rootView.findViewById(R.id.tv_empty_hint).setVisibility(tasks.isEmpty() && !isSearching() ? View.VISIBLE : View.GONE);
+    }
+
+    /**
+     * 根据拖拽结束后的列表找到被拖动任务的新邻居，只有同一完成状态的任务才参与排序
+     */
+    private void persistMove(List<TaskEntity> orderedTasks, long taskId) {
+        int position = -1;
+        for (int i = 0; i < orderedTasks.size(); i++) {
+            if (orderedTasks.get(i).getId() == taskId) {
+                position = i;
+                break;
+            }
+        }
+        if (position < 0) return;
+
+        TaskEntity task = orderedTasks.get(position);
+        TaskEntity above = position > 0 ? orderedTasks.get(position - 1) : null;
+        TaskEntity below = position + 1 < orderedTasks.size() ? orderedTasks.get(position + 1) : null;
+        long aboveId = above != null && above.isCompleted() == task.isCompleted() ? above.getId() : 0;
+        long belowId = below != null && below.isCompleted() == task.isCompleted() ? below.getId() : 0;
+        if (aboveId == 0 && belowId == 0) return;
+
+        showUndoSnackbar(Constants.TASK_MOVED_HINT, viewModel.moveTask(taskId, aboveId, belowId));
+    }
+
+    /**
+     * 操作完成后显示可撤销的提示，撤销的是这一次操作；撤销完成后提供重做
+     */
+    private void showUndoSnackbar(String message, CompletableFuture<Long> operation) {
+        View view = getView();
+        if (view == null) return;
+        UndoSnackbar.show(view, viewModel, message, operation);
+    }
+}
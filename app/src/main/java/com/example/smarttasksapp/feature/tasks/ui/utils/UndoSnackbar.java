@@ -0,0 +1,49 @@
+package com.example.smarttasksapp.feature.tasks.ui.utils;
+
+import android.view.View;
+import android.widget.Toast;
+
+import com.example.smarttasksapp.core.constants.Constants;
+import com.example.smarttasksapp.feature.tasks.ui.viewmodel.TaskViewModel;
+import com.google.android.material.snackbar.Snackbar;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 可撤销操作的提示条
+ * 操作写入完成、拿到撤销批次ID后显示，撤销的是这一次操作而不是最近的操作；撤销完成后提供重做。
+ * 操作没有产生修改（批次ID为0）或失败时不显示
+ */
+public final class UndoSnackbar {
+
+    private UndoSnackbar() {}
+
+    /**
+     * @param view 提示条依附的视图，通常是页面根视图
+     * @param operation 可撤销操作的结果，值为撤销批次ID
+     */
+    public static void show(View view, TaskViewModel viewModel, String message, CompletableFuture<Long> operation) {
+        operation.thenAccept(batchId -> {
+            if (batchId != null && batchId > 0) {
+                view.post(() -> show(view, viewModel, message, batchId));
+            }
+        });
+    }
+
+    private static void show(View view, TaskViewModel viewModel, String message, long batchId) {
+        if (!view.isAttachedToWindow()) return;
+        Snackbar.make(view, message, Snackbar.LENGTH_LONG)
+                .setAction(Constants.UNDO, v -> viewModel.undoOperation(batchId)
+                        .thenAccept(undone -> view.post(() -> {
+                            if (!view.isAttachedToWindow()) return;
+                            if (undone) {
+                                Snackbar.make(view, Constants.UNDO_DONE, Snackbar.LENGTH_LONG)
+                                        .setAction(Constants.REDO, r -> viewModel.redoOperation(batchId))
+                                        .show();
+                            } else {
+                                Toast.makeText(view.getContext(), Constants.NOTHING_TO_UNDO, Toast.LENGTH_SHORT).show();
+                            }
+                        })))
+                .show();
+    }
+}
@@ -46,6 +46,8 @@ public class AddTaskBottomSheet extends BottomSheetDialogFragment {
     // 每次进程重启都会归零，满足"每次重新打开应用后只提醒前两次"的需求
     private static int sTitleWarnCount = 0;
     
+    private static final String ARG_LIST_ID = "arg_list_id";
+    
     private TextView mTvStartTime;
     private long selectedStartTime = 0;
     private final SimpleDateFormat dateFormat = new SimpleDateFormat(Constants.DATE_TIME_FORMAT, Locale.getDefault());
@@ -62,6 +64,18 @@ public class AddTaskBottomSheet extends BottomSheetDialogFragment {
     private TaskViewModel mTaskViewModel;
     private Button mBtnSubmit;
 
+    /**
+     * 新任务添加到指定清单
+     */
+    public static AddTaskBottomSheet newInstance(long listId) {
+        Bundle args = new Bundle();
+        args.putLong(ARG_LIST_ID, listId);
+
+        AddTaskBottomSheet fragment = new AddTaskBottomSheet();
+        fragment.setArguments(args);
+        return fragment;
+    }
+
     @NonNull
     @Override
     public Dialog onCreateDialog(@Nullable Bundle savedInstanceState) {
@@ -172,7 +186,10 @@ public class AddTaskBottomSheet extends BottomSheetDialogFragment {
                 return;
             }
 
-            mTaskViewModel.addTask(title, TextUtils.isEmpty(desc) ? null : desc, selectedStartTime);
+            Bundle args = getArguments();
+            long listId = args != null ? args.getLong(ARG_LIST_ID, Constants.DEFAULT_TASK_LIST_ID)
+                    : Constants.DEFAULT_TASK_LIST_ID;
+            mTaskViewModel.addTask(listId, title, TextUtils.isEmpty(desc) ? null : desc, selectedStartTime);
             clearCache();
             dismiss();
         });
@@ -18,11 +18,15 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
+import androidx.core.content.ContextCompat;
 import androidx.core.util.Consumer;
 import androidx.lifecycle.ViewModelProvider;
 
 import com.example.smarttasksapp.R;
 import com.example.smarttasksapp.feature.tasks.domain.TaskEntity;
+import com.example.smarttasksapp.feature.tasks.domain.TaskPatch;
+import com.example.smarttasksapp.feature.tasks.ui.utils.UndoSnackbar;
+import com.example.smarttasksapp.feature.tasks.ui.viewmodel.TaskViewModel;
 import com.example.smarttasksapp.core.constants.Constants;
 import com.google.android.material.bottomsheet.BottomSheetBehavior;
 import com.google.android.material.bottomsheet.BottomSheetDialog;
@@ -33,29 +37,27 @@ import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
 public class TaskDetailBottomSheet extends BottomSheetDialogFragment {
 
     // ---------- 常量 ----------
     private static final String ARG_ID = "arg_id";
-    private static final String ARG_TITLE = "arg_title";
-    private static final String ARG_DESC = "arg_desc";
-    private static final String ARG_TIME = "arg_time";
-    private static final String ARG_START_TIME = "arg_start_time";
 
     // ---------- 成员变量 ----------
     private long selectedStartTime = 0;
+    // 打开时读取到的行版本，保存时用于检查任务是否已在别处被修改
+    private long loadedVersion = TaskPatch.ANY_VERSION;
     private boolean isInEditMode = false;
     private final SimpleDateFormat dateFormat = new SimpleDateFormat(Constants.DATE_TIME_FORMAT, Locale.getDefault());
 
 
-    public static TaskDetailBottomSheet newInstance(TaskEntity task) {
+    /**
+     * 只传递任务ID，打开时从仓库缓存中读取任务内容
+     */
+    public static TaskDetailBottomSheet newInstance(long taskId) {
         Bundle args = new Bundle();
-        args.putLong(ARG_ID, task.getId());
-        args.putString(ARG_TITLE, task.getTitle());
-        args.putString(ARG_DESC, task.getDescription());
-        args.putLong(ARG_TIME, task.getCreatedAt());
-        args.putLong(ARG_START_TIME, task.getStartTime());
+        args.putLong(ARG_ID, taskId);
 
         TaskDetailBottomSheet fragment = new TaskDetailBottomSheet();
         fragment.setArguments(args);
@@ -85,13 +87,37 @@ public class TaskDetailBottomSheet extends BottomSheetDialogFragment {
     }
 
     private void bindArguments(ViewHolder viewHolder) {
+        toggleEdit(viewHolder.root, false);
+
         Bundle args = getArguments();
         if (args == null) return;
+        long taskId = args.getLong(ARG_ID, 0);
+        if (taskId <= 0) return;
 
-        String title = args.getString(ARG_TITLE, "");
-        String desc = args.getString(ARG_DESC, "");
-        long createdTime = args.getLong(ARG_TIME, 0);
-        long startTime = args.getLong(ARG_START_TIME, 0);
+        CompletableFuture<TaskEntity> future = getTaskViewModel().getTask(taskId);
+        TaskEntity cached = future.isDone() && !future.isCompletedExceptionally() ? future.getNow(null) : null;
+        if (cached != null) {
+            // 缓存命中时同步绑定，弹窗显示时内容已就绪
+            bindTask(viewHolder, cached);
+            return;
+        }
+        future.whenCompleteAsync((task, throwable) -> {
+            if (!isAdded()) return;
+            if (task != null) {
+                bindTask(viewHolder, task);
+            } else {
+                // 任务已被删除或读取失败
+                dismiss();
+            }
+        }, ContextCompat.getMainExecutor(requireContext()));
+    }
+
+    private void bindTask(ViewHolder viewHolder, TaskEntity task) {
+        String title = task.getTitle() == null ? "" : task.getTitle();
+        String desc = task.getDescription() == null ? "" : task.getDescription();
+        long createdTime = task.getCreatedAt();
+        long startTime = task.getStartTime();
+        loadedVersion = task.getVersion();
 
         viewHolder.viewTitleText.setText(title);
         viewHolder.viewDescText.setText(desc);
@@ -108,8 +134,10 @@ public class TaskDetailBottomSheet extends BottomSheetDialogFragment {
 
         viewHolder.editTitleField.setText(title);
         viewHolder.editDescField.setText(desc);
+    }
 
-        toggleEdit(viewHolder.root, false);
+    private TaskViewModel getTaskViewModel() {
+        return new ViewModelProvider(requireActivity()).get(TaskViewModel.class);
     }
 
     // ---------- 标题限制 ----------
@@ -220,31 +248,68 @@ public class TaskDetailBottomSheet extends BottomSheetDialogFragment {
             return;
         }
 
-        // 使用ViewModel更新任务
-        new ViewModelProvider(requireActivity())
-                .get(com.example.smarttasksapp.feature.tasks.ui.viewmodel.TaskViewModel.class)
-                .updateTask(taskId, newTitle, newDescription, selectedStartTime);
-        
-        // 如果时间有变化，也更新时间
-        if (selectedStartTime > 0) {
-            new ViewModelProvider(requireActivity())
-                    .get(com.example.smarttasksapp.feature.tasks.ui.viewmodel.TaskViewModel.class)
-                    .updateTaskStartTime(taskId, selectedStartTime);
-        }
+        // 使用ViewModel更新任务，标题、描述和开始时间在一次修改中写入；写入成功后才切换回查看模式
+        long startTime = selectedStartTime;
+        getTaskViewModel()
+                .updateTask(taskId, loadedVersion, newTitle, newDescription, startTime)
+                .whenCompleteAsync((result, throwable) -> {
+                    if (!isAdded()) return;
+                    if (throwable != null) {
+                        // 保持编辑模式，用户的输入不丢失
+                        Toast.makeText(requireContext(), Constants.UPDATE_TASK_FAILED + throwable.getMessage(),
+                                Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    switch (result.getStatus()) {
+                        case APPLIED:
+                            // 下一次保存基于这次写入后的版本
+                            loadedVersion = result.getVersion();
+                            showSavedTask(viewHolder, newTitle, newDescription, startTime);
+                            Toast.makeText(requireContext(), Constants.TASK_SAVED, Toast.LENGTH_SHORT).show();
+                            break;
+                        case CONFLICT:
+                            // 保持编辑模式，读取最新内容和版本，用户确认后可以再次保存
+                            Toast.makeText(requireContext(), Constants.TASK_UPDATE_CONFLICT, Toast.LENGTH_SHORT).show();
+                            reloadTask(viewHolder, taskId);
+                            break;
+                        default:
+                            Toast.makeText(requireContext(), Constants.TASK_NOT_FOUND, Toast.LENGTH_SHORT).show();
+                            dismiss();
+                            break;
+                    }
+                }, ContextCompat.getMainExecutor(requireContext()));
+    }
 
+    private void showSavedTask(ViewHolder viewHolder, String title, String description, long startTime) {
         // 切换回查看模式
         toggleEdit(viewHolder.root, false);
         viewHolder.btnEdit.setVisibility(View.VISIBLE);
         viewHolder.btnSave.setVisibility(View.GONE);
-        
+
         // 更新显示的内容
-        viewHolder.viewTitleText.setText(newTitle);
-        viewHolder.viewDescText.setText(newDescription);
-        if (selectedStartTime > 0) {
-            viewHolder.viewStartTimeText.setText(dateFormat.format(new Date(selectedStartTime)));
+        viewHolder.viewTitleText.setText(title);
+        viewHolder.viewDescText.setText(description);
+        if (startTime > 0) {
+            viewHolder.viewStartTimeText.setText(dateFormat.format(new Date(startTime)));
         }
-        
-        Toast.makeText(requireContext(), Constants.TASK_SAVED, Toast.LENGTH_SHORT).show();
+    }
+
+    /**
+     * 保存冲突后重新读取任务：更新查看模式的内容和行版本，编辑框中的输入保持不变
+     */
+    private void reloadTask(ViewHolder viewHolder, long taskId) {
+        getTaskViewModel().getTask(taskId).whenCompleteAsync((task, throwable) -> {
+            if (!isAdded()) return;
+            if (task == null) {
+                dismiss();
+                return;
+            }
+            loadedVersion = task.getVersion();
+            viewHolder.viewTitleText.setText(task.getTitle() == null ? "" : task.getTitle());
+            viewHolder.viewDescText.setText(task.getDescription() == null ? "" : task.getDescription());
+            viewHolder.viewStartTimeText.setText(task.getStartTime() > 0
+                    ? dateFormat.format(new Date(task.getStartTime())) : Constants.NOT_SET);
+        }, ContextCompat.getMainExecutor(requireContext()));
     }
 
     // ---------- 删除任务 ----------
@@ -265,12 +330,12 @@ public class TaskDetailBottomSheet extends BottomSheetDialogFragment {
         long taskId = getArguments().getLong(ARG_ID, 0);
         if (taskId <= 0) return;
 
-        new ViewModelProvider(requireActivity())
-                .get(com.example.smarttasksapp.feature.tasks.ui.viewmodel.TaskViewModel.class)
-                .deleteTask(taskId);
+        // 底部弹窗随即关闭，提示条显示在页面上，可以撤销这次删除
+        View anchor = requireActivity().findViewById(android.R.id.content);
+        TaskViewModel viewModel = new ViewModelProvider(requireActivity()).get(TaskViewModel.class);
+        UndoSnackbar.show(anchor, viewModel, Constants.TASK_DELETED, viewModel.deleteTask(taskId));
 
         dismiss();
-        Toast.makeText(requireContext(), Constants.TASK_DELETED, Toast.LENGTH_SHORT).show();
     }
 
     // ---------- 编辑模式切换 ----------
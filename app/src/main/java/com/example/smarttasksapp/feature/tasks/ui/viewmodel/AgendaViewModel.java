@@ -0,0 +1,153 @@
+package com.example.smarttasksapp.feature.tasks.ui.viewmodel;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+import androidx.lifecycle.ViewModel;
+
+import com.example.smarttasksapp.core.constants.Constants;
+import com.example.smarttasksapp.feature.tasks.domain.TaskEntity;
+import com.example.smarttasksapp.feature.tasks.domain.usecase.TaskUseCase;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import dagger.hilt.android.lifecycle.HiltViewModel;
+
+/**
+ * 日程视图模型
+ * 日程按天排列（今天前后Constants.AGENDA_DAYS_BEFORE/AFTER天），位置与日期一一对应；
+ * 只读取可见日期附近的一段时间：任务读取可见范围前后AGENDA_TASK_WINDOW_PADDING_DAYS天，
+ * 每天的任务数读取更宽的范围，滚动超出已读取的范围时才切换查询
+ */
+@HiltViewModel
+public class AgendaViewModel extends ViewModel {
+
+    /**
+     * 日期范围[from, to)
+     */
+    public static final class DayWindow {
+        private final LocalDate from;
+        private final LocalDate to;
+
+        DayWindow(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        public LocalDate getFrom() { return from; }
+
+        public LocalDate getTo() { return to; }
+
+        /**
+         * [first, last]是否都在范围内
+         */
+        public boolean contains(LocalDate first, LocalDate last) {
+            return !first.isBefore(from) && last.isBefore(to);
+        }
+    }
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final LocalDate firstDay;
+    private final int dayCount;
+    private final int todayPosition;
+    private final MutableLiveData<DayWindow> taskWindow = new MutableLiveData<>();
+    private final MutableLiveData<DayWindow> countWindow = new MutableLiveData<>();
+    private final LiveData<Map<LocalDate, List<TaskEntity>>> tasksByDay;
+    private final LiveData<Map<LocalDate, Integer>> taskCounts;
+
+    @Inject
+    public AgendaViewModel(TaskUseCase taskUseCase) {
+        LocalDate today = LocalDate.now(zone);
+        this.firstDay = today.minusDays(Constants.AGENDA_DAYS_BEFORE);
+        this.dayCount = Constants.AGENDA_DAYS_BEFORE + Constants.AGENDA_DAYS_AFTER + 1;
+        this.todayPosition = Constants.AGENDA_DAYS_BEFORE;
+        this.tasksByDay = Transformations.switchMap(taskWindow, window ->
+                Transformations.map(taskUseCase.observeTasksInRange(toMillis(window.getFrom()), toMillis(window.getTo())),
+                        this::groupByDay));
+        this.taskCounts = Transformations.switchMap(countWindow, window ->
+                taskUseCase.countTasksPerDay(toMillis(window.getFrom()), toMillis(window.getTo())));
+    }
+
+    public int getDayCount() {
+        return dayCount;
+    }
+
+    public int getTodayPosition() {
+        return todayPosition;
+    }
+
+    public LocalDate getDayAt(int position) {
+        return firstDay.plusDays(position);
+    }
+
+    public int getPositionOf(LocalDate day) {
+        return (int) ChronoUnit.DAYS.between(firstDay, day);
+    }
+
+    /**
+     * 已读取的日期范围内每天的任务（按开始时间排列），没有任务的日期不在结果中
+     */
+    public LiveData<Map<LocalDate, List<TaskEntity>>> getTasksByDay() {
+        return tasksByDay;
+    }
+
+    public LiveData<DayWindow> getTaskWindow() {
+        return taskWindow;
+    }
+
+    /**
+     * 每天的任务数，覆盖的日期范围比任务更宽，用于显示尚未读取任务的日期
+     */
+    public LiveData<Map<LocalDate, Integer>> getTaskCounts() {
+        return taskCounts;
+    }
+
+    public LiveData<DayWindow> getCountWindow() {
+        return countWindow;
+    }
+
+    /**
+     * 可见的日期变化时调用，可见日期超出已读取的范围时重新选择读取范围
+     */
+    public void onVisibleRangeChanged(int firstPosition, int lastPosition) {
+        if (firstPosition < 0 || lastPosition < firstPosition) return;
+        LocalDate first = getDayAt(firstPosition);
+        LocalDate last = getDayAt(lastPosition);
+        updateWindow(taskWindow, first, last, Constants.AGENDA_TASK_WINDOW_PADDING_DAYS);
+        updateWindow(countWindow, first, last, Constants.AGENDA_COUNT_WINDOW_PADDING_DAYS);
+    }
+
+    private void updateWindow(MutableLiveData<DayWindow> window, LocalDate first, LocalDate last, int paddingDays) {
+        DayWindow current = window.getValue();
+        if (current != null && current.contains(first, last)) return;
+        window.setValue(new DayWindow(first.minusDays(paddingDays), last.plusDays(paddingDays + 1)));
+    }
+
+    private long toMillis(LocalDate day) {
+        return day.atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private Map<LocalDate, List<TaskEntity>> groupByDay(List<TaskEntity> tasks) {
+        Map<LocalDate, List<TaskEntity>> byDay = new HashMap<>();
+        if (tasks == null) return byDay;
+        for (TaskEntity task : tasks) {
+            LocalDate day = Instant.ofEpochMilli(task.getStartTime()).atZone(zone).toLocalDate();
+            List<TaskEntity> dayTasks = byDay.get(day);
+            if (dayTasks == null) {
+                dayTasks = new ArrayList<>();
+                byDay.put(day, dayTasks);
+            }
+            dayTasks.add(task);
+        }
+        return byDay;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.smarttasksapp.feature.tasks.ui.viewmodel;
+
+import com.example.smarttasksapp.core.constants.Constants;
+import com.example.smarttasksapp.feature.tasks.domain.TaskEntity;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 任务列表界面的完整状态，不可变
+ * TaskViewModel用纯函数（UnaryOperator&lt;TaskUiState&gt;）从上一个状态得到下一个状态，
+ * 没有变化的字段沿用原来的实例，观察者可以按引用判断某一部分是否改变
+ */
+public final class TaskUiState {
+    private final long listId;
+    // 当前清单已加载的任务，按列表排序
+    private final List<TaskEntity> tasks;
+    private final boolean hasMoreTasks;
+    // 进行中的操作数，大于0时显示加载状态
+    private final int runningOperations;
+    private final String error;
+    private final boolean operationSuccessful;
+    private final TaskEntity selectedTask;
+
+    private TaskUiState(long listId, List<TaskEntity> tasks, boolean hasMoreTasks, int runningOperations,
+                        String error, boolean operationSuccessful, TaskEntity selectedTask) {
+        this.listId = listId;
+        this.tasks = tasks;
+        this.hasMoreTasks = hasMoreTasks;
+        this.runningOperations = runningOperations;
+        this.error = error;
+        this.operationSuccessful = operationSuccessful;
+        this.selectedTask = selectedTask;
+    }
+
+    /**
+     * 初始状态：默认清单，还没有加载任务
+     */
+    public static TaskUiState initial() {
+        return new TaskUiState(Constants.DEFAULT_TASK_LIST_ID, Collections.emptyList(), true, 0,
+                null, false, null);
+    }
+
+    public long getListId() { return listId; }
+    public List<TaskEntity> getTasks() { return tasks; }
+    public boolean hasMoreTasks() { return hasMoreTasks; }
+    public boolean isLoading() { return runningOperations > 0; }
+    public String getError() { return error; }
+    public boolean isOperationSuccessful() { return operationSuccessful; }
+    public TaskEntity getSelectedTask() { return selectedTask; }
+
+    /**
+     * 切换到另一个清单，已加载的任务清空
+     */
+    TaskUiState forList(long listId) {
+        return new TaskUiState(listId, Collections.emptyList(), true, runningOperations,
+                error, operationSuccessful, selectedTask);
+    }
+
+    /**
+     * 替换已加载的任务，列表由调用方新建，之后不再修改
+     */
+    TaskUiState withTasks(List<TaskEntity> tasks, boolean hasMoreTasks) {
+        return new TaskUiState(listId, Collections.unmodifiableList(tasks), hasMoreTasks, runningOperations,
+                error, operationSuccessful, selectedTask);
+    }
+
+    /**
+     * 开始一个操作：清除上一次的错误，进入加载状态
+     */
+    TaskUiState startOperation() {
+        return new TaskUiState(listId, tasks, hasMoreTasks, runningOperations + 1,
+                null, operationSuccessful, selectedTask);
+    }
+
+    /**
+     * 结束一个操作；error不为null时记录错误，否则按successful标记操作成功
+     */
+    TaskUiState finishOperation(boolean successful, String error) {
+        return new TaskUiState(listId, tasks, hasMoreTasks, Math.max(0, runningOperations - 1),
+                error != null ? error : this.error,
+                operationSuccessful || (error == null && successful), selectedTask);
+    }
+
+    TaskUiState withError(String error) {
+        if (error == null ? this.error == null : error.equals(this.error)) return this;
+        return new TaskUiState(listId, tasks, hasMoreTasks, runningOperations,
+                error, operationSuccessful, selectedTask);
+    }
+
+    TaskUiState withOperationSuccessful(boolean operationSuccessful) {
+        if (operationSuccessful == this.operationSuccessful) return this;
+        return new TaskUiState(listId, tasks, hasMoreTasks, runningOperations,
+                error, operationSuccessful, selectedTask);
+    }
+
+    TaskUiState withSelectedTask(TaskEntity selectedTask) {
+        if (selectedTask == this.selectedTask) return this;
+        return new TaskUiState(listId, tasks, hasMoreTasks, runningOperations,
+                error, operationSuccessful, selectedTask);
+    }
+
+    @Override
+    public String toString() {
+        return "TaskUiState{listId=" + listId + ", tasks=" + tasks.size() + ", hasMore=" + hasMoreTasks
+                + ", running=" + runningOperations + ", error=" + error
+                + ", success=" + operationSuccessful + "}";
+    }
+}
@@ -2,20 +2,42 @@ package com.example.smarttasksapp.feature.tasks.ui.viewmodel;
 
 import android.app.Application;
 import android.os.Build;
+import android.os.Looper;
 import android.util.Log;
+import android.view.Choreographer;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.RequiresApi;
+import androidx.core.content.ContextCompat;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+import androidx.lifecycle.Transformations;
 
 
 import com.example.smarttasksapp.core.constants.Constants;
+import com.example.smarttasksapp.feature.tasks.domain.TaskChangeSet;
 import com.example.smarttasksapp.feature.tasks.domain.TaskEntity;
+import com.example.smarttasksapp.feature.tasks.domain.TaskListEntity;
+import com.example.smarttasksapp.feature.tasks.domain.TaskPageKey;
+import com.example.smarttasksapp.feature.tasks.domain.TaskPatchResult;
+import com.example.smarttasksapp.feature.tasks.domain.TaskStatistics;
 import com.example.smarttasksapp.feature.tasks.domain.usecase.TaskUseCase;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 
 import javax.inject.Inject;
 
@@ -24,20 +46,57 @@ import dagger.hilt.android.lifecycle.HiltViewModel;
 /**
  * 任务视图模型
  * 使用新的架构，直接管理状态，通过TaskUseCase处理业务逻辑
+ *
+ * 界面状态是一个不可变的TaskUiState：任意线程通过update()原子地应用一个状态变换，
+ * 变化在下一帧（Choreographer回调）于主线程一次性发布，同一帧内的多次变化只通知一次
+ *
+ * 只有getTasks()或getUiState()有活跃观察者时才观察任务变更；界面不可见期间的写入不触发任何列表读取，
+ * 恢复观察时若期间有变更，仓库发出一次reset，只重新读取已加载的页
  */
 @HiltViewModel
 public class TaskViewModel extends AndroidViewModel {
     private static final String TAG = "TaskViewModel";
     
-    // 状态管理
-    private final MutableLiveData<List<TaskEntity>> tasks = new MutableLiveData<>();
-    private final MutableLiveData<TaskEntity> selectedTask = new MutableLiveData<>();
-    private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
-    private final MutableLiveData<String> error = new MutableLiveData<>();
-    private final MutableLiveData<Boolean> isOperationSuccessful = new MutableLiveData<>(false);
+    // 状态管理：state总是最新状态，publishedState是最近一次发布的状态
+    private final AtomicReference<TaskUiState> state = new AtomicReference<>(TaskUiState.initial());
+    private final MutableLiveData<TaskUiState> publishedState = new MutableLiveData<>(state.get());
+    private final LiveData<TaskUiState> uiState;
+    private final AtomicBoolean publishScheduled = new AtomicBoolean(false);
+    private final Choreographer choreographer;
+    private final Choreographer.FrameCallback publishCallback = frameTimeNanos -> publishState();
+    private final Runnable schedulePublishOnMain = this::postPublishCallback;
+    // 从publishedState派生，只在对应部分变化时通知
+    private final LiveData<List<TaskEntity>> tasks;
+    private final LiveData<TaskEntity> selectedTask;
+    private final LiveData<Boolean> isLoading;
+    private final LiveData<String> error;
+    private final LiveData<Boolean> isOperationSuccessful;
+    // 当前显示的清单，tasks只包含该清单的任务
+    private final LiveData<Long> currentListId;
+    private final MutableLiveData<String> searchQuery = new MutableLiveData<>("");
+    private final LiveData<List<TaskEntity>> searchResults;
+    private final LiveData<List<TaskListEntity>> taskLists;
+    
+    // 分页状态（只在主线程读写）
+    // 每次切换清单加1，之前发起的页面读取结果到达时据此丢弃
+    private int listGeneration = 0;
+    private boolean isPageLoading = false;
+    private boolean reloadPending = false;
+    // 已加载的任务按ID索引，用于定位变更前的行
+    private final Map<Long, TaskEntity> loadedById = new HashMap<>();
+    // 页面读取期间收到的变更集，读取完成后按顺序补上
+    private final List<TaskChangeSet> deferredChanges = new ArrayList<>();
+    // 活跃的列表观察者数（getTasks和getUiState），为0时暂停观察任务变更
+    private int listConsumers = 0;
+    // 最近收到的变更集，重新注册观察者时LiveData会重发它，按引用跳过
+    private TaskChangeSet lastChanges;
     
     // 业务逻辑
     private final TaskUseCase taskUseCase;
+    private final Executor mainExecutor;
+    private final Observer<TaskChangeSet> changeObserver = this::onTaskChanges;
+    // 保持统计流活跃，统计方法直接读取最新值
+    private final Observer<TaskStatistics> statisticsObserver = statistics -> {};
     
     @Inject
     public TaskViewModel(@NonNull Application application, TaskUseCase taskUseCase) {
@@ -45,6 +104,19 @@ public class TaskViewModel extends AndroidViewModel {
         
         // 获取依赖
         this.taskUseCase = taskUseCase;
+        this.mainExecutor = ContextCompat.getMainExecutor(application);
+        // ViewModel在主线程创建，取得主线程的Choreographer
+        this.choreographer = Choreographer.getInstance();
+        this.uiState = select(current -> current, new ListConsumerLiveData<>());
+        this.tasks = select(TaskUiState::getTasks, new ListConsumerLiveData<>());
+        this.selectedTask = select(TaskUiState::getSelectedTask);
+        this.isLoading = select(TaskUiState::isLoading);
+        this.error = select(TaskUiState::getError);
+        this.isOperationSuccessful = select(TaskUiState::isOperationSuccessful);
+        this.currentListId = select(TaskUiState::getListId);
+        this.searchResults = Transformations.switchMap(searchQuery,
+                query -> taskUseCase.getRepository().searchTasks(query));
+        this.taskLists = taskUseCase.observeTaskLists();
         
         // 观察任务列表
         observeTasks();
@@ -52,11 +124,95 @@ public class TaskViewModel extends AndroidViewModel {
         Log.d(TAG, "TaskViewModel initialized successfully");
     }
     
+    /**
+     * 完整的界面状态，每帧最多发布一次
+     */
+    public LiveData<TaskUiState> getUiState() {
+        return uiState;
+    }
+    
     // 任务数据访问方法
     public LiveData<List<TaskEntity>> getTasks() {
         return tasks;
     }
     
+    public LiveData<List<TaskEntity>> getSearchResults() {
+        return searchResults;
+    }
+    
+    public LiveData<String> getSearchQuery() {
+        return searchQuery;
+    }
+    
+    public LiveData<Long> getCurrentListId() {
+        return currentListId;
+    }
+    
+    /**
+     * 全部清单及各自的任务计数
+     */
+    public LiveData<List<TaskListEntity>> getTaskLists() {
+        return taskLists;
+    }
+    
+    /**
+     * 切换到另一个清单：丢弃已加载的页，从第一页重新读取该清单
+     */
+    public void selectList(long listId) {
+        if (listId == currentListId()) return;
+        Log.d(TAG, "Switching to task list " + listId);
+        update(current -> current.forList(listId));
+        listGeneration++;
+        isPageLoading = false;
+        reloadPending = false;
+        deferredChanges.clear();
+        loadedById.clear();
+        loadMoreTasks();
+    }
+    
+    /**
+     * 创建清单
+     * @return 新清单的ID，失败时为null并设置错误信息
+     */
+    public CompletableFuture<Long> addTaskList(String name) {
+        clearError();
+        return taskUseCase.addTaskList(name)
+                .exceptionally(throwable -> {
+                    setError(Constants.ADD_TASK_LIST_FAILED + throwable.getMessage());
+                    Log.e(TAG, "Error adding task list: " + throwable.getMessage(), throwable);
+                    return null;
+                });
+    }
+    
+    /**
+     * 删除清单及其中的任务，删除的是当前清单时切换回默认清单
+     */
+    public void deleteTaskList(long listId) {
+        clearError();
+        taskUseCase.deleteTaskList(listId)
+                .thenAcceptAsync(deleted -> {
+                    Log.d(TAG, "Task list deleted: " + listId + " -> " + deleted);
+                    if (deleted && listId == currentListId()) {
+                        selectList(Constants.DEFAULT_TASK_LIST_ID);
+                    }
+                }, mainExecutor)
+                .exceptionally(throwable -> {
+                    setError(Constants.DELETE_TASK_LIST_FAILED + throwable.getMessage());
+                    Log.e(TAG, "Error deleting task list: " + throwable.getMessage(), throwable);
+                    return null;
+                });
+    }
+    
+    /**
+     * 设置搜索词，为空时退出搜索
+     */
+    public void setSearchQuery(String query) {
+        String normalized = query == null ? "" : query.trim();
+        if (!normalized.equals(searchQuery.getValue())) {
+            searchQuery.setValue(normalized);
+        }
+    }
+    
     public LiveData<TaskEntity> getSelectedTask() {
         return selectedTask;
     }
@@ -74,107 +230,142 @@ public class TaskViewModel extends AndroidViewModel {
     }
     
     // 任务操作方法
+    /**
+     * 添加任务到当前清单
+     */
     @RequiresApi(api = Build.VERSION_CODES.S)
     public void addTask(String title, String description, long startTime) {
-        clearError();
-        setLoading(true);
+        addTask(currentListId(), title, description, startTime);
+    }
+    
+    /**
+     * 添加任务到指定清单
+     */
+    @RequiresApi(api = Build.VERSION_CODES.S)
+    public void addTask(long listId, String title, String description, long startTime) {
+        startOperation();
         
         Log.d(TAG, "Adding task: " + title);
         
         // 创建TaskEntity实例
-        TaskEntity taskEntity = new TaskEntity(title, description, startTime);
+        TaskEntity taskEntity = new TaskEntity(title, description, startTime).toBuilder()
+                .setListId(listId)
+                .build();
         
         taskUseCase.addTask(taskEntity)
-                .thenAccept(taskId -> {
-                    if (taskId > 0) {
-                        setOperationSuccessful(true);
+                .whenComplete((taskId, throwable) -> {
+                    if (throwable != null) {
+                        Log.e(TAG, Constants.ERROR_ADDING_TASK + throwable.getMessage(), throwable);
+                        finishOperation(false, Constants.ADD_TASK_FAILED + throwable.getMessage());
+                    } else if (taskId > 0) {
                         Log.d(TAG, "Task added successfully with ID: " + taskId);
+                        finishOperation(true, null);
                     } else {
                         String errorMsg = "添加任务失败：无法获取任务ID";
-                        setError(errorMsg);
                         Log.e(TAG, "Failed to add task: " + errorMsg);
+                        finishOperation(false, errorMsg);
                     }
-                })
-                .exceptionally(throwable -> {
-                    String errorMsg = Constants.ADD_TASK_FAILED + throwable.getMessage();
-                    setError(errorMsg);
-                    Log.e(TAG, Constants.ERROR_ADDING_TASK + throwable.getMessage(), throwable);
-                    return null;
-                })
-                .whenComplete((result, throwable) -> setLoading(false));
+                });
     }
     
+    /**
+     * 批量添加任务，整批在一个事务中写入
+     */
     @RequiresApi(api = Build.VERSION_CODES.S)
-    public void updateTask(long taskId, String title, String description, long startTime) {
-        clearError();
-        setLoading(true);
+    public void addTasks(List<TaskEntity> taskEntities) {
+        startOperation();
         
-        Log.d(TAG, "Updating task: " + taskId);
+        Log.d(TAG, "Adding " + (taskEntities == null ? 0 : taskEntities.size()) + " tasks");
         
-        taskUseCase.updateTask(taskId, title, description, startTime)
-                .thenAccept(success -> {
-                    if (success) {
-                        setOperationSuccessful(true);
-                        Log.d(TAG, "Task updated successfully: " + taskId);
+        taskUseCase.addTasks(taskEntities)
+                .whenComplete((taskIds, throwable) -> {
+                    if (throwable != null) {
+                        Log.e(TAG, Constants.ERROR_ADDING_TASK + throwable.getMessage(), throwable);
+                        finishOperation(false, Constants.ADD_TASK_FAILED + throwable.getMessage());
+                    } else {
+                        Log.d(TAG, "Tasks added successfully: " + taskIds.size());
+                        finishOperation(true, null);
                     }
-                })
-                .exceptionally(throwable -> {
-                    String errorMsg = Constants.UPDATE_TASK_FAILED + throwable.getMessage();
-                    setError(errorMsg);
-                    Log.e(TAG, Constants.ERROR_UPDATING_TASK + throwable.getMessage(), throwable);
-                    return null;
-                })
-                .whenComplete((result, throwable) -> setLoading(false));
+                });
     }
     
+    /**
+     * 修改任务的标题、描述和开始时间
+     * @param expectedVersion 打开编辑时任务的行版本，任务期间被修改过时不写入并提示冲突
+     * @return 修改结果，APPLIED时带有新的行版本，可用于下一次修改
+     */
     @RequiresApi(api = Build.VERSION_CODES.S)
-    public void deleteTask(long taskId) {
-        clearError();
-        setLoading(true);
+    public CompletableFuture<TaskPatchResult> updateTask(long taskId, long expectedVersion,
+                                                         String title, String description, long startTime) {
+        startOperation();
+        
+        Log.d(TAG, "Updating task: " + taskId);
+        
+        CompletableFuture<TaskPatchResult> future = taskUseCase.updateTask(taskId, expectedVersion, title, description, startTime);
+        future.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                Log.e(TAG, Constants.ERROR_UPDATING_TASK + throwable.getMessage(), throwable);
+                finishOperation(false, Constants.UPDATE_TASK_FAILED + throwable.getMessage());
+                return;
+            }
+            switch (result.getStatus()) {
+                case APPLIED:
+                    Log.d(TAG, "Task updated successfully: " + taskId);
+                    finishOperation(true, null);
+                    break;
+                case CONFLICT:
+                    Log.w(TAG, "Task update conflict: " + taskId + ", current version " + result.getVersion());
+                    finishOperation(false, Constants.TASK_UPDATE_CONFLICT);
+                    break;
+                default:
+                    Log.w(TAG, "Task to update not found: " + taskId);
+                    finishOperation(false, Constants.TASK_NOT_FOUND);
+                    break;
+            }
+        });
+        return future;
+    }
+    
+    /**
+     * @return 撤销这次删除用的批次ID，任务不存在或已删除时为0
+     */
+    @RequiresApi(api = Build.VERSION_CODES.S)
+    public CompletableFuture<Long> deleteTask(long taskId) {
+        startOperation();
         
         Log.d(TAG, "Deleting task: " + taskId);
         
-        taskUseCase.deleteTask(taskId)
-                .thenAccept(success -> {
-                    if (success) {
-                        setOperationSuccessful(true);
-                        Log.d(TAG, "Task deleted successfully: " + taskId);
+        return taskUseCase.deleteTask(taskId)
+                .whenComplete((batchId, throwable) -> {
+                    if (throwable != null) {
+                        Log.e(TAG, Constants.ERROR_DELETING_TASK + throwable.getMessage(), throwable);
+                        finishOperation(false, Constants.DELETE_TASK_FAILED + throwable.getMessage());
+                    } else {
+                        if (batchId > 0) Log.d(TAG, "Task deleted successfully: " + taskId);
+                        finishOperation(true, null);
                     }
-                })
-                .exceptionally(throwable -> {
-                    String errorMsg = Constants.DELETE_TASK_FAILED + throwable.getMessage();
-                    setError(errorMsg);
-                    Log.e(TAG, Constants.ERROR_DELETING_TASK + throwable.getMessage(), throwable);
-                    return null;
-                })
-                .whenComplete((result, throwable) -> setLoading(false));
+                });
     }
     
+    /**
+     * @return 撤销这次修改用的批次ID，状态没有改变时为0
+     */
     @RequiresApi(api = Build.VERSION_CODES.S)
-    public void updateTaskStatus(long taskId, boolean isCompleted) {
-        clearError();
-        setLoading(true);
+    public CompletableFuture<Long> updateTaskStatus(long taskId, boolean isCompleted) {
+        startOperation();
         
         Log.d(TAG, "Updating task status: " + taskId + " -> " + isCompleted);
 
-        taskUseCase.updateTaskStatus(taskId, isCompleted)
-                .thenAccept(success -> {
-                    if (success) {
-                        setOperationSuccessful(true);
-                        Log.d(TAG, "Task status updated successfully: " + taskId);
+        return taskUseCase.updateTaskStatus(taskId, isCompleted)
+                .whenComplete((batchId, throwable) -> {
+                    if (throwable != null) {
+                        Log.e(TAG, Constants.ERROR_UPDATING_TASK_STATUS + throwable.getMessage(), throwable);
+                        finishOperation(false, Constants.UPDATE_TASK_STATUS_FAILED + throwable.getMessage());
                     } else {
-                        String errorMsg = Constants.UPDATE_TASK_STATUS_FAILED + "操作未成功完成";
-                        setError(errorMsg);
-                        Log.e(TAG, "Task status update failed: " + taskId);
+                        Log.d(TAG, "Task status updated successfully: " + taskId + " (batch " + batchId + ")");
+                        finishOperation(true, null);
                     }
-                })
-                .exceptionally(throwable -> {
-                    String errorMsg = Constants.UPDATE_TASK_STATUS_FAILED + throwable.getMessage();
-                    setError(errorMsg);
-                    Log.e(TAG, Constants.ERROR_UPDATING_TASK_STATUS + throwable.getMessage(), throwable);
-                    return null;
-                })
-                .whenComplete((result, throwable) -> setLoading(false));
+                });
     }
     
     @RequiresApi(api = Build.VERSION_CODES.S)
@@ -203,105 +394,416 @@ public class TaskViewModel extends AndroidViewModel {
             return;
         }
         
-        clearError();
-        setLoading(true);
+        startOperation();
         
         Log.d(TAG, "Persisting order for " + orderedTasks.size() + " tasks");
         
         taskUseCase.persistTaskOrder(orderedTasks)
-                .thenAccept(success -> {
-                    if (success) {
-                        setOperationSuccessful(true);
+                .whenComplete((success, throwable) -> {
+                    if (throwable != null) {
+                        Log.e(TAG, Constants.ERROR_PERSISTING_TASK_ORDER + throwable.getMessage(), throwable);
+                        finishOperation(false, Constants.PERSIST_TASK_ORDER_FAILED + throwable.getMessage());
+                    } else if (success) {
                         Log.d(TAG, "Task order persisted successfully");
+                        finishOperation(true, null);
                     } else {
-                        String errorMsg = Constants.PERSIST_TASK_ORDER_FAILED + "操作未成功完成";
-                        setError(errorMsg);
                         Log.e(TAG, "Task order persist failed");
+                        finishOperation(false, Constants.PERSIST_TASK_ORDER_FAILED + "操作未成功完成");
+                    }
+                });
+    }
+    
+    /**
+     * 拖拽完成后把任务移动到新的相邻任务之间
+     * @return 撤销这次移动用的批次ID，排序没有改变或失败时为0
+     */
+    public CompletableFuture<Long> moveTask(long taskId, long aboveTaskId, long belowTaskId) {
+        clearError();
+        
+        Log.d(TAG, "Moving task " + taskId + " between " + aboveTaskId + " and " + belowTaskId);
+        
+        return taskUseCase.moveTask(taskId, aboveTaskId, belowTaskId)
+                .whenComplete((batchId, throwable) -> {
+                    if (throwable == null) {
+                        Log.d(TAG, "Task move persisted: " + taskId + " (batch " + batchId + ")");
                     }
                 })
                 .exceptionally(throwable -> {
                     String errorMsg = Constants.PERSIST_TASK_ORDER_FAILED + throwable.getMessage();
                     setError(errorMsg);
                     Log.e(TAG, Constants.ERROR_PERSISTING_TASK_ORDER + throwable.getMessage(), throwable);
-                    return null;
-                })
-                .whenComplete((result, throwable) -> setLoading(false));
+                    return 0L;
+                });
+    }
+    
+    /**
+     * 撤销一次操作，列表通过LiveData自动刷新
+     * @param batchId 执行操作时返回的批次ID
+     * @return 没有撤销任何修改时为false，失败时为false并设置错误信息
+     */
+    public CompletableFuture<Boolean> undoOperation(long batchId) {
+        clearError();
+        return taskUseCase.undo(batchId)
+                .exceptionally(throwable -> {
+                    setError(Constants.UNDO_FAILED + throwable.getMessage());
+                    Log.e(TAG, "Error undoing operation: " + throwable.getMessage(), throwable);
+                    return false;
+                });
+    }
+    
+    /**
+     * 重做已撤销的一次操作
+     * @return 没有重做任何修改时为false，失败时为false并设置错误信息
+     */
+    public CompletableFuture<Boolean> redoOperation(long batchId) {
+        clearError();
+        return taskUseCase.redo(batchId)
+                .exceptionally(throwable -> {
+                    setError(Constants.REDO_FAILED + throwable.getMessage());
+                    Log.e(TAG, "Error redoing operation: " + throwable.getMessage(), throwable);
+                    return false;
+                });
+    }
+    
+    /**
+     * 按ID读取任务，优先使用仓库的内存缓存
+     */
+    public CompletableFuture<TaskEntity> getTask(long taskId) {
+        return taskUseCase.getRepository().getTask(taskId);
     }
     
     // 状态管理方法
     public void setSelectedTask(TaskEntity task) {
-        selectedTask.setValue(task);
+        update(current -> current.withSelectedTask(task));
         Log.d(TAG, "Selected task: " + (task != null ? task.getId() : "null"));
     }
     
     public void refreshTasks() {
         Log.d(TAG, "Refreshing tasks");
-        observeTasks();
+        reloadLoadedPages();
+    }
+    
+    /**
+     * 加载下一页任务，列表滚动接近末尾时调用
+     */
+    public void loadMoreTasks() {
+        if (!state.get().hasMoreTasks() || isPageLoading) return;
+        isPageLoading = true;
+        
+        List<TaskEntity> current = state.get().getTasks();
+        TaskPageKey after = current.isEmpty()
+                ? null
+                : TaskPageKey.of(current.get(current.size() - 1));
+        
+        int generation = listGeneration;
+        taskUseCase.getRepository().loadTaskPage(currentListId(), after, Constants.TASK_PAGE_SIZE)
+                .whenCompleteAsync((page, throwable) -> {
+                    if (generation != listGeneration) return;
+                    isPageLoading = false;
+                    if (throwable != null) {
+                        Log.e(TAG, "Error loading task page: " + throwable.getMessage(), throwable);
+                    } else {
+                        List<TaskEntity> merged = new ArrayList<>(state.get().getTasks());
+                        for (TaskEntity task : page) {
+                            // 期间的变更可能已把该任务补进列表
+                            if (!loadedById.containsKey(task.getId())) {
+                                merged.add(task);
+                                loadedById.put(task.getId(), task);
+                            }
+                        }
+                        boolean hasMore = page.size() >= Constants.TASK_PAGE_SIZE;
+                        update(state -> state.withTasks(merged, hasMore));
+                        Log.d(TAG, "Task page loaded: " + page.size() + " tasks, total " + merged.size());
+                    }
+                    onPageLoadFinished();
+                }, mainExecutor);
+    }
+    
+    public boolean hasMoreTasks() {
+        return state.get().hasMoreTasks();
     }
     
     public void clearError() {
-        error.setValue(null);
+        update(state -> state.withError(null));
     }
     
     public void clearSuccess() {
-        isOperationSuccessful.setValue(false);
+        update(state -> state.withOperationSuccessful(false));
+    }
+    
+    // 统计信息方法：读取数据库计数器，统计的是全部任务而不只是已加载的页
+    public LiveData<TaskStatistics> getTaskStatistics() {
+        return taskUseCase.observeTaskStatistics();
     }
     
-    // 统计信息方法
     public int getTotalTaskCount() {
-        List<TaskEntity> currentTasks = tasks.getValue();
-        return currentTasks != null ? currentTasks.size() : 0;
+        return currentStatistics().getTotalTasks();
     }
     
     public int getCompletedTaskCount() {
-        List<TaskEntity> currentTasks = tasks.getValue();
-        if (currentTasks == null) return 0;
-        
-        return (int) currentTasks.stream()
-                .filter(TaskEntity::isCompleted)
-                .count();
+        return currentStatistics().getCompletedTasks();
     }
     
     public int getPendingTaskCount() {
-        return getTotalTaskCount() - getCompletedTaskCount();
+        return currentStatistics().getPendingTasks();
+    }
+    
+    public int getOverdueTaskCount() {
+        return currentStatistics().getOverdueTasks();
     }
     
     public double getCompletionRate() {
-        int total = getTotalTaskCount();
-        if (total == 0) return 0.0;
-        return (double) getCompletedTaskCount() / total * 100;
+        return currentStatistics().getCompletionRate();
+    }
+    
+    private TaskStatistics currentStatistics() {
+        TaskStatistics statistics = getTaskStatistics().getValue();
+        return statistics != null ? statistics : TaskStatistics.empty();
     }
     
     // 私有方法
     private void observeTasks() {
-        // 从Repository获取任务列表
-        taskUseCase.getRepository().observeAll().observeForever(tasks -> {
-            if (tasks != null) {
-                this.tasks.setValue(tasks);
-                Log.d(TAG, "Tasks updated: " + tasks.size() + " tasks");
+        // 先读取第一页，之后在有界面观察列表时按变更集原地修补已加载的列表
+        loadMoreTasks();
+        taskUseCase.observeTaskStatistics().observeForever(statisticsObserver);
+    }
+    
+    /**
+     * 第一个列表观察者变为活跃时开始观察任务变更
+     * 暂停期间有写入时仓库随后发出reset，由onTaskChanges重新读取已加载的页
+     */
+    private void onListConsumerActive() {
+        if (listConsumers++ > 0) return;
+        Log.d(TAG, "Resuming task change observation");
+        // 重新注册时LiveData会同步重发当前值：暂停前已经收到的由onTaskChanges跳过，暂停期间才设置的照常应用
+        taskUseCase.getRepository().observeTaskChanges().observeForever(changeObserver);
+    }
+    
+    /**
+     * 最后一个列表观察者不再活跃时停止观察，之后的写入不再修补或重新读取列表
+     */
+    private void onListConsumerInactive() {
+        if (--listConsumers > 0) return;
+        Log.d(TAG, "Suspending task change observation");
+        taskUseCase.getRepository().observeTaskChanges().removeObserver(changeObserver);
+    }
+    
+    private void onTaskChanges(TaskChangeSet changes) {
+        if (changes == null || changes == lastChanges) return;
+        lastChanges = changes;
+        if (changes.isEmpty()) return;
+        if (changes.isReset()) {
+            reloadLoadedPages();
+            return;
+        }
+        if (isPageLoading) {
+            // 页面结果可能早于或晚于这批变更，等结果合并后再按顺序补上
+            deferredChanges.add(changes);
+            return;
+        }
+        applyChanges(changes);
+    }
+    
+    private void onPageLoadFinished() {
+        if (reloadPending) {
+            reloadLoadedPages();
+            return;
+        }
+        for (TaskChangeSet changes : deferredChanges) {
+            applyChanges(changes);
+        }
+        deferredChanges.clear();
+    }
+    
+    /**
+     * 把变更集应用到已加载的列表：删除旧行，按列表排序二分查找新位置插入，
+     * 比较次数与变更数成对数关系，不需要重新读取或整体比较列表
+     * 排在已加载范围之后的任务不插入，由后续分页读取
+     */
+    private void applyChanges(TaskChangeSet changes) {
+        TaskUiState current = state.get();
+        List<TaskEntity> patched = new ArrayList<>(current.getTasks());
+        
+        for (Long taskId : changes.getDeletedIds()) {
+            removeLoaded(patched, taskId);
+        }
+        List<TaskEntity> changed = new ArrayList<>(changes.size());
+        for (TaskEntity task : changes.getInserted()) {
+            changed.add(reuseLoaded(task));
+        }
+        for (TaskEntity task : changes.getUpdated()) {
+            changed.add(reuseLoaded(task));
+        }
+        for (TaskEntity task : changed) {
+            removeLoaded(patched, task.getId());
+        }
+        long listId = currentListId();
+        for (TaskEntity task : changed) {
+            // 其他清单的任务只移除不插入
+            if (task.getListId() != listId) continue;
+            int position = Collections.binarySearch(patched, task, TaskPageKey.LIST_ORDER);
+            if (position >= 0) continue;
+            position = -position - 1;
+            if (position == patched.size() && current.hasMoreTasks()) continue;
+            patched.add(position, task);
+            loadedById.put(task.getId(), task);
+        }
+        
+        update(state -> state.withTasks(patched, state.hasMoreTasks()));
+        Log.d(TAG, "Applied task changes: " + changes + ", total " + patched.size());
+    }
+    
+    /**
+     * 已加载的同一任务行版本没有变化时沿用已加载的实例，列表比较可以直接按引用判断
+     */
+    private TaskEntity reuseLoaded(TaskEntity task) {
+        TaskEntity loaded = loadedById.get(task.getId());
+        return loaded != null && loaded.getVersion() == task.getVersion() ? loaded : task;
+    }
+    
+    private void removeLoaded(List<TaskEntity> list, long taskId) {
+        TaskEntity previous = loadedById.remove(taskId);
+        if (previous == null) return;
+        int position = Collections.binarySearch(list, previous, TaskPageKey.LIST_ORDER);
+        if (position >= 0) list.remove(position);
+    }
+    
+    /**
+     * 重新读取已加载的页，读取量只与已加载的条数有关，与表的总大小无关
+     * 只在变更集为reset（变更过多或期间有变更未被记录）或手动刷新时使用
+     */
+    private void reloadLoadedPages() {
+        if (isPageLoading) {
+            // 正在加载时合并为一次重新读取
+            reloadPending = true;
+            return;
+        }
+        isPageLoading = true;
+        reloadPending = false;
+        // 之前收到的变更都已提交，会包含在这次读取的结果中
+        deferredChanges.clear();
+        
+        int loadedCount = state.get().getTasks().size();
+        int pages = Math.max(1, (loadedCount + Constants.TASK_PAGE_SIZE - 1) / Constants.TASK_PAGE_SIZE);
+        int limit = pages * Constants.TASK_PAGE_SIZE;
+        
+        int generation = listGeneration;
+        taskUseCase.getRepository().loadTaskPage(currentListId(), null, limit)
+                .whenCompleteAsync((page, throwable) -> {
+                    if (generation != listGeneration) return;
+                    isPageLoading = false;
+                    if (throwable != null) {
+                        Log.e(TAG, "Error reloading tasks: " + throwable.getMessage(), throwable);
+                    } else {
+                        boolean hasMore = page.size() >= limit;
+                        List<TaskEntity> reloaded = new ArrayList<>(page.size());
+                        for (TaskEntity task : page) {
+                            reloaded.add(reuseLoaded(task));
+                        }
+                        loadedById.clear();
+                        for (TaskEntity task : reloaded) {
+                            loadedById.put(task.getId(), task);
+                        }
+                        update(state -> state.withTasks(reloaded, hasMore));
+                        Log.d(TAG, "Tasks updated: " + reloaded.size() + " tasks");
+                    }
+                    onPageLoadFinished();
+                }, mainExecutor);
+    }
+    
+    private long currentListId() {
+        return state.get().getListId();
+    }
+    
+    /**
+     * 对最新状态原子地应用一次变换，可在任意线程调用；变化在下一帧发布
+     */
+    private void update(UnaryOperator<TaskUiState> reducer) {
+        TaskUiState previous;
+        TaskUiState next;
+        do {
+            previous = state.get();
+            next = reducer.apply(previous);
+        } while (!state.compareAndSet(previous, next));
+        if (next != previous && publishScheduled.compareAndSet(false, true)) {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                postPublishCallback();
             } else {
-                this.tasks.setValue(null);
-                Log.d(TAG, "Tasks cleared");
+                mainExecutor.execute(schedulePublishOnMain);
+            }
+        }
+    }
+    
+    private void postPublishCallback() {
+        choreographer.postFrameCallback(publishCallback);
+    }
+    
+    /**
+     * 在帧回调中发布最新状态，之后的变化安排到下一帧
+     */
+    private void publishState() {
+        publishScheduled.set(false);
+        TaskUiState latest = state.get();
+        if (latest != publishedState.getValue()) {
+            publishedState.setValue(latest);
+        }
+    }
+    
+    /**
+     * 从发布的状态派生的一部分状态，值没有变化时不通知；任务列表按引用比较（TaskEntity只按ID判断相等）
+     */
+    private <T> LiveData<T> select(Function<TaskUiState, T> selector) {
+        return select(selector, new MediatorLiveData<>());
+    }
+    
+    private <T> LiveData<T> select(Function<TaskUiState, T> selector, MediatorLiveData<T> selected) {
+        selected.addSource(publishedState, state -> {
+            T value = selector.apply(state);
+            T previous = selected.getValue();
+            boolean same = value instanceof List ? value == previous : Objects.equals(value, previous);
+            if (!selected.isInitialized() || !same) {
+                selected.setValue(value);
             }
         });
+        return selected;
     }
     
-    private void setLoading(boolean loading) {
-        isLoading.setValue(loading);
+    private void startOperation() {
+        update(TaskUiState::startOperation);
+    }
+    
+    private void finishOperation(boolean successful, String errorMessage) {
+        update(state -> state.finishOperation(successful, errorMessage));
     }
     
     private void setError(String errorMessage) {
-        error.setValue(errorMessage);
+        update(state -> state.withError(errorMessage));
     }
     
-    private void setOperationSuccessful(boolean successful) {
-        isOperationSuccessful.setValue(successful);
+    /**
+     * 活跃状态计入列表观察者数的LiveData
+     */
+    private final class ListConsumerLiveData<T> extends MediatorLiveData<T> {
+        @Override
+        protected void onActive() {
+            super.onActive();
+            onListConsumerActive();
+        }
+        
+        @Override
+        protected void onInactive() {
+            super.onInactive();
+            onListConsumerInactive();
+        }
     }
     
     @Override
     protected void onCleared() {
         super.onCleared();
         
+        taskUseCase.getRepository().observeTaskChanges().removeObserver(changeObserver);
+        taskUseCase.observeTaskStatistics().removeObserver(statisticsObserver);
+        choreographer.removeFrameCallback(publishCallback);
         Log.d(TAG, "TaskViewModel cleared");
     }
 }
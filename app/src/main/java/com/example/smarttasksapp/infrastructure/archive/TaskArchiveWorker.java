@@ -0,0 +1,82 @@
+package com.example.smarttasksapp.infrastructure.archive;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.smarttasksapp.core.constants.Constants;
+import com.example.smarttasksapp.feature.tasks.data.ITaskRepository;
+
+import java.util.concurrent.TimeUnit;
+
+import dagger.hilt.EntryPoint;
+import dagger.hilt.InstallIn;
+import dagger.hilt.android.EntryPointAccessors;
+import dagger.hilt.components.SingletonComponent;
+
+/**
+ * 任务表维护后台任务
+ * 每天在设备空闲且电量充足时运行一次：
+ * 1. 把完成超过Constants.ARCHIVE_AFTER_DAYS天的任务移到归档表
+ * 2. 物理清除删除超过Constants.PURGE_AFTER_DAYS天的任务
+ * 3. 裁剪撤销记录，删除已清除或归档任务的记录
+ * 使任务表的大小只与近期的任务有关
+ */
+public class TaskArchiveWorker extends Worker {
+    private static final String TAG = "TaskArchiveWorker";
+    private static final String WORK_NAME = "task_archive";
+
+    @EntryPoint
+    @InstallIn(SingletonComponent.class)
+    public interface TaskArchiveEntryPoint {
+        ITaskRepository taskRepository();
+    }
+
+    public TaskArchiveWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        ITaskRepository repository = EntryPointAccessors
+                .fromApplication(getApplicationContext(), TaskArchiveEntryPoint.class)
+                .taskRepository();
+        long now = System.currentTimeMillis();
+        long completedBefore = now - TimeUnit.DAYS.toMillis(Constants.ARCHIVE_AFTER_DAYS);
+        long deletedBefore = now - TimeUnit.DAYS.toMillis(Constants.PURGE_AFTER_DAYS);
+        try {
+            int archived = repository.archiveCompletedTasks(completedBefore).join();
+            int purged = repository.purgeDeletedTasks(deletedBefore).join();
+            int compacted = repository.compactOperationJournal().join();
+            Log.d(TAG, "Archive run finished: " + archived + " archived, " + purged + " purged, "
+                    + compacted + " undo records removed");
+            return Result.success();
+        } catch (Exception e) {
+            Log.e(TAG, "Archive run failed: " + e.getMessage(), e);
+            return Result.retry();
+        }
+    }
+
+    /**
+     * 注册每天执行的维护任务，已注册时保持原有计划
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiresDeviceIdle(true)
+                .setRequiresBatteryNotLow(true)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(TaskArchiveWorker.class, 1, TimeUnit.DAYS)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+}
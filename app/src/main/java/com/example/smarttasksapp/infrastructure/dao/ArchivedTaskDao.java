@@ -0,0 +1,69 @@
+package com.example.smarttasksapp.infrastructure.dao;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.example.smarttasksapp.core.constants.Constants;
+import com.example.smarttasksapp.infrastructure.entity.ArchivedTask;
+
+import java.util.List;
+
+@Dao
+public interface ArchivedTaskDao {
+    // 完成时间早于completedBefore的已完成任务，按完成时间从早到晚
+    @Query("SELECT id FROM tasks WHERE isCompleted = 1 AND completedAt > 0 AND completedAt < :completedBefore " +
+            "AND deletedAt = 0 " +
+            "ORDER BY completedAt ASC LIMIT :limit")
+    List<Long> findArchivableTaskIds(long completedBefore, int limit);
+
+    @Query("INSERT INTO archived_tasks (id, title, description, createdAt, listId, sortIndex, startTime, completedAt, archivedAt) " +
+            "SELECT id, title, description, createdAt, listId, sortIndex, startTime, completedAt, :archivedAt FROM tasks " +
+            "WHERE id IN (:taskIds)")
+    void copyTasksToArchive(List<Long> taskIds, long archivedAt);
+
+    @Query("DELETE FROM tasks WHERE id IN (:taskIds)")
+    void deleteTasks(List<Long> taskIds);
+
+    // 归档一批任务：复制到归档表后从任务表删除，返回归档的条数
+    @Transaction
+    default int archiveBatch(long completedBefore, long archivedAt, int limit) {
+        List<Long> taskIds = findArchivableTaskIds(completedBefore, limit);
+        if (taskIds.isEmpty()) return 0;
+        copyTasksToArchive(taskIds, archivedAt);
+        deleteTasks(taskIds);
+        return taskIds.size();
+    }
+
+    // 键集分页：按完成时间倒序的第一页
+    @Query("SELECT * FROM archived_tasks ORDER BY completedAt DESC, id DESC LIMIT :limit")
+    List<ArchivedTask> loadFirstPage(int limit);
+
+    // 键集分页：位于游标之后的一页
+    @Query("SELECT * FROM archived_tasks WHERE completedAt <= :completedAt " +
+            "AND (completedAt < :completedAt OR id < :id) " +
+            "ORDER BY completedAt DESC, id DESC LIMIT :limit")
+    List<ArchivedTask> loadPageAfter(long completedAt, long id, int limit);
+
+    @Query("SELECT COUNT(*) FROM archived_tasks")
+    int getArchivedTaskCount();
+
+    // 恢复时重新计算完成时间，避免刚恢复就被再次归档；原清单已被删除时放回默认清单
+    @Query("INSERT INTO tasks (id, title, description, createdAt, listId, sortIndex, isCompleted, startTime, completedAt, version) " +
+            "SELECT id, title, description, createdAt, " +
+            "COALESCE((SELECT task_lists.id FROM task_lists WHERE task_lists.id = archived_tasks.listId), " +
+            Constants.DEFAULT_TASK_LIST_ID + "), sortIndex, 1, startTime, :completedAt, " +
+            "CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER) FROM archived_tasks " +
+            "WHERE id = :taskId")
+    void copyArchivedTaskBack(long taskId, long completedAt);
+
+    @Query("DELETE FROM archived_tasks WHERE id = :taskId")
+    int deleteArchivedTask(long taskId);
+
+    // 把归档任务恢复为已完成任务，任务不在归档中时返回false
+    @Transaction
+    default boolean restore(long taskId, long completedAt) {
+        copyArchivedTaskBack(taskId, completedAt);
+        return deleteArchivedTask(taskId) > 0;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.smarttasksapp.infrastructure.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.example.smarttasksapp.infrastructure.entity.ArchivedTask;
+import com.example.smarttasksapp.infrastructure.entity.Task;
+import com.example.smarttasksapp.infrastructure.entity.TaskBackupRow;
+import com.example.smarttasksapp.infrastructure.entity.TaskList;
+
+import java.util.List;
+import java.util.Map;
+
+@Dao
+public interface TaskBackupDao {
+    String ROW_COLUMNS = "tasks.title AS title, tasks.description AS description, tasks.createdAt AS createdAt, "
+            + "tasks.sortIndex AS sortIndex, tasks.isCompleted AS isCompleted, tasks.startTime AS startTime, "
+            + "tasks.completedAt AS completedAt, tasks.listId AS listId";
+
+    // 任务在tasks或archived_tasks中（同一ID只在其中一张表），取存在的那一行
+    String MERGED_COLUMNS = "COALESCE(tasks.title, a.title) AS title, "
+            + "COALESCE(tasks.description, a.description) AS description, "
+            + "COALESCE(tasks.createdAt, a.createdAt) AS createdAt, COALESCE(tasks.sortIndex, a.sortIndex) AS sortIndex, "
+            + "COALESCE(tasks.isCompleted, 1) AS isCompleted, COALESCE(tasks.startTime, a.startTime) AS startTime, "
+            + "COALESCE(tasks.completedAt, a.completedAt) AS completedAt, COALESCE(tasks.listId, a.listId) AS listId";
+
+    // 全量导出：按ID分批读取未删除的任务
+    @Query("SELECT 0 AS seq, tasks.id AS taskId, 0 AS deleted, 0 AS archived, 0 AS archivedAt, " + ROW_COLUMNS + " " +
+            "FROM tasks WHERE tasks.id > :afterId AND tasks.deletedAt = 0 ORDER BY tasks.id ASC LIMIT :limit")
+    List<TaskBackupRow> loadTasksAfter(long afterId, int limit);
+
+    // 全量导出：按ID分批读取归档任务
+    @Query("SELECT 0 AS seq, id AS taskId, 0 AS deleted, 1 AS archived, archivedAt, title, description, createdAt, " +
+            "sortIndex, 1 AS isCompleted, startTime, completedAt, listId " +
+            "FROM archived_tasks WHERE id > :afterId ORDER BY id ASC LIMIT :limit")
+    List<TaskBackupRow> loadArchivedTasksAfter(long afterId, int limit);
+
+    // 增量导出：按seq分批读取待导出的任务；归档会从tasks删除行，此时任务在archived_tasks中，
+    // 按归档记录导出；两张表中都没有或已软删除时只有ID
+    @Query("SELECT p.seq AS seq, p.taskId AS taskId, " +
+            "((tasks.id IS NULL AND a.id IS NULL) OR tasks.deletedAt > 0) AS deleted, " +
+            "(tasks.id IS NULL AND a.id IS NOT NULL) AS archived, COALESCE(a.archivedAt, 0) AS archivedAt, " +
+            MERGED_COLUMNS + " " +
+            "FROM task_backup_pending AS p LEFT JOIN tasks ON tasks.id = p.taskId " +
+            "LEFT JOIN archived_tasks AS a ON a.id = p.taskId " +
+            "WHERE p.seq > :afterSeq AND p.seq <= :maxSeq ORDER BY p.seq ASC LIMIT :limit")
+    List<TaskBackupRow> loadPendingAfter(long afterSeq, long maxSeq, int limit);
+
+    @Query("SELECT COALESCE(MAX(seq), 0) FROM task_backup_pending")
+    long getMaxPendingSeq();
+
+    // 导出完成后删除导出开始前的待导出记录，导出期间再次变化的任务保留
+    @Query("DELETE FROM task_backup_pending WHERE seq <= :maxSeq")
+    int clearPending(long maxSeq);
+
+    // 清单随备份导出，数量很少，每次都全部写入
+    @Query("SELECT * FROM task_lists ORDER BY id ASC")
+    List<TaskList> getTaskLists();
+
+    // 导入时本机没有对应的清单则新建
+    @Insert
+    long insertTaskList(TaskList taskList);
+
+    // tasks与archived_tasks共用一个ID空间（归档时保留原ID），导入的任务从两张表中最大的ID之后分配
+    @Query("SELECT MAX((SELECT COALESCE(MAX(id), 0) FROM tasks), (SELECT COALESCE(MAX(id), 0) FROM archived_tasks))")
+    long getMaxTaskId();
+
+    @Insert
+    void insertTasks(List<Task> tasks);
+
+    @Insert
+    void insertArchivedTasks(List<ArchivedTask> tasks);
+
+    @Query("UPDATE tasks SET deletedAt = :deletedAt, version = " + TaskDao.NEXT_VERSION + " WHERE id IN (:taskIds) AND deletedAt = 0")
+    int markDeleted(List<Long> taskIds, long deletedAt);
+
+    // 导入一批任务：换成新的本机ID后插入，不覆盖本机已有的任务；taskIdMap记录备份中的ID -> 本机ID
+    @Transaction
+    default void importTasks(List<Task> tasks, Map<Long, Long> taskIdMap) {
+        long nextId = getMaxTaskId() + 1;
+        for (Task task : tasks) {
+            taskIdMap.put(task.getId(), nextId);
+            task.setId(nextId++);
+        }
+        insertTasks(tasks);
+    }
+
+    @Transaction
+    default void importArchivedTasks(List<ArchivedTask> tasks, Map<Long, Long> taskIdMap) {
+        long nextId = getMaxTaskId() + 1;
+        for (ArchivedTask task : tasks) {
+            taskIdMap.put(task.getId(), nextId);
+            task.setId(nextId++);
+        }
+        insertArchivedTasks(tasks);
+    }
+}
@@ -6,62 +6,196 @@ import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 import androidx.room.Transaction;
-import androidx.room.Update;
+
+import com.example.smarttasksapp.core.constants.Constants;
 
 import com.example.smarttasksapp.infrastructure.entity.Task;
+import com.example.smarttasksapp.infrastructure.entity.TaskChange;
+import com.example.smarttasksapp.infrastructure.entity.TaskDayCount;
+import com.example.smarttasksapp.infrastructure.entity.TaskSearchResult;
+import com.example.smarttasksapp.infrastructure.entity.TaskSummary;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Dao
 public interface TaskDao {
+    // 列表投影TaskSummary的列：描述只取预览，列名带表名以便与FTS表联合查询
+    String SUMMARY_COLUMNS = "tasks.id AS id, tasks.title AS title, "
+            + "substr(tasks.description, 1, " + Constants.TASK_DESCRIPTION_PREVIEW_LENGTH + ") AS description, "
+            + "length(tasks.description) > " + Constants.TASK_DESCRIPTION_PREVIEW_LENGTH + " AS descriptionTruncated, "
+            + "tasks.createdAt AS createdAt, tasks.listId AS listId, tasks.sortIndex AS sortIndex, "
+            + "tasks.isCompleted AS isCompleted, tasks.startTime AS startTime, tasks.completedAt AS completedAt, "
+            + "tasks.version AS version";
+
+    // 修改后的行版本：取当前毫秒时间，并且至少比原版本大1
+    // 使用时间而不是单纯加1，行被物理删除后以同一ID重新插入（归档恢复、导入）时版本也不会回退到旧值
+    String NEXT_VERSION = "MAX(version + 1, CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER))";
+
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     long insert(Task task);
 
-    @Update
-    void update(Task task);
+    // 批量插入新任务，Room会在同一个事务中完成并按顺序返回生成的ID
+    @Insert
+    List<Long> insertAll(List<Task> tasks);
+
+    // 以下列表与排序相关的查询都只读取TaskSummary投影，完整任务使用getTaskById
+    // 列表、分页与排序键都限定在一个清单内，沿index_tasks_list_order只扫描该清单的一段，开销与清单大小有关，与任务总数无关
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM tasks WHERE listId = :listId AND deletedAt = 0 " +
+            "ORDER BY isCompleted ASC, sortIndex DESC, createdAt ASC")
+    LiveData<List<TaskSummary>> observeList(long listId);
+
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM tasks WHERE listId = :listId AND deletedAt = 0 AND isCompleted = :isCompleted " +
+            "ORDER BY sortIndex DESC, createdAt ASC")
+    LiveData<List<TaskSummary>> observeByCompletionStatus(long listId, boolean isCompleted);
+
+    // 开始时间在[from, to)内的任务，按开始时间排列，沿startTime索引只扫描该范围
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM tasks WHERE startTime >= :from AND startTime < :to AND deletedAt = 0 " +
+            "ORDER BY startTime ASC, id ASC")
+    LiveData<List<TaskSummary>> observeTasksInRange(long from, long to);
+
+    // 开始时间在[from, to)内每天（本地时区）的任务数，没有任务的日期不返回
+    @Query("SELECT date(startTime / 1000, 'unixepoch', 'localtime') AS day, COUNT(*) AS taskCount FROM tasks " +
+            "WHERE startTime >= :from AND startTime < :to AND deletedAt = 0 GROUP BY day ORDER BY day")
+    LiveData<List<TaskDayCount>> countTasksPerDay(long from, long to);
+
+    // 键集分页：第一页
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM tasks WHERE listId = :listId AND deletedAt = 0 " +
+            "ORDER BY isCompleted ASC, sortIndex DESC, createdAt ASC, id ASC LIMIT :limit")
+    List<TaskSummary> loadFirstPage(long listId, int limit);
+
+    // 键集分页：同一清单、同一完成状态分区内位于游标之后的行
+    // sortIndex <= :sortIndex 作为范围下界，使查询可以沿排序方向顺序扫描并在LIMIT处提前结束
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM tasks WHERE listId = :listId AND deletedAt = 0 " +
+            "AND isCompleted = :isCompleted AND sortIndex <= :sortIndex " +
+            "AND (sortIndex < :sortIndex OR createdAt > :createdAt OR (createdAt = :createdAt AND id > :id)) " +
+            "ORDER BY sortIndex DESC, createdAt ASC, id ASC LIMIT :limit")
+    List<TaskSummary> loadPartitionAfter(long listId, boolean isCompleted, long sortIndex, long createdAt, long id, int limit);
+
+    // 同一清单、同一完成状态分区内位于游标之前的行，按距离由近到远排列
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM tasks WHERE listId = :listId AND deletedAt = 0 " +
+            "AND isCompleted = :isCompleted AND sortIndex >= :sortIndex " +
+            "AND (sortIndex > :sortIndex OR createdAt < :createdAt OR (createdAt = :createdAt AND id < :id)) " +
+            "ORDER BY sortIndex ASC, createdAt DESC, id DESC LIMIT :limit")
+    List<TaskSummary> loadPartitionBefore(long listId, boolean isCompleted, long sortIndex, long createdAt, long id, int limit);
+
+    // 键集分页：清单内某个完成状态分区的开头
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM tasks WHERE listId = :listId AND deletedAt = 0 AND isCompleted = :isCompleted " +
+            "ORDER BY sortIndex DESC, createdAt ASC, id ASC LIMIT :limit")
+    List<TaskSummary> loadPartitionHead(long listId, boolean isCompleted, int limit);
+
+    // 键集分页：读取游标之后的一页，未完成分区读完后继续读取已完成分区
+    @Transaction
+    default List<TaskSummary> loadPageAfter(long listId, boolean isCompleted, long sortIndex, long createdAt, long id, int limit) {
+        List<TaskSummary> page = new ArrayList<>(loadPartitionAfter(listId, isCompleted, sortIndex, createdAt, id, limit));
+        if (!isCompleted && page.size() < limit) {
+            page.addAll(loadPartitionHead(listId, true, limit - page.size()));
+        }
+        return page;
+    }
 
-    @Query("SELECT * FROM tasks ORDER BY isCompleted ASC, sortIndex DESC, createdAt ASC")
-    LiveData<List<Task>> observeAll();
+    // 全文搜索，:query为FTS MATCH表达式；返回全部命中的ID和matchinfo，不带LIMIT，
+    // 由调用方按相关度排序后截取，避免SQLite任意截取的一部分里缺少最相关的任务
+    @Query("SELECT tasks.id AS taskId, matchinfo(tasks_fts, 'pcx') AS matchInfo FROM tasks " +
+            "JOIN tasks_fts ON tasks.id = tasks_fts.rowid " +
+            "WHERE tasks_fts MATCH :query AND tasks.deletedAt = 0")
+    List<TaskSearchResult> searchTasks(String query);
 
-    @Query("SELECT * FROM tasks WHERE isCompleted = :isCompleted ORDER BY sortIndex DESC, createdAt ASC")
-    LiveData<List<Task>> observeByCompletionStatus(boolean isCompleted);
+    @Query("SELECT COALESCE(MAX(sortIndex), 0) FROM tasks WHERE listId = :listId AND deletedAt = 0")
+    long getMaxSortIndex(long listId);
 
-    @Query("SELECT COALESCE(MAX(sortIndex), 0) FROM tasks")
-    long getMaxSortIndex();
+    // 清单内未完成任务中最小的排序键，清单中没有未完成任务时返回null
+    @Query("SELECT MIN(sortIndex) FROM tasks WHERE listId = :listId AND deletedAt = 0 AND isCompleted = 0")
+    Long getMinPendingSortIndex(long listId);
 
-    @Query("UPDATE tasks SET sortIndex = :sortIndex WHERE id = :taskId")
+    @Query("UPDATE tasks SET sortIndex = :sortIndex, version = " + NEXT_VERSION + " WHERE id = :taskId")
     void updateSortIndex(long taskId, long sortIndex);
 
-    @Query("UPDATE tasks SET title = :title, description = :description WHERE id = :taskId")
+    @Query("UPDATE tasks SET title = :title, description = :description, version = " + NEXT_VERSION + " WHERE id = :taskId")
     void updateTitleAndDescription(long taskId, String title, String description);
     
-    @Query("UPDATE tasks SET isCompleted = :isCompleted WHERE id = :taskId")
-    void updateCompletedStatus(long taskId, boolean isCompleted);
+    // completedAt为完成时间，标记为未完成时传0
+    @Query("UPDATE tasks SET isCompleted = :isCompleted, completedAt = :completedAt, " +
+            "version = " + NEXT_VERSION + " WHERE id = :taskId")
+    void updateCompletedStatus(long taskId, boolean isCompleted, long completedAt);
     
-    @Query("UPDATE tasks SET startTime = :startTime WHERE id = :taskId")
+    @Query("UPDATE tasks SET startTime = :startTime, version = " + NEXT_VERSION + " WHERE id = :taskId")
     void updateStartTime(long taskId, long startTime);
     
-    @Query("DELETE FROM tasks WHERE id = :taskId")
-    void deleteTask(long taskId);
+    // 软删除：只写入删除时间，行由后台维护任务批量清除
+    @Query("UPDATE tasks SET deletedAt = :deletedAt, version = " + NEXT_VERSION + " WHERE id = :taskId AND deletedAt = 0")
+    int markDeleted(long taskId, long deletedAt);
+
+    // 撤销软删除，返回是否恢复了任务
+    @Query("UPDATE tasks SET deletedAt = 0, version = " + NEXT_VERSION + " WHERE id = :taskId AND deletedAt > 0")
+    int clearDeleted(long taskId);
+
+    // 部分修改：只改写set*为true的列，其余列保持原值；expectedVersion小于0时不检查行版本
+    // 返回0表示任务不存在、已删除或行版本不一致
+    @Query("UPDATE tasks SET " +
+            "title = CASE WHEN :setTitle THEN :title ELSE title END, " +
+            "description = CASE WHEN :setDescription THEN :description ELSE description END, " +
+            "startTime = CASE WHEN :setStartTime THEN :startTime ELSE startTime END, " +
+            "isCompleted = CASE WHEN :setCompleted THEN :isCompleted ELSE isCompleted END, " +
+            "completedAt = CASE WHEN :setCompleted THEN :completedAt ELSE completedAt END, " +
+            "version = " + NEXT_VERSION + " " +
+            "WHERE id = :taskId AND deletedAt = 0 AND (:expectedVersion < 0 OR version = :expectedVersion)")
+    int patch(long taskId, long expectedVersion,
+              boolean setTitle, String title,
+              boolean setDescription, String description,
+              boolean setStartTime, long startTime,
+              boolean setCompleted, boolean isCompleted, long completedAt);
+
+    // 未删除任务的当前行版本，任务不存在或已删除时返回null
+    @Query("SELECT version FROM tasks WHERE id = :taskId AND deletedAt = 0")
+    Long getVersion(long taskId);
+
+    // 物理删除一批删除时间早于deletedBefore的任务，返回删除的条数
+    // 只在空闲时由维护任务执行，不为deletedAt建索引，避免增加每次写入的开销并干扰列表查询的索引选择
+    @Query("DELETE FROM tasks WHERE id IN " +
+            "(SELECT id FROM tasks WHERE deletedAt > 0 AND deletedAt < :deletedBefore LIMIT :limit)")
+    int purgeDeleted(long deletedBefore, int limit);
     
-    @Query("SELECT * FROM tasks WHERE id = :taskId")
+    // 以下按ID读取的查询不返回已删除的任务
+    @Query("SELECT * FROM tasks WHERE id = :taskId AND deletedAt = 0")
     Task getTaskById(long taskId);
 
-    // 批量更新排序索引
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM tasks WHERE id = :taskId AND deletedAt = 0")
+    TaskSummary getTaskSummaryById(long taskId);
+
+    // 按ID批量读取摘要，调用方需保证ID数量不超过SQLite的参数上限
+    @Query("SELECT " + SUMMARY_COLUMNS + " FROM tasks WHERE id IN (:taskIds) AND deletedAt = 0")
+    List<TaskSummary> getTaskSummariesByIds(List<Long> taskIds);
+
+    // 变更日志：按写入顺序读取最早的若干条
+    @Query("SELECT * FROM task_changes ORDER BY seq ASC LIMIT :limit")
+    List<TaskChange> loadChanges(int limit);
+
+    // 删除已读取的变更日志
+    @Query("DELETE FROM task_changes WHERE seq <= :seq")
+    void pruneChanges(long seq);
+
+    // 清空变更日志，返回删除的条数
+    @Query("DELETE FROM task_changes")
+    int clearChanges();
+
+    // 批量更新排序索引（会改写列表中的每一行，单个任务的拖拽使用 SortOrderManager.moveBetween）
+    // 排序键之间保留SORT_KEY_GAP的间隔，之后的拖拽仍能插入到相邻任务之间而不需要重新编号
     @Transaction
     default void updateSortIndices(List<Task> tasks) {
         for (int i = 0; i < tasks.size(); i++) {
             Task task = tasks.get(i);
-            long sortIndex = tasks.size() - i; // 顶部任务有更大的sortIndex
+            long sortIndex = (tasks.size() - i) * Constants.SORT_KEY_GAP; // 顶部任务有更大的sortIndex
             updateSortIndex(task.getId(), sortIndex);
         }
     }
 
-    // 获取任务数量
-    @Query("SELECT COUNT(*) FROM tasks")
+    // 获取全部清单的任务数量，读取触发器维护的计数器（见TaskStatsCounters），不扫描任务表；单个清单的计数见TaskListDao
+    @Query("SELECT totalCount FROM task_stats WHERE id = 1")
     int getTaskCount();
 
-    @Query("SELECT COUNT(*) FROM tasks WHERE isCompleted = :isCompleted")
+    @Query("SELECT CASE WHEN :isCompleted THEN completedCount ELSE totalCount - completedCount END " +
+            "FROM task_stats WHERE id = 1")
     int getTaskCountByStatus(boolean isCompleted);
 }
 
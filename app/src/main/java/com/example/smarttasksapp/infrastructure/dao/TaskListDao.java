@@ -0,0 +1,33 @@
+package com.example.smarttasksapp.infrastructure.dao;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+
+import com.example.smarttasksapp.core.constants.Constants;
+import com.example.smarttasksapp.infrastructure.entity.TaskList;
+
+import java.util.List;
+
+@Dao
+public interface TaskListDao {
+    @Insert
+    long insert(TaskList taskList);
+
+    // 全部清单及其计数，默认清单在最前
+    @Query("SELECT * FROM task_lists ORDER BY id ASC")
+    LiveData<List<TaskList>> observeAll();
+
+    // 删除清单，清单中的任务由外键级联删除；默认清单不能删除
+    @Query("DELETE FROM task_lists WHERE id = :listId AND id != " + Constants.DEFAULT_TASK_LIST_ID)
+    int delete(long listId);
+
+    // 清单内的任务数，读取触发器维护的计数器（见TaskListCounters），不扫描任务表
+    @Query("SELECT taskCount FROM task_lists WHERE id = :listId")
+    int getTaskCount(long listId);
+
+    @Query("SELECT CASE WHEN :isCompleted THEN completedCount ELSE taskCount - completedCount END " +
+            "FROM task_lists WHERE id = :listId")
+    int getTaskCountByStatus(long listId, boolean isCompleted);
+}
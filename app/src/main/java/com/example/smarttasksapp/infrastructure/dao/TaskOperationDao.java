@@ -0,0 +1,49 @@
+package com.example.smarttasksapp.infrastructure.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+
+import com.example.smarttasksapp.infrastructure.entity.TaskOperation;
+
+import java.util.List;
+
+@Dao
+public interface TaskOperationDao {
+    @Insert
+    void insertAll(List<TaskOperation> operations);
+
+    // 新批次的ID取该批第一条记录将分配的seq：seq是AUTOINCREMENT，删除、裁剪或丢弃重做栈后也不会复用，
+    // 已交给界面的批次ID不会指向之后的另一次操作；需要与插入在同一个写入事务中调用
+    @Query("SELECT COALESCE((SELECT seq FROM sqlite_sequence WHERE name = 'task_operations'), 0) + 1")
+    long nextBatchId();
+
+    // 批次是否已撤销，批次已被丢弃或裁剪时为null
+    @Query("SELECT undone FROM task_operations WHERE batchId = :batchId LIMIT 1")
+    Boolean isUndone(long batchId);
+
+    // 之后是否还有未撤销的操作修改过该批次涉及的任务
+    @Query("SELECT EXISTS(SELECT 1 FROM task_operations WHERE batchId > :batchId AND undone = 0 " +
+            "AND taskId IN (SELECT taskId FROM task_operations WHERE batchId = :batchId))")
+    boolean hasLaterOperations(long batchId);
+
+    @Query("SELECT * FROM task_operations WHERE batchId = :batchId ORDER BY seq ASC")
+    List<TaskOperation> loadBatch(long batchId);
+
+    @Query("UPDATE task_operations SET undone = :undone WHERE batchId = :batchId")
+    void setUndone(long batchId, boolean undone);
+
+    // 记录新操作时丢弃重做栈
+    @Query("DELETE FROM task_operations WHERE undone = 1")
+    int clearUndone();
+
+    // 只保留最近的limit批
+    @Query("DELETE FROM task_operations WHERE batchId NOT IN " +
+            "(SELECT DISTINCT batchId FROM task_operations ORDER BY batchId DESC LIMIT :limit)")
+    int trimToLimit(int limit);
+
+    // 任务已被物理清除或归档，相关操作无法再撤销
+    @Query("DELETE FROM task_operations WHERE NOT EXISTS " +
+            "(SELECT 1 FROM tasks WHERE tasks.id = task_operations.taskId)")
+    int deleteOrphans();
+}
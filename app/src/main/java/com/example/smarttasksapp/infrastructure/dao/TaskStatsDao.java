@@ -0,0 +1,33 @@
+package com.example.smarttasksapp.infrastructure.dao;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.example.smarttasksapp.infrastructure.entity.TaskStats;
+
+@Dao
+public interface TaskStatsDao {
+    @Query("SELECT * FROM task_stats WHERE id = 1")
+    TaskStats getStats();
+
+    // 开始时间不早于from的第一个未完成任务的开始时间，即下一次有任务变为逾期的时间
+    @Query("SELECT startTime FROM tasks WHERE isCompleted = 0 AND startTime >= :from AND deletedAt = 0 " +
+            "ORDER BY startTime ASC LIMIT 1")
+    Long getNextDueTime(long from);
+
+    @Query("SELECT COUNT(*) FROM tasks WHERE isCompleted = 0 AND startTime >= :from AND startTime < :to " +
+            "AND deletedAt = 0")
+    int countBecameDue(long from, long to);
+
+    @Query("UPDATE task_stats SET overdueCount = overdueCount + :added, overdueAsOf = :asOf WHERE id = 1")
+    void addOverdue(int added, long asOf);
+
+    // 把逾期数的截止时间推进到now，只统计这段时间内到期的任务；与触发器在同一事务中串行
+    @Transaction
+    default void advanceOverdue(long now) {
+        TaskStats stats = getStats();
+        if (stats == null || now <= stats.getOverdueAsOf()) return;
+        addOverdue(countBecameDue(stats.getOverdueAsOf(), now), now);
+    }
+}
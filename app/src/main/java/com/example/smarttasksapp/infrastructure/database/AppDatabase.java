@@ -6,32 +6,90 @@ import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 
+import com.example.smarttasksapp.infrastructure.dao.ArchivedTaskDao;
+import com.example.smarttasksapp.infrastructure.dao.TaskBackupDao;
 import com.example.smarttasksapp.infrastructure.dao.TaskDao;
+import com.example.smarttasksapp.infrastructure.dao.TaskListDao;
+import com.example.smarttasksapp.infrastructure.dao.TaskOperationDao;
+import com.example.smarttasksapp.infrastructure.dao.TaskStatsDao;
+import com.example.smarttasksapp.infrastructure.entity.ArchivedTask;
 import com.example.smarttasksapp.infrastructure.entity.Task;
+import com.example.smarttasksapp.infrastructure.entity.TaskBackupPending;
+import com.example.smarttasksapp.infrastructure.entity.TaskChange;
+import com.example.smarttasksapp.infrastructure.entity.TaskFts;
+import com.example.smarttasksapp.infrastructure.entity.TaskList;
+import com.example.smarttasksapp.infrastructure.entity.TaskOperation;
+import com.example.smarttasksapp.infrastructure.entity.TaskStats;
 
-@Database(entities = {Task.class}, version = 5, exportSchema = false)
+import java.util.concurrent.Executor;
+
+@Database(entities = {Task.class, TaskFts.class, TaskChange.class, ArchivedTask.class, TaskStats.class,
+        TaskBackupPending.class, TaskOperation.class, TaskList.class}, version = 16, exportSchema = true)
 public abstract class AppDatabase extends RoomDatabase {
 
     private static volatile AppDatabase instance;
 
+    private DatabaseProfile profile;
+
     public abstract TaskDao taskDao();
 
+    public abstract ArchivedTaskDao archivedTaskDao();
+
+    public abstract TaskStatsDao taskStatsDao();
+
+    public abstract TaskBackupDao taskBackupDao();
+
+    public abstract TaskOperationDao taskOperationDao();
+
+    public abstract TaskListDao taskListDao();
+
+    /**
+     * 当前实例使用的连接配置
+     */
+    public DatabaseProfile getProfile() {
+        return profile;
+    }
+
     public static AppDatabase getInstance(Context context) {
+        return getInstance(context, DatabaseProfile.TUNED, null, null);
+    }
+
+    /**
+     * 获取数据库实例，首次调用决定实例的配置
+     * @param queryExecutor Room异步查询（LiveData等）使用的线程池，为null时使用Room默认线程池
+     * @param transactionExecutor Room事务使用的线程池，为null时使用Room默认线程池
+     */
+    public static AppDatabase getInstance(Context context, DatabaseProfile profile,
+                                          Executor queryExecutor, Executor transactionExecutor) {
         if (instance == null) {
             synchronized (AppDatabase.class) {
                 if (instance == null) {
-                    instance = Room.databaseBuilder(
+                    RoomDatabase.Builder<AppDatabase> builder = Room.databaseBuilder(
                             context.getApplicationContext(),
                             AppDatabase.class,
                             "smart_tasks.db"
                     )
-                            .fallbackToDestructiveMigration()
-                            .build();
+                            .addMigrations(Migrations.ALL)
+                            // 5之前的开发版本没有迁移路径，仍然重建
+                            .fallbackToDestructiveMigrationFrom(1, 2, 3, 4)
+                            .setJournalMode(profile.getJournalMode())
+                            .addCallback(profile.asCallback())
+                            .addCallback(TaskChangeLog.CALLBACK)
+                            .addCallback(TaskStatsCounters.CALLBACK)
+                            .addCallback(TaskListCounters.CALLBACK)
+                            .addCallback(TaskBackupLog.CALLBACK);
+                    if (queryExecutor != null) {
+                        builder.setQueryExecutor(queryExecutor);
+                    }
+                    if (transactionExecutor != null) {
+                        builder.setTransactionExecutor(transactionExecutor);
+                    }
+                    AppDatabase database = builder.build();
+                    database.profile = profile;
+                    instance = database;
                 }
             }
         }
         return instance;
     }
 }
-
-
@@ -0,0 +1,123 @@
+package com.example.smarttasksapp.infrastructure.database;
+
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SQLite连接配置
+ * 描述日志模式和打开数据库时执行的PRAGMA，TUNED为应用使用的配置，
+ * ROOM_DEFAULT保持Room与系统的默认值，用于对比基准测试
+ *
+ * 注意：PRAGMA在Room的onOpen回调中对主连接执行；WAL模式下的只读连接由系统连接池创建，
+ * 只继承日志模式和系统默认的synchronous设置
+ */
+public final class DatabaseProfile {
+    private static final String TAG = "DatabaseProfile";
+
+    /**
+     * 应用使用的配置：WAL + synchronous=NORMAL（WAL下可保证一致性，只在断电时可能丢失最后的提交），
+     * 8MB页缓存、32MB内存映射，临时表与排序放在内存中
+     */
+    public static final DatabaseProfile TUNED = new DatabaseProfile(
+            "tuned",
+            RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING,
+            "NORMAL",
+            -8 * 1024,
+            32L * 1024 * 1024,
+            "MEMORY"
+    );
+
+    /**
+     * Room与系统默认配置，不执行任何PRAGMA
+     */
+    public static final DatabaseProfile ROOM_DEFAULT = new DatabaseProfile(
+            "room_default",
+            RoomDatabase.JournalMode.AUTOMATIC,
+            null,
+            0,
+            -1,
+            null
+    );
+
+    private final String name;
+    private final RoomDatabase.JournalMode journalMode;
+    private final String synchronous;
+    // 与PRAGMA cache_size语义一致：负数表示KiB，正数表示页数，0表示不设置
+    private final int cacheSize;
+    // 内存映射字节数，负数表示不设置
+    private final long mmapSize;
+    private final String tempStore;
+
+    public DatabaseProfile(String name, RoomDatabase.JournalMode journalMode, String synchronous,
+                           int cacheSize, long mmapSize, String tempStore) {
+        this.name = name;
+        this.journalMode = journalMode;
+        this.synchronous = synchronous;
+        this.cacheSize = cacheSize;
+        this.mmapSize = mmapSize;
+        this.tempStore = tempStore;
+    }
+
+    public String getName() { return name; }
+
+    public RoomDatabase.JournalMode getJournalMode() { return journalMode; }
+
+    /**
+     * 打开数据库时执行PRAGMA的回调
+     */
+    RoomDatabase.Callback asCallback() {
+        return new RoomDatabase.Callback() {
+            @Override
+            public void onOpen(@NonNull SupportSQLiteDatabase db) {
+                applyPragmas(db);
+            }
+        };
+    }
+
+    void applyPragmas(SupportSQLiteDatabase db) {
+        if (synchronous != null) pragma(db, "synchronous = " + synchronous);
+        if (cacheSize != 0) pragma(db, "cache_size = " + cacheSize);
+        if (mmapSize >= 0) pragma(db, "mmap_size = " + mmapSize);
+        if (tempStore != null) pragma(db, "temp_store = " + tempStore);
+        Log.d(TAG, "Applied database profile: " + name);
+    }
+
+    /**
+     * 读取当前连接实际生效的配置，用于基准测试记录
+     */
+    public static Map<String, String> readEffectivePragmas(SupportSQLiteDatabase db) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String pragma : new String[]{"journal_mode", "synchronous", "cache_size", "mmap_size", "temp_store"}) {
+            try (Cursor cursor = db.query("PRAGMA " + pragma)) {
+                values.put(pragma, cursor.moveToFirst() ? cursor.getString(0) : null);
+            }
+        }
+        return values;
+    }
+
+    private static void pragma(SupportSQLiteDatabase db, String statement) {
+        // 部分PRAGMA会返回结果行，Android不允许用execSQL执行，统一用query
+        try (Cursor cursor = db.query("PRAGMA " + statement)) {
+            cursor.moveToFirst();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DatabaseProfile{" +
+                "name='" + name + '\'' +
+                ", journalMode=" + journalMode +
+                ", synchronous=" + synchronous +
+                ", cacheSize=" + cacheSize +
+                ", mmapSize=" + mmapSize +
+                ", tempStore=" + tempStore +
+                '}';
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.smarttasksapp.infrastructure.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * 数据库迁移
+ * 每次修改表结构都需要提升版本号并在这里添加对应的Migration，
+ * 迁移在首次打开数据库时执行（仓库线程池中），不会阻塞主线程
+ */
+public final class Migrations {
+
+    private Migrations() {}
+
+    /**
+     * 5 -> 6：为任务列表排序添加复合索引
+     * 已有数据原地保留，建索引只需对表做一次排序扫描
+     */
+    public static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_list_order` ON `tasks` "
+                    + "(`isCompleted` ASC, `sortIndex` DESC, `createdAt` ASC)");
+        }
+    };
+
+    /**
+     * 6 -> 7：添加任务标题/描述的全文索引及其同步触发器
+     * 建表与触发器语句需与Room为TaskFts生成的语句保持一致，最后对已有数据重建一次索引
+     */
+    public static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `tasks_fts` USING FTS4("
+                    + "`title` TEXT, `description` TEXT, tokenize=icu, content=`tasks`, prefix=`2,3`)");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_tasks_fts_BEFORE_UPDATE "
+                    + "BEFORE UPDATE ON `tasks` BEGIN DELETE FROM `tasks_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_tasks_fts_BEFORE_DELETE "
+                    + "BEFORE DELETE ON `tasks` BEGIN DELETE FROM `tasks_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_tasks_fts_AFTER_UPDATE "
+                    + "AFTER UPDATE ON `tasks` BEGIN INSERT INTO `tasks_fts`(`docid`, `title`, `description`) "
+                    + "VALUES (NEW.`rowid`, NEW.`title`, NEW.`description`); END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_tasks_fts_AFTER_INSERT "
+                    + "AFTER INSERT ON `tasks` BEGIN INSERT INTO `tasks_fts`(`docid`, `title`, `description`) "
+                    + "VALUES (NEW.`rowid`, NEW.`title`, NEW.`description`); END");
+            db.execSQL("INSERT INTO `tasks_fts`(`tasks_fts`) VALUES ('rebuild')");
+        }
+    };
+
+    /**
+     * 7 -> 8：添加任务变更日志表及其触发器
+     * 日志只记录迁移之后的写入，已有数据不需要回填
+     */
+    public static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `task_changes` ("
+                    + "`seq` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`taskId` INTEGER NOT NULL, `op` INTEGER NOT NULL)");
+            TaskChangeLog.createTriggers(db);
+        }
+    };
+
+    /**
+     * 8 -> 9：添加完成时间与归档表
+     * 已完成的旧任务没有完成时间，按迁移时间计，之后满N天才会被归档
+     */
+    public static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `tasks` ADD COLUMN `completedAt` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("UPDATE `tasks` SET `completedAt` = " + System.currentTimeMillis() + " WHERE `isCompleted` = 1");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_isCompleted_completedAt` ON `tasks` "
+                    + "(`isCompleted`, `completedAt`)");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `archived_tasks` ("
+                    + "`id` INTEGER NOT NULL, `title` TEXT, `description` TEXT, "
+                    + "`createdAt` INTEGER NOT NULL, `sortIndex` INTEGER NOT NULL, `startTime` INTEGER NOT NULL, "
+                    + "`completedAt` INTEGER NOT NULL, `archivedAt` INTEGER NOT NULL, PRIMARY KEY(`id`))");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_archived_tasks_completedAt` ON `archived_tasks` "
+                    + "(`completedAt`)");
+        }
+    };
+
+    /**
+     * 9 -> 10：添加软删除时间
+     */
+    public static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `tasks` ADD COLUMN `deletedAt` INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    /**
+     * 10 -> 11：添加由触发器维护的任务计数器，并对已有数据做一次计数
+     */
+    public static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_isCompleted_startTime` ON `tasks` "
+                    + "(`isCompleted`, `startTime`)");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `task_stats` ("
+                    + "`id` INTEGER NOT NULL, `totalCount` INTEGER NOT NULL, `completedCount` INTEGER NOT NULL, "
+                    + "`overdueCount` INTEGER NOT NULL, `overdueAsOf` INTEGER NOT NULL, PRIMARY KEY(`id`))");
+            TaskStatsCounters.createTriggers(db);
+            TaskStatsCounters.recount(db, System.currentTimeMillis());
+        }
+    };
+
+    /**
+     * 11 -> 12：为按开始时间范围查询添加索引
+     */
+    public static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_startTime` ON `tasks` (`startTime`)");
+        }
+    };
+
+    /**
+     * 12 -> 13：添加备份待导出记录表及其触发器
+     * 已有任务全部记为待导出，第一次增量导出即包含全部任务
+     */
+    public static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `task_backup_pending` ("
+                    + "`seq` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `taskId` INTEGER NOT NULL)");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_task_backup_pending_taskId` "
+                    + "ON `task_backup_pending` (`taskId`)");
+            db.execSQL("INSERT INTO `task_backup_pending`(`taskId`) SELECT `id` FROM `tasks` ORDER BY `id`");
+            TaskBackupLog.createTriggers(db);
+        }
+    };
+
+    /**
+     * 13 -> 14：添加行版本列，已有任务从0开始
+     */
+    public static final Migration MIGRATION_13_14 = new Migration(13, 14) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `tasks` ADD COLUMN `version` INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    /**
+     * 14 -> 15：添加撤销记录表
+     */
+    public static final Migration MIGRATION_14_15 = new Migration(14, 15) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `task_operations` ("
+                    + "`seq` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `batchId` INTEGER NOT NULL, "
+                    + "`taskId` INTEGER NOT NULL, `op` INTEGER NOT NULL, `undone` INTEGER NOT NULL, "
+                    + "`oldValue` INTEGER NOT NULL, `oldExtra` INTEGER NOT NULL, "
+                    + "`newValue` INTEGER NOT NULL, `newExtra` INTEGER NOT NULL, "
+                    + "`oldTitle` TEXT, `oldDescription` TEXT, `newTitle` TEXT, `newDescription` TEXT)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_task_operations_undone_batchId` "
+                    + "ON `task_operations` (`undone`, `batchId`)");
+        }
+    };
+
+    /**
+     * 15 -> 16：添加任务清单
+     * 已有任务都放入默认清单；列表排序索引改为以清单开头，listId列同时带上外键约束
+     * （迁移时外键检查尚未开启，可以直接以ADD COLUMN添加）
+     */
+    public static final Migration MIGRATION_15_16 = new Migration(15, 16) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `task_lists` ("
+                    + "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `name` TEXT, `createdAt` INTEGER NOT NULL, "
+                    + "`taskCount` INTEGER NOT NULL DEFAULT 0, `completedCount` INTEGER NOT NULL DEFAULT 0)");
+            TaskListCounters.createDefaultList(db);
+            db.execSQL("ALTER TABLE `tasks` ADD COLUMN `listId` INTEGER NOT NULL DEFAULT 1 "
+                    + "REFERENCES `task_lists`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE");
+            db.execSQL("DROP INDEX IF EXISTS `index_tasks_list_order`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_list_order` ON `tasks` "
+                    + "(`listId` ASC, `isCompleted` ASC, `sortIndex` DESC, `createdAt` ASC)");
+            db.execSQL("ALTER TABLE `archived_tasks` ADD COLUMN `listId` INTEGER NOT NULL DEFAULT 1");
+            TaskListCounters.createTriggers(db);
+            TaskListCounters.recount(db);
+        }
+    };
+
+    public static final Migration[] ALL = {
+            MIGRATION_5_6,
+            MIGRATION_6_7,
+            MIGRATION_7_8,
+            MIGRATION_8_9,
+            MIGRATION_9_10,
+            MIGRATION_10_11,
+            MIGRATION_11_12,
+            MIGRATION_12_13,
+            MIGRATION_13_14,
+            MIGRATION_14_15,
+            MIGRATION_15_16
+    };
+}
@@ -0,0 +1,33 @@
+package com.example.smarttasksapp.infrastructure.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * 备份待导出记录触发器
+ * tasks表的插入、更新、删除都会把任务ID写入task_backup_pending（已存在时换成新的seq），
+ * 增量导出只读取这些任务；归档会从tasks删除行，导出时任务在archived_tasks中则按归档记录写出，不算删除
+ *
+ * 与TaskChangeLog一样在迁移和每次打开数据库时创建
+ */
+public final class TaskBackupLog {
+
+    private TaskBackupLog() {}
+
+    static final RoomDatabase.Callback CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            createTriggers(db);
+        }
+    };
+
+    static void createTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `task_backup_after_insert` AFTER INSERT ON `tasks` "
+                + "BEGIN INSERT OR REPLACE INTO `task_backup_pending`(`taskId`) VALUES (NEW.`id`); END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `task_backup_after_update` AFTER UPDATE ON `tasks` "
+                + "BEGIN INSERT OR REPLACE INTO `task_backup_pending`(`taskId`) VALUES (NEW.`id`); END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `task_backup_after_delete` AFTER DELETE ON `tasks` "
+                + "BEGIN INSERT OR REPLACE INTO `task_backup_pending`(`taskId`) VALUES (OLD.`id`); END");
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.smarttasksapp.infrastructure.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.example.smarttasksapp.infrastructure.entity.TaskChange;
+
+/**
+ * 任务变更日志触发器
+ * tasks表的每次插入、更新、删除都会在同一事务中向task_changes追加一行（任务ID与操作类型），
+ * 仓库据此只读取发生变化的行，而不是重新读取整个列表
+ *
+ * Room不会为普通表创建触发器，因此在迁移和每次打开数据库时创建（IF NOT EXISTS，重复执行无副作用），
+ * 也覆盖了破坏性迁移重建表之后的情况
+ */
+public final class TaskChangeLog {
+
+    private TaskChangeLog() {}
+
+    static final RoomDatabase.Callback CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            createTriggers(db);
+        }
+    };
+
+    static void createTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `task_changes_after_insert` AFTER INSERT ON `tasks` "
+                + "BEGIN INSERT INTO `task_changes`(`taskId`, `op`) VALUES (NEW.`id`, " + TaskChange.OP_INSERT + "); END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `task_changes_after_update` AFTER UPDATE ON `tasks` "
+                + "BEGIN INSERT INTO `task_changes`(`taskId`, `op`) VALUES (NEW.`id`, " + TaskChange.OP_UPDATE + "); END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `task_changes_after_delete` AFTER DELETE ON `tasks` "
+                + "BEGIN INSERT INTO `task_changes`(`taskId`, `op`) VALUES (OLD.`id`, " + TaskChange.OP_DELETE + "); END");
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.smarttasksapp.infrastructure.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.example.smarttasksapp.core.constants.Constants;
+
+/**
+ * 清单计数器触发器
+ * tasks表的插入、删除以及完成状态、删除标记、所属清单的修改都会在同一事务中增减task_lists中
+ * 对应清单的taskCount与completedCount，每次写入只多一次（换清单时两次）主键更新
+ *
+ * 与TaskStatsCounters一样在迁移和每次打开数据库时创建触发器；打开时同时保证默认清单存在
+ */
+public final class TaskListCounters {
+
+    private TaskListCounters() {}
+
+    static final RoomDatabase.Callback CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            createDefaultList(db);
+            createTriggers(db);
+        }
+    };
+
+    // 任务对各计数的贡献（0或1），row为NEW、OLD或表别名
+    private static String live(String row) {
+        return "(" + row + ".`deletedAt` = 0)";
+    }
+
+    private static String completed(String row) {
+        return "(" + row + ".`deletedAt` = 0 AND " + row + ".`isCompleted` != 0)";
+    }
+
+    private static String add(String row, String sign) {
+        return "UPDATE `task_lists` SET "
+                + "`taskCount` = `taskCount` " + sign + " " + live(row) + ", "
+                + "`completedCount` = `completedCount` " + sign + " " + completed(row) + " "
+                + "WHERE `id` = " + row + ".`listId`; ";
+    }
+
+    static void createDefaultList(SupportSQLiteDatabase db) {
+        db.execSQL("INSERT OR IGNORE INTO `task_lists` (`id`, `name`, `createdAt`, `taskCount`, `completedCount`) "
+                + "VALUES (" + Constants.DEFAULT_TASK_LIST_ID + ", '" + Constants.DEFAULT_TASK_LIST_NAME + "', "
+                + System.currentTimeMillis() + ", 0, 0)");
+    }
+
+    static void createTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `task_lists_after_insert` AFTER INSERT ON `tasks` "
+                + "BEGIN " + add("NEW", "+") + "END");
+        // INSERT OR REPLACE覆盖已有行时不会触发删除触发器，先减去被覆盖的行
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `task_lists_before_replace` BEFORE INSERT ON `tasks` "
+                + "WHEN EXISTS (SELECT 1 FROM `tasks` WHERE `id` = NEW.`id`) "
+                + "BEGIN UPDATE `task_lists` SET "
+                + "`taskCount` = `taskCount` - (SELECT " + live("t") + " FROM `tasks` AS t WHERE t.`id` = NEW.`id`), "
+                + "`completedCount` = `completedCount` - (SELECT " + completed("t") + " FROM `tasks` AS t WHERE t.`id` = NEW.`id`) "
+                + "WHERE `id` = (SELECT t.`listId` FROM `tasks` AS t WHERE t.`id` = NEW.`id`); END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `task_lists_after_delete` AFTER DELETE ON `tasks` "
+                + "BEGIN " + add("OLD", "-") + "END");
+        // 只改标题、描述、排序键、开始时间时计数不变，不写task_lists，也就不会通知清单的观察者
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `task_lists_after_update` AFTER UPDATE ON `tasks` "
+                + "WHEN OLD.`isCompleted` IS NOT NEW.`isCompleted` OR OLD.`deletedAt` IS NOT NEW.`deletedAt` "
+                + "OR OLD.`listId` IS NOT NEW.`listId` "
+                + "BEGIN " + add("OLD", "-") + add("NEW", "+") + "END");
+    }
+
+    /**
+     * 对任务表做一次完整计数并写入各清单
+     */
+    static void recount(SupportSQLiteDatabase db) {
+        db.execSQL("UPDATE `task_lists` SET "
+                + "`taskCount` = (SELECT COUNT(*) FROM `tasks` AS t "
+                + "WHERE t.`listId` = `task_lists`.`id` AND t.`deletedAt` = 0), "
+                + "`completedCount` = (SELECT COUNT(*) FROM `tasks` AS t "
+                + "WHERE t.`listId` = `task_lists`.`id` AND t.`deletedAt` = 0 AND t.`isCompleted` != 0)");
+    }
+}
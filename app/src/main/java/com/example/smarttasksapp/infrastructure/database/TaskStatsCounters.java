@@ -0,0 +1,92 @@
+package com.example.smarttasksapp.infrastructure.database;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.example.smarttasksapp.infrastructure.entity.TaskStats;
+
+/**
+ * 任务计数器触发器
+ * tasks表的插入、删除以及完成状态、删除标记、开始时间的修改都会在同一事务中增减task_stats中的计数，
+ * 每次写入只多一次主键更新
+ *
+ * 与TaskChangeLog一样在迁移和每次打开数据库时创建触发器；计数行不存在时（新建或破坏性迁移之后）
+ * 对任务表做一次完整计数
+ */
+public final class TaskStatsCounters {
+
+    private TaskStatsCounters() {}
+
+    static final RoomDatabase.Callback CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            createTriggers(db);
+            try (Cursor cursor = db.query("SELECT 1 FROM `task_stats` WHERE `id` = " + TaskStats.ROW_ID)) {
+                if (!cursor.moveToFirst()) {
+                    recount(db, System.currentTimeMillis());
+                }
+            }
+        }
+    };
+
+    // 任务对各计数的贡献（0或1），row为NEW、OLD或表别名
+    private static String live(String row) {
+        return "(" + row + ".`deletedAt` = 0)";
+    }
+
+    private static String completed(String row) {
+        return "(" + row + ".`deletedAt` = 0 AND " + row + ".`isCompleted` != 0)";
+    }
+
+    private static String overdue(String row) {
+        return "(" + row + ".`deletedAt` = 0 AND " + row + ".`isCompleted` = 0 AND "
+                + row + ".`startTime` > 0 AND " + row + ".`startTime` < `overdueAsOf`)";
+    }
+
+    static void createTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `task_stats_after_insert` AFTER INSERT ON `tasks` "
+                + "BEGIN UPDATE `task_stats` SET "
+                + "`totalCount` = `totalCount` + " + live("NEW") + ", "
+                + "`completedCount` = `completedCount` + " + completed("NEW") + ", "
+                + "`overdueCount` = `overdueCount` + " + overdue("NEW") + " "
+                + "WHERE `id` = " + TaskStats.ROW_ID + "; END");
+        // INSERT OR REPLACE覆盖已有行时不会触发删除触发器，先减去被覆盖的行
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `task_stats_before_replace` BEFORE INSERT ON `tasks` "
+                + "WHEN EXISTS (SELECT 1 FROM `tasks` WHERE `id` = NEW.`id`) "
+                + "BEGIN UPDATE `task_stats` SET "
+                + "`totalCount` = `totalCount` - (SELECT " + live("t") + " FROM `tasks` AS t WHERE t.`id` = NEW.`id`), "
+                + "`completedCount` = `completedCount` - (SELECT " + completed("t") + " FROM `tasks` AS t WHERE t.`id` = NEW.`id`), "
+                + "`overdueCount` = `overdueCount` - (SELECT " + overdue("t") + " FROM `tasks` AS t WHERE t.`id` = NEW.`id`) "
+                + "WHERE `id` = " + TaskStats.ROW_ID + "; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `task_stats_after_delete` AFTER DELETE ON `tasks` "
+                + "BEGIN UPDATE `task_stats` SET "
+                + "`totalCount` = `totalCount` - " + live("OLD") + ", "
+                + "`completedCount` = `completedCount` - " + completed("OLD") + ", "
+                + "`overdueCount` = `overdueCount` - " + overdue("OLD") + " "
+                + "WHERE `id` = " + TaskStats.ROW_ID + "; END");
+        // 只改标题、描述、排序键时计数不变，不写task_stats，也就不会通知统计的观察者
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS `task_stats_after_update` AFTER UPDATE ON `tasks` "
+                + "WHEN OLD.`isCompleted` IS NOT NEW.`isCompleted` OR OLD.`deletedAt` IS NOT NEW.`deletedAt` "
+                + "OR OLD.`startTime` IS NOT NEW.`startTime` "
+                + "BEGIN UPDATE `task_stats` SET "
+                + "`totalCount` = `totalCount` + " + live("NEW") + " - " + live("OLD") + ", "
+                + "`completedCount` = `completedCount` + " + completed("NEW") + " - " + completed("OLD") + ", "
+                + "`overdueCount` = `overdueCount` + " + overdue("NEW") + " - " + overdue("OLD") + " "
+                + "WHERE `id` = " + TaskStats.ROW_ID + "; END");
+    }
+
+    /**
+     * 对任务表做一次完整计数并写入计数行，逾期数截止到now
+     */
+    static void recount(SupportSQLiteDatabase db, long now) {
+        db.execSQL("INSERT OR REPLACE INTO `task_stats` "
+                + "(`id`, `totalCount`, `completedCount`, `overdueCount`, `overdueAsOf`) "
+                + "SELECT " + TaskStats.ROW_ID + ", COUNT(*), "
+                + "COALESCE(SUM(`isCompleted` != 0), 0), "
+                + "COALESCE(SUM(`isCompleted` = 0 AND `startTime` > 0 AND `startTime` < " + now + "), 0), "
+                + now + " FROM `tasks` WHERE `deletedAt` = 0");
+    }
+}
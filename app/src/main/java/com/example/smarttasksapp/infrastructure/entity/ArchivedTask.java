@@ -0,0 +1,64 @@
+package com.example.smarttasksapp.infrastructure.entity;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * 已归档的任务
+ * 完成超过一定天数的任务从tasks移到这里，保留原ID以便恢复（tasks的ID自增不复用，不会冲突）
+ */
+@Entity(
+        tableName = "archived_tasks",
+        indices = {
+                // 按完成时间倒序浏览（id即rowid，隐含在索引末尾）
+                @Index(value = {"completedAt"})
+        }
+)
+public class ArchivedTask {
+    @PrimaryKey
+    private long id;
+
+    private String title;
+    private String description;
+    private long createdAt;
+
+    // 归档前所属的清单，恢复时清单已被删除则回到默认清单
+    @ColumnInfo(defaultValue = "1")
+    private long listId;
+
+    private long sortIndex;
+    private long startTime;
+    private long completedAt;
+
+    // 归档时间
+    private long archivedAt;
+
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+
+    public long getListId() { return listId; }
+    public void setListId(long listId) { this.listId = listId; }
+
+    public long getSortIndex() { return sortIndex; }
+    public void setSortIndex(long sortIndex) { this.sortIndex = sortIndex; }
+
+    public long getStartTime() { return startTime; }
+    public void setStartTime(long startTime) { this.startTime = startTime; }
+
+    public long getCompletedAt() { return completedAt; }
+    public void setCompletedAt(long completedAt) { this.completedAt = completedAt; }
+
+    public long getArchivedAt() { return archivedAt; }
+    public void setArchivedAt(long archivedAt) { this.archivedAt = archivedAt; }
+}
@@ -1,11 +1,43 @@
 package com.example.smarttasksapp.infrastructure.entity;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.ForeignKey;
 import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
-@Entity(tableName = "tasks")
+import com.example.smarttasksapp.core.constants.Constants;
+
+@Entity(
+        tableName = "tasks",
+        // 删除清单时一并删除其中的任务
+        foreignKeys = @ForeignKey(
+                entity = TaskList.class,
+                parentColumns = "id",
+                childColumns = "listId",
+                onDelete = ForeignKey.CASCADE
+        ),
+        indices = {
+                // 与清单内的列表排序 isCompleted ASC, sortIndex DESC, createdAt ASC 一致，
+                // 清单内的读取、分页和排序键查找只扫描该清单的一段（id即rowid，隐含在索引末尾）；
+                // 同时作为listId外键的索引
+                @Index(
+                        name = Task.INDEX_LIST_ORDER,
+                        value = {"listId", "isCompleted", "sortIndex", "createdAt"},
+                        orders = {Index.Order.ASC, Index.Order.ASC, Index.Order.DESC, Index.Order.ASC}
+                ),
+                // 查找可归档的已完成任务
+                @Index(value = {"isCompleted", "completedAt"}),
+                // 推进逾期计数时查找到期的未完成任务
+                @Index(value = {"isCompleted", "startTime"}),
+                // 按开始时间范围读取（日程视图）
+                @Index(value = {"startTime"})
+        }
+)
 public class Task {
+    public static final String INDEX_LIST_ORDER = "index_tasks_list_order";
+
     @PrimaryKey(autoGenerate = true)
     private long id;
 
@@ -13,6 +45,10 @@ public class Task {
     private String description;
     private long createdAt;
 
+    // 所属清单，排序键只在同一清单内比较
+    @ColumnInfo(defaultValue = "1")
+    private long listId = Constants.DEFAULT_TASK_LIST_ID;
+
     // 用于自定义排序
     private long sortIndex;
     
@@ -22,6 +58,19 @@ public class Task {
     // 任务开始时间
     private long startTime;
 
+    // 完成时间，未完成时为0；用于把完成已久的任务归档
+    @ColumnInfo(defaultValue = "0")
+    private long completedAt;
+
+    // 软删除时间，未删除时为0；列表与按ID读取的查询都过滤已删除的任务
+    @ColumnInfo(defaultValue = "0")
+    private long deletedAt;
+
+    // 行版本，每次修改都会增大；取值为最后修改的毫秒时间（同一毫秒内多次修改时递增），也可作为修改时间使用
+    // 列表据此判断任务是否变化，部分修改（TaskDao.patch）据此做乐观并发检查
+    @ColumnInfo(defaultValue = "0")
+    private long version;
+
     // Room 需要空构造函数
     public Task() {}
 
@@ -31,6 +80,7 @@ public class Task {
         this.description = description;
         this.startTime = startTime;
         this.createdAt = System.currentTimeMillis();
+        this.version = createdAt;
         this.isCompleted = false; // 默认未完成
         this.sortIndex = 0; // 默认排序索引
     }
@@ -60,6 +110,9 @@ public class Task {
     public long getCreatedAt() { return createdAt; }
     public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
 
+    public long getListId() { return listId; }
+    public void setListId(long listId) { this.listId = listId; }
+
     public long getSortIndex() { return sortIndex; }
     public void setSortIndex(long sortIndex) { this.sortIndex = sortIndex; }
     
@@ -69,6 +122,15 @@ public class Task {
     public long getStartTime() { return startTime; }
     public void setStartTime(long startTime) { this.startTime = startTime; }
 
+    public long getCompletedAt() { return completedAt; }
+    public void setCompletedAt(long completedAt) { this.completedAt = completedAt; }
+
+    public long getDeletedAt() { return deletedAt; }
+    public void setDeletedAt(long deletedAt) { this.deletedAt = deletedAt; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -89,9 +151,13 @@ public class Task {
                 ", title='" + title + '\'' +
                 ", description='" + description + '\'' +
                 ", createdAt=" + createdAt +
+                ", listId=" + listId +
                 ", sortIndex=" + sortIndex +
                 ", isCompleted=" + isCompleted +
                 ", startTime=" + startTime +
+                ", completedAt=" + completedAt +
+                ", deletedAt=" + deletedAt +
+                ", version=" + version +
                 '}';
     }
 }
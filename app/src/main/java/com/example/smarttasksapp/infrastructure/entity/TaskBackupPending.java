@@ -0,0 +1,27 @@
+package com.example.smarttasksapp.infrastructure.entity;
+
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * 上次导出之后发生过变化的任务，由tasks表上的触发器写入（见TaskBackupLog）
+ * 每个任务只保留一行，再次变化时换成新的seq，导出完成后删除导出开始前的行
+ */
+@Entity(
+        tableName = "task_backup_pending",
+        indices = {@Index(value = {"taskId"}, unique = true)}
+)
+public class TaskBackupPending {
+    // 最近一次变化的顺序
+    @PrimaryKey(autoGenerate = true)
+    private long seq;
+
+    private long taskId;
+
+    public long getSeq() { return seq; }
+    public void setSeq(long seq) { this.seq = seq; }
+
+    public long getTaskId() { return taskId; }
+    public void setTaskId(long taskId) { this.taskId = taskId; }
+}
@@ -0,0 +1,22 @@
+package com.example.smarttasksapp.infrastructure.entity;
+
+/**
+ * 备份导出读取的一行
+ * 全量导出时seq为0；增量导出时为待导出记录的seq，任务已删除时deleted为true，其余列没有意义；
+ * 任务在归档表中时archived为true，archivedAt为归档时间
+ */
+public class TaskBackupRow {
+    public long seq;
+    public long taskId;
+    public boolean deleted;
+    public boolean archived;
+    public long archivedAt;
+    public String title;
+    public String description;
+    public long createdAt;
+    public long sortIndex;
+    public boolean isCompleted;
+    public long startTime;
+    public long completedAt;
+    public long listId;
+}
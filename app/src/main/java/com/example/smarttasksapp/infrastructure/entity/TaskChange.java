@@ -0,0 +1,33 @@
+package com.example.smarttasksapp.infrastructure.entity;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * 任务变更日志的一行，由tasks表上的触发器写入（见TaskChangeLog），
+ * 仓库读取后即删除，不会长期保留
+ */
+@Entity(tableName = "task_changes")
+public class TaskChange {
+    public static final int OP_INSERT = 0;
+    public static final int OP_UPDATE = 1;
+    public static final int OP_DELETE = 2;
+
+    // 写入顺序
+    @PrimaryKey(autoGenerate = true)
+    private long seq;
+
+    private long taskId;
+
+    // OP_INSERT / OP_UPDATE / OP_DELETE
+    private int op;
+
+    public long getSeq() { return seq; }
+    public void setSeq(long seq) { this.seq = seq; }
+
+    public long getTaskId() { return taskId; }
+    public void setTaskId(long taskId) { this.taskId = taskId; }
+
+    public int getOp() { return op; }
+    public void setOp(int op) { this.op = op; }
+}
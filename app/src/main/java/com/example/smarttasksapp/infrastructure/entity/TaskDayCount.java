@@ -0,0 +1,9 @@
+package com.example.smarttasksapp.infrastructure.entity;
+
+/**
+ * 每天的任务数，day为本地日期（yyyy-MM-dd）
+ */
+public class TaskDayCount {
+    public String day;
+    public int taskCount;
+}
@@ -0,0 +1,23 @@
+package com.example.smarttasksapp.infrastructure.entity;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+/**
+ * 任务全文索引
+ * 以tasks为外部内容表，只保存标题和描述的倒排索引，Room生成的触发器负责与tasks同步；
+ * 使用ICU分词以支持中文，并为2、3字符前缀建立索引以加速输入时的前缀查询
+ */
+@Fts4(contentEntity = Task.class, tokenizer = FtsOptions.TOKENIZER_ICU, prefix = {2, 3})
+@Entity(tableName = "tasks_fts")
+public class TaskFts {
+    private String title;
+    private String description;
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+}
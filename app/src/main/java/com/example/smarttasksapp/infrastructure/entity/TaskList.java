@@ -0,0 +1,51 @@
+package com.example.smarttasksapp.infrastructure.entity;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.PrimaryKey;
+
+/**
+ * 任务清单，每个任务属于一个清单（Task.listId）
+ * 清单内未删除任务的计数由tasks表上的触发器维护（见TaskListCounters），切换清单时显示计数不需要扫描任务表
+ */
+@Entity(tableName = "task_lists")
+public class TaskList {
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    private String name;
+    private long createdAt;
+
+    // 清单内未删除的任务数
+    @ColumnInfo(defaultValue = "0")
+    private int taskCount;
+
+    // 清单内未删除的已完成任务数
+    @ColumnInfo(defaultValue = "0")
+    private int completedCount;
+
+    // Room 需要空构造函数
+    public TaskList() {}
+
+    @Ignore
+    public TaskList(String name) {
+        this.name = name;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+
+    public int getTaskCount() { return taskCount; }
+    public void setTaskCount(int taskCount) { this.taskCount = taskCount; }
+
+    public int getCompletedCount() { return completedCount; }
+    public void setCompletedCount(int completedCount) { this.completedCount = completedCount; }
+}
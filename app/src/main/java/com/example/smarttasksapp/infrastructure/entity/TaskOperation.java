@@ -0,0 +1,148 @@
+package com.example.smarttasksapp.infrastructure.entity;
+
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * 撤销日志中的一条操作，记录一次修改前后的值（见TaskOperationJournal）
+ * 同一次用户操作产生的记录共用一个batchId，撤销和重做以批为单位
+ *
+ * 各操作使用的字段：
+ * <pre>
+ * OP_DELETE      无
+ * OP_COMPLETED   oldValue/newValue = 是否完成（0/1），oldExtra/newExtra = 完成时间
+ * OP_MOVE        oldValue/oldExtra = 移动前上方/下方任务ID，newValue/newExtra = 移动后上方/下方任务ID（没有时为0）
+ * OP_SORT_INDEX  oldValue/newValue = 排序键
+ * OP_START_TIME  oldValue/newValue = 开始时间
+ * OP_TEXT        oldTitle/oldDescription，newTitle/newDescription
+ * </pre>
+ */
+@Entity(
+        tableName = "task_operations",
+        indices = {@Index(value = {"undone", "batchId"})}
+)
+public class TaskOperation {
+    public static final int OP_DELETE = 0;
+    public static final int OP_COMPLETED = 1;
+    public static final int OP_MOVE = 2;
+    public static final int OP_SORT_INDEX = 3;
+    public static final int OP_START_TIME = 4;
+    public static final int OP_TEXT = 5;
+
+    // 写入顺序，同一批内按此顺序重做、逆序撤销
+    @PrimaryKey(autoGenerate = true)
+    private long seq;
+
+    private long batchId;
+    private long taskId;
+    private int op;
+
+    // 是否已撤销：未撤销的批构成撤销栈，已撤销的批构成重做栈
+    private boolean undone;
+
+    private long oldValue;
+    private long oldExtra;
+    private long newValue;
+    private long newExtra;
+    private String oldTitle;
+    private String oldDescription;
+    private String newTitle;
+    private String newDescription;
+
+    // Room 需要空构造函数
+    public TaskOperation() {}
+
+    @Ignore
+    private TaskOperation(long taskId, int op) {
+        this.taskId = taskId;
+        this.op = op;
+    }
+
+    public static TaskOperation deleted(long taskId) {
+        return new TaskOperation(taskId, OP_DELETE);
+    }
+
+    public static TaskOperation completed(long taskId, boolean wasCompleted, long oldCompletedAt,
+                                          boolean isCompleted, long completedAt) {
+        TaskOperation operation = new TaskOperation(taskId, OP_COMPLETED);
+        operation.oldValue = wasCompleted ? 1 : 0;
+        operation.oldExtra = oldCompletedAt;
+        operation.newValue = isCompleted ? 1 : 0;
+        operation.newExtra = completedAt;
+        return operation;
+    }
+
+    public static TaskOperation moved(long taskId, long oldAboveId, long oldBelowId, long aboveId, long belowId) {
+        TaskOperation operation = new TaskOperation(taskId, OP_MOVE);
+        operation.oldValue = oldAboveId;
+        operation.oldExtra = oldBelowId;
+        operation.newValue = aboveId;
+        operation.newExtra = belowId;
+        return operation;
+    }
+
+    public static TaskOperation sortIndexChanged(long taskId, long oldSortIndex, long sortIndex) {
+        TaskOperation operation = new TaskOperation(taskId, OP_SORT_INDEX);
+        operation.oldValue = oldSortIndex;
+        operation.newValue = sortIndex;
+        return operation;
+    }
+
+    public static TaskOperation startTimeChanged(long taskId, long oldStartTime, long startTime) {
+        TaskOperation operation = new TaskOperation(taskId, OP_START_TIME);
+        operation.oldValue = oldStartTime;
+        operation.newValue = startTime;
+        return operation;
+    }
+
+    public static TaskOperation textChanged(long taskId, String oldTitle, String oldDescription,
+                                            String title, String description) {
+        TaskOperation operation = new TaskOperation(taskId, OP_TEXT);
+        operation.oldTitle = oldTitle;
+        operation.oldDescription = oldDescription;
+        operation.newTitle = title;
+        operation.newDescription = description;
+        return operation;
+    }
+
+    public long getSeq() { return seq; }
+    public void setSeq(long seq) { this.seq = seq; }
+
+    public long getBatchId() { return batchId; }
+    public void setBatchId(long batchId) { this.batchId = batchId; }
+
+    public long getTaskId() { return taskId; }
+    public void setTaskId(long taskId) { this.taskId = taskId; }
+
+    public int getOp() { return op; }
+    public void setOp(int op) { this.op = op; }
+
+    public boolean isUndone() { return undone; }
+    public void setUndone(boolean undone) { this.undone = undone; }
+
+    public long getOldValue() { return oldValue; }
+    public void setOldValue(long oldValue) { this.oldValue = oldValue; }
+
+    public long getOldExtra() { return oldExtra; }
+    public void setOldExtra(long oldExtra) { this.oldExtra = oldExtra; }
+
+    public long getNewValue() { return newValue; }
+    public void setNewValue(long newValue) { this.newValue = newValue; }
+
+    public long getNewExtra() { return newExtra; }
+    public void setNewExtra(long newExtra) { this.newExtra = newExtra; }
+
+    public String getOldTitle() { return oldTitle; }
+    public void setOldTitle(String oldTitle) { this.oldTitle = oldTitle; }
+
+    public String getOldDescription() { return oldDescription; }
+    public void setOldDescription(String oldDescription) { this.oldDescription = oldDescription; }
+
+    public String getNewTitle() { return newTitle; }
+    public void setNewTitle(String newTitle) { this.newTitle = newTitle; }
+
+    public String getNewDescription() { return newDescription; }
+    public void setNewDescription(String newDescription) { this.newDescription = newDescription; }
+}
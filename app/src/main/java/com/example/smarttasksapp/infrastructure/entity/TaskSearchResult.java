@@ -0,0 +1,11 @@
+package com.example.smarttasksapp.infrastructure.entity;
+
+/**
+ * 全文搜索命中
+ * 只有任务ID和FTS的matchinfo('pcx')，在Java侧计算相关度并截取前若干条后再读取任务摘要
+ */
+public class TaskSearchResult {
+    public long taskId;
+
+    public byte[] matchInfo;
+}
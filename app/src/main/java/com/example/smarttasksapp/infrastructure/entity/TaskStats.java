@@ -0,0 +1,45 @@
+package com.example.smarttasksapp.infrastructure.entity;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * 任务计数器，表中只有一行（id = ROW_ID）
+ * 由tasks表上的触发器在同一事务中维护（见TaskStatsCounters），读取统计不需要扫描任务表
+ *
+ * 逾期数只统计开始时间早于overdueAsOf的未完成任务，overdueAsOf由仓库随时间推进
+ */
+@Entity(tableName = "task_stats")
+public class TaskStats {
+    public static final long ROW_ID = 1;
+
+    @PrimaryKey
+    private long id;
+
+    // 未删除的任务数
+    private int totalCount;
+
+    // 未删除的已完成任务数
+    private int completedCount;
+
+    // 开始时间早于overdueAsOf的未完成任务数
+    private int overdueCount;
+
+    // 逾期数的统计截止时间
+    private long overdueAsOf;
+
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    public int getTotalCount() { return totalCount; }
+    public void setTotalCount(int totalCount) { this.totalCount = totalCount; }
+
+    public int getCompletedCount() { return completedCount; }
+    public void setCompletedCount(int completedCount) { this.completedCount = completedCount; }
+
+    public int getOverdueCount() { return overdueCount; }
+    public void setOverdueCount(int overdueCount) { this.overdueCount = overdueCount; }
+
+    public long getOverdueAsOf() { return overdueAsOf; }
+    public void setOverdueAsOf(long overdueAsOf) { this.overdueAsOf = overdueAsOf; }
+}
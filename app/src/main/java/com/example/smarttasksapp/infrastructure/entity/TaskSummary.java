@@ -0,0 +1,57 @@
+package com.example.smarttasksapp.infrastructure.entity;
+
+/**
+ * 任务列表使用的轻量投影
+ * 描述只截取前Constants.TASK_DESCRIPTION_PREVIEW_LENGTH个字符，避免列表查询把完整描述读入CursorWindow；
+ * 完整内容通过TaskDao.getTaskById按需读取
+ * 列定义见TaskDao.SUMMARY_COLUMNS
+ */
+public class TaskSummary {
+    private long id;
+    private String title;
+    // 描述预览
+    private String description;
+    // 描述是否被截断
+    private boolean descriptionTruncated;
+    private long createdAt;
+    private long listId;
+    private long sortIndex;
+    private boolean isCompleted;
+    private long startTime;
+    private long completedAt;
+    // 行版本，见Task.version
+    private long version;
+
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public boolean isDescriptionTruncated() { return descriptionTruncated; }
+    public void setDescriptionTruncated(boolean descriptionTruncated) { this.descriptionTruncated = descriptionTruncated; }
+
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+
+    public long getListId() { return listId; }
+    public void setListId(long listId) { this.listId = listId; }
+
+    public long getSortIndex() { return sortIndex; }
+    public void setSortIndex(long sortIndex) { this.sortIndex = sortIndex; }
+
+    public boolean isCompleted() { return isCompleted; }
+    public void setCompleted(boolean completed) { isCompleted = completed; }
+
+    public long getStartTime() { return startTime; }
+    public void setStartTime(long startTime) { this.startTime = startTime; }
+
+    public long getCompletedAt() { return completedAt; }
+    public void setCompletedAt(long completedAt) { this.completedAt = completedAt; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+}
@@ -0,0 +1,222 @@
+package com.example.smarttasksapp.infrastructure.repository;
+
+import android.util.Log;
+
+import com.example.smarttasksapp.core.constants.Constants;
+import com.example.smarttasksapp.infrastructure.dao.TaskDao;
+import com.example.smarttasksapp.infrastructure.database.AppDatabase;
+import com.example.smarttasksapp.infrastructure.entity.TaskSummary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * 任务排序键管理
+ * 排序键之间保留间隔（Constants.SORT_KEY_GAP），把任务移动到两个相邻任务之间时
+ * 只需取中间值改写这一行；间隔用尽时只对附近的一段窗口重新编号
+ * 排序键只在同一清单、同一完成状态的分区内比较，查找和重新编号都不会触及其他清单
+ */
+class SortOrderManager {
+    private static final String TAG = "SortOrderManager";
+
+    // 重新编号时窗口的初始半径，放不下时逐次翻倍
+    private static final int INITIAL_WINDOW = 16;
+    // 重新编号后相邻排序键之间的最小间隔
+    private static final long MIN_REBALANCE_STEP = 64;
+    // 移动后剩余间隔小于该值时，在后台预先重新编号
+    private static final long REBALANCE_THRESHOLD = 8;
+
+    private final AppDatabase database;
+    private final TaskDao taskDao;
+    private final Executor executor;
+
+    SortOrderManager(AppDatabase database, Executor executor) {
+        this.database = database;
+        this.taskDao = database.taskDao();
+        this.executor = executor;
+    }
+
+    /**
+     * 新任务的排序键：排在清单内所有未完成任务的最后
+     */
+    long nextPendingSortIndex(long listId) {
+        Long min = taskDao.getMinPendingSortIndex(listId);
+        return min == null ? 0 : min - Constants.SORT_KEY_GAP;
+    }
+
+    /**
+     * 把任务移动到两个相邻任务之间
+     * @param aboveTaskId 移动后位于其上方的任务ID，没有时传0
+     * @param belowTaskId 移动后位于其下方的任务ID，没有时传0
+     * @return 是否改写了排序键
+     */
+    boolean moveBetween(long taskId, long aboveTaskId, long belowTaskId) {
+        long[] tightGap = new long[1];
+        Boolean moved = database.runInTransaction(() -> {
+            TaskSummary task = taskDao.getTaskSummaryById(taskId);
+            if (task == null) return false;
+
+            TaskSummary above = neighbour(aboveTaskId, task);
+            TaskSummary below = neighbour(belowTaskId, task);
+            if (above != null && below != null && !precedes(above, below)) {
+                // 界面上的相邻关系已过期，以上方任务为准
+                below = null;
+            }
+            // 只给出一侧时，另一侧取数据库中真正相邻的任务（可能还未加载到界面）
+            if (above != null && below == null) {
+                below = first(taskDao.loadPartitionAfter(above.getListId(), above.isCompleted(), above.getSortIndex(),
+                        above.getCreatedAt(), above.getId(), 2), taskId);
+            } else if (above == null && below != null) {
+                above = first(taskDao.loadPartitionBefore(below.getListId(), below.isCompleted(), below.getSortIndex(),
+                        below.getCreatedAt(), below.getId(), 2), taskId);
+            }
+            if (above == null && below == null) return false;
+
+            Long newKey = keyBetween(above, below);
+            if (newKey == null) {
+                // 两个相邻任务之间已没有空位，先对附近窗口重新编号
+                rebalanceWindow(above, taskId);
+                above = taskDao.getTaskSummaryById(above.getId());
+                below = taskDao.getTaskSummaryById(below.getId());
+                newKey = keyBetween(above, below);
+                if (newKey == null) {
+                    throw new IllegalStateException("No sort key between " + above.getId() + " and " + below.getId());
+                }
+            }
+
+            if (newKey != task.getSortIndex()) {
+                taskDao.updateSortIndex(taskId, newKey);
+            }
+            if (above != null && below != null) {
+                tightGap[0] = Math.min(above.getSortIndex() - newKey, newKey - below.getSortIndex());
+            } else {
+                tightGap[0] = Long.MAX_VALUE;
+            }
+            return true;
+        });
+
+        if (Boolean.TRUE.equals(moved) && tightGap[0] < REBALANCE_THRESHOLD) {
+            executor.execute(() -> rebalanceAround(taskId));
+        }
+        return Boolean.TRUE.equals(moved);
+    }
+
+    /**
+     * 对任务附近的窗口重新编号，拉开相邻排序键的间隔
+     */
+    void rebalanceAround(long taskId) {
+        try {
+            database.runInTransaction(() -> {
+                TaskSummary task = taskDao.getTaskSummaryById(taskId);
+                if (task != null) {
+                    rebalanceWindow(task, 0);
+                }
+            });
+        } catch (Exception e) {
+            Log.e(TAG, "Error rebalancing sort keys around " + taskId + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 以anchor为中心，在同一清单、同一完成状态分区内取前后各window个任务重新编号；
+     * 窗口外两侧任务的排序键之间放不下时把窗口翻倍，最坏情况下覆盖整个分区
+     * 需要在事务中调用
+     */
+    private void rebalanceWindow(TaskSummary anchor, long excludedTaskId) {
+        int window = INITIAL_WINDOW;
+        while (true) {
+            List<TaskSummary> before = exclude(taskDao.loadPartitionBefore(anchor.getListId(), anchor.isCompleted(),
+                    anchor.getSortIndex(), anchor.getCreatedAt(), anchor.getId(), window + 2), excludedTaskId);
+            List<TaskSummary> after = exclude(taskDao.loadPartitionAfter(anchor.getListId(), anchor.isCompleted(),
+                    anchor.getSortIndex(), anchor.getCreatedAt(), anchor.getId(), window + 2), excludedTaskId);
+
+            TaskSummary upper = before.size() > window ? before.get(window) : null;
+            TaskSummary lower = after.size() > window ? after.get(window) : null;
+
+            List<TaskSummary> rows = new ArrayList<>(before.subList(0, Math.min(window, before.size())));
+            Collections.reverse(rows);
+            rows.add(anchor);
+            rows.addAll(after.subList(0, Math.min(window, after.size())));
+
+            long[] keys = spreadKeys(rows.size(), upper, lower);
+            if (keys != null) {
+                int updated = 0;
+                for (int i = 0; i < rows.size(); i++) {
+                    if (rows.get(i).getSortIndex() != keys[i]) {
+                        taskDao.updateSortIndex(rows.get(i).getId(), keys[i]);
+                        updated++;
+                    }
+                }
+                Log.d(TAG, "Rebalanced " + updated + " sort keys around " + anchor.getId());
+                return;
+            }
+            window *= 2;
+        }
+    }
+
+    /**
+     * 在upper与lower之间为count个任务均匀分配递减的排序键，间隔不足时返回null
+     */
+    private static long[] spreadKeys(int count, TaskSummary upper, TaskSummary lower) {
+        long[] keys = new long[count];
+        long gap = Constants.SORT_KEY_GAP;
+        if (upper == null && lower == null) {
+            for (int i = 0; i < count; i++) keys[i] = (count - i) * gap;
+        } else if (upper == null) {
+            for (int i = 0; i < count; i++) keys[i] = lower.getSortIndex() + (count - i) * gap;
+        } else if (lower == null) {
+            for (int i = 0; i < count; i++) keys[i] = upper.getSortIndex() - (i + 1) * gap;
+        } else {
+            long step = (upper.getSortIndex() - lower.getSortIndex()) / (count + 1);
+            if (step < MIN_REBALANCE_STEP) return null;
+            for (int i = 0; i < count; i++) keys[i] = upper.getSortIndex() - (i + 1) * step;
+        }
+        return keys;
+    }
+
+    /**
+     * 两个相邻任务之间的排序键，没有空位时返回null
+     */
+    private static Long keyBetween(TaskSummary above, TaskSummary below) {
+        if (above == null) return below.getSortIndex() + Constants.SORT_KEY_GAP;
+        if (below == null) return above.getSortIndex() - Constants.SORT_KEY_GAP;
+        long span = above.getSortIndex() - below.getSortIndex();
+        if (span < 2) return null;
+        return below.getSortIndex() + span / 2;
+    }
+
+    /**
+     * 列表排序中a是否位于b之前
+     */
+    private static boolean precedes(TaskSummary a, TaskSummary b) {
+        if (a.getSortIndex() != b.getSortIndex()) return a.getSortIndex() > b.getSortIndex();
+        if (a.getCreatedAt() != b.getCreatedAt()) return a.getCreatedAt() < b.getCreatedAt();
+        return a.getId() < b.getId();
+    }
+
+    /**
+     * 读取相邻任务，不在同一清单、同一完成状态分区的任务不参与排序
+     */
+    private TaskSummary neighbour(long neighbourId, TaskSummary task) {
+        if (neighbourId <= 0 || neighbourId == task.getId()) return null;
+        TaskSummary neighbour = taskDao.getTaskSummaryById(neighbourId);
+        if (neighbour == null || neighbour.getListId() != task.getListId()
+                || neighbour.isCompleted() != task.isCompleted()) return null;
+        return neighbour;
+    }
+
+    private static TaskSummary first(List<TaskSummary> tasks, long excludedTaskId) {
+        List<TaskSummary> filtered = exclude(tasks, excludedTaskId);
+        return filtered.isEmpty() ? null : filtered.get(0);
+    }
+
+    private static List<TaskSummary> exclude(List<TaskSummary> tasks, long excludedTaskId) {
+        List<TaskSummary> filtered = new ArrayList<>(tasks.size());
+        for (TaskSummary task : tasks) {
+            if (task.getId() != excludedTaskId) filtered.add(task);
+        }
+        return filtered;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.smarttasksapp.infrastructure.repository;
+
+/**
+ * 任务备份文件格式（大端序）
+ * <pre>
+ * 文件头：  int MAGIC, int 格式版本, byte 标志(FLAG_INCREMENTAL), long 导出时间
+ * 记录：    byte RECORD_LIST（版本4起，在所有任务记录之前）, long id, string 名称, long createdAt
+ *           byte RECORD_TASK, long id, string 标题, string 描述, long createdAt, long sortIndex,
+ *           byte isCompleted, long startTime, long completedAt, long listId（版本2起）
+ *           byte RECORD_ARCHIVED（版本3起），字段与RECORD_TASK相同，之后是long archivedAt
+ *           byte RECORD_DELETED, long id
+ * 结束：    byte RECORD_END, int 任务记录数, int 删除记录数, int 归档记录数（版本3起）, int 清单记录数（版本4起）
+ * string：  int 字节数（-1表示null）+ UTF-8字节
+ * </pre>
+ * 读取时按记录逐条解析，不需要把整个文件读入内存；新增字段时提升版本号，读取方按版本解析
+ */
+final class TaskBackupFormat {
+    static final int MAGIC = 0x53544B42; // "STKB"
+    static final int VERSION = 4;
+
+    static final byte FLAG_INCREMENTAL = 1;
+
+    static final byte RECORD_END = 0;
+    static final byte RECORD_TASK = 1;
+    static final byte RECORD_DELETED = 2;
+    static final byte RECORD_ARCHIVED = 3;
+    static final byte RECORD_LIST = 4;
+
+    // 读写缓冲区大小
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private TaskBackupFormat() {}
+}
@@ -0,0 +1,44 @@
+package com.example.smarttasksapp.infrastructure.repository;
+
+import com.example.smarttasksapp.feature.tasks.domain.TaskBackupResult;
+import com.example.smarttasksapp.infrastructure.entity.ArchivedTask;
+import com.example.smarttasksapp.infrastructure.entity.Task;
+import com.example.smarttasksapp.infrastructure.entity.TaskList;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 完整解析的备份文件
+ * 导入前先把整个文件读完，截断或损坏的文件在写入数据库之前就失败，不会留下导入了一半的数据；
+ * ID仍是备份中的ID，写入时再换成本机ID
+ */
+final class TaskBackupImport {
+    final List<TaskList> lists = new ArrayList<>();
+    final List<Task> tasks = new ArrayList<>();
+    final List<ArchivedTask> archivedTasks = new ArrayList<>();
+    final List<Long> deletedIds = new ArrayList<>();
+    final TaskBackupResult result;
+    // 导入时间，同时作为删除记录的删除时间和导入任务的行版本
+    final long importedAt;
+
+    TaskBackupImport(ReadableByteChannel source, long importedAt) throws IOException {
+        this.importedAt = importedAt;
+        TaskBackupReader reader = new TaskBackupReader(source);
+        while (reader.next()) {
+            if (reader.isListRecord()) {
+                lists.add(reader.newTaskList());
+            } else if (reader.isDeletedRecord()) {
+                deletedIds.add(reader.getDeletedId());
+            } else if (reader.isArchivedRecord()) {
+                archivedTasks.add(reader.newArchivedTask());
+            } else {
+                tasks.add(reader.newTask(importedAt));
+            }
+        }
+        this.result = new TaskBackupResult(reader.isIncremental(), reader.getTaskCount(),
+                reader.getDeletedCount(), reader.getArchivedCount(), reader.getListCount(), reader.getByteCount());
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.smarttasksapp.infrastructure.repository;
+
+import com.example.smarttasksapp.core.constants.Constants;
+import com.example.smarttasksapp.infrastructure.entity.ArchivedTask;
+import com.example.smarttasksapp.infrastructure.entity.Task;
+import com.example.smarttasksapp.infrastructure.entity.TaskList;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 按TaskBackupFormat从通道中逐条读取记录
+ * 使用固定大小的缓冲区按需补充数据，内存占用与文件大小无关
+ */
+final class TaskBackupReader {
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(TaskBackupFormat.BUFFER_SIZE);
+    private final int version;
+    private final boolean incremental;
+    private final long exportedAt;
+    private int taskCount;
+    private int deletedCount;
+    private int archivedCount;
+    private int listCount;
+    private long byteCount;
+    private boolean finished;
+
+    // 当前记录
+    private byte recordType;
+    private final Task task = new Task();
+    private long deletedId;
+    private long archivedAt;
+    private final TaskList list = new TaskList();
+
+    TaskBackupReader(ReadableByteChannel channel) throws IOException {
+        this.channel = channel;
+        buffer.limit(0);
+        ensure(4 + 4 + 1 + 8);
+        if (buffer.getInt() != TaskBackupFormat.MAGIC) {
+            throw new IOException("Not a task backup file");
+        }
+        this.version = buffer.getInt();
+        if (version < 1 || version > TaskBackupFormat.VERSION) {
+            throw new IOException("Unsupported backup version: " + version);
+        }
+        this.incremental = (buffer.get() & TaskBackupFormat.FLAG_INCREMENTAL) != 0;
+        this.exportedAt = buffer.getLong();
+    }
+
+    boolean isIncremental() { return incremental; }
+
+    long getExportedAt() { return exportedAt; }
+
+    /**
+     * 读取下一条记录，到达结束记录时返回false
+     */
+    boolean next() throws IOException {
+        if (finished) return false;
+        ensure(1);
+        recordType = buffer.get();
+        switch (recordType) {
+            case TaskBackupFormat.RECORD_TASK:
+                readTask();
+                taskCount++;
+                return true;
+            case TaskBackupFormat.RECORD_LIST:
+                if (version < 4) {
+                    throw new IOException("Unknown backup record type: " + recordType);
+                }
+                ensure(8);
+                list.setId(buffer.getLong());
+                list.setName(readString());
+                ensure(8);
+                list.setCreatedAt(buffer.getLong());
+                listCount++;
+                return true;
+            case TaskBackupFormat.RECORD_ARCHIVED:
+                if (version < 3) {
+                    throw new IOException("Unknown backup record type: " + recordType);
+                }
+                readTask();
+                ensure(8);
+                archivedAt = buffer.getLong();
+                archivedCount++;
+                return true;
+            case TaskBackupFormat.RECORD_DELETED:
+                ensure(8);
+                deletedId = buffer.getLong();
+                deletedCount++;
+                return true;
+            case TaskBackupFormat.RECORD_END:
+                ensure(4 + 4 + (version >= 3 ? 4 : 0) + (version >= 4 ? 4 : 0));
+                int expectedTasks = buffer.getInt();
+                int expectedDeleted = buffer.getInt();
+                int expectedArchived = version >= 3 ? buffer.getInt() : 0;
+                int expectedLists = version >= 4 ? buffer.getInt() : 0;
+                if (expectedTasks != taskCount || expectedDeleted != deletedCount
+                        || expectedArchived != archivedCount || expectedLists != listCount) {
+                    throw new IOException("Backup record count mismatch");
+                }
+                finished = true;
+                return false;
+            default:
+                throw new IOException("Unknown backup record type: " + recordType);
+        }
+    }
+
+    boolean isDeletedRecord() {
+        return recordType == TaskBackupFormat.RECORD_DELETED;
+    }
+
+    boolean isListRecord() {
+        return recordType == TaskBackupFormat.RECORD_LIST;
+    }
+
+    boolean isArchivedRecord() {
+        return recordType == TaskBackupFormat.RECORD_ARCHIVED;
+    }
+
+    long getDeletedId() {
+        return deletedId;
+    }
+
+    /**
+     * 当前任务记录转换的新Task（已删除标记清零，行版本取导入时间）
+     */
+    Task newTask(long version) {
+        Task copy = new Task();
+        copy.setId(task.getId());
+        copy.setTitle(task.getTitle());
+        copy.setDescription(task.getDescription());
+        copy.setCreatedAt(task.getCreatedAt());
+        copy.setSortIndex(task.getSortIndex());
+        copy.setCompleted(task.isCompleted());
+        copy.setStartTime(task.getStartTime());
+        copy.setCompletedAt(task.getCompletedAt());
+        copy.setListId(task.getListId());
+        copy.setVersion(version);
+        return copy;
+    }
+
+    /**
+     * 当前清单记录转换的新TaskList，ID是备份中的清单ID，计数由本机触发器维护
+     */
+    TaskList newTaskList() {
+        TaskList copy = new TaskList();
+        copy.setId(list.getId());
+        copy.setName(list.getName());
+        copy.setCreatedAt(list.getCreatedAt());
+        return copy;
+    }
+
+    /**
+     * 当前归档记录转换的新ArchivedTask
+     */
+    ArchivedTask newArchivedTask() {
+        ArchivedTask copy = new ArchivedTask();
+        copy.setId(task.getId());
+        copy.setTitle(task.getTitle());
+        copy.setDescription(task.getDescription());
+        copy.setCreatedAt(task.getCreatedAt());
+        copy.setListId(task.getListId());
+        copy.setSortIndex(task.getSortIndex());
+        copy.setStartTime(task.getStartTime());
+        copy.setCompletedAt(task.getCompletedAt());
+        copy.setArchivedAt(archivedAt);
+        return copy;
+    }
+
+    int getTaskCount() { return taskCount; }
+
+    int getDeletedCount() { return deletedCount; }
+
+    int getArchivedCount() { return archivedCount; }
+
+    int getListCount() { return listCount; }
+
+    long getByteCount() { return byteCount; }
+
+    private void readTask() throws IOException {
+        ensure(8);
+        task.setId(buffer.getLong());
+        task.setTitle(readString());
+        task.setDescription(readString());
+        ensure(8 + 8 + 1 + 8 + 8);
+        task.setCreatedAt(buffer.getLong());
+        task.setSortIndex(buffer.getLong());
+        task.setCompleted(buffer.get() != 0);
+        task.setStartTime(buffer.getLong());
+        task.setCompletedAt(buffer.getLong());
+        // 版本1没有清单，放入默认清单
+        if (version >= 2) {
+            ensure(8);
+            task.setListId(buffer.getLong());
+        } else {
+            task.setListId(Constants.DEFAULT_TASK_LIST_ID);
+        }
+    }
+
+    private String readString() throws IOException {
+        ensure(4);
+        int length = buffer.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            if (!buffer.hasRemaining()) ensure(1);
+            int chunk = Math.min(buffer.remaining(), length - offset);
+            buffer.get(bytes, offset, chunk);
+            offset += chunk;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 保证缓冲区中至少有bytes个未读字节，数据不足时从通道补充
+     */
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) return;
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                throw new EOFException("Truncated backup file");
+            }
+            byteCount += read;
+        }
+        buffer.flip();
+    }
+}
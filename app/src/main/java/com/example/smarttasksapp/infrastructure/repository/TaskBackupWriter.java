@@ -0,0 +1,127 @@
+package com.example.smarttasksapp.infrastructure.repository;
+
+import com.example.smarttasksapp.infrastructure.entity.TaskBackupRow;
+import com.example.smarttasksapp.infrastructure.entity.TaskList;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 按TaskBackupFormat把任务逐条写入通道
+ * 只使用一个固定大小的直接缓冲区，写满时刷到通道，内存占用与任务数无关
+ */
+final class TaskBackupWriter {
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(TaskBackupFormat.BUFFER_SIZE);
+    private int taskCount;
+    private int deletedCount;
+    private int archivedCount;
+    private int listCount;
+    private long byteCount;
+
+    TaskBackupWriter(WritableByteChannel channel, boolean incremental, long exportedAt) throws IOException {
+        this.channel = channel;
+        ensure(4 + 4 + 1 + 8);
+        buffer.putInt(TaskBackupFormat.MAGIC);
+        buffer.putInt(TaskBackupFormat.VERSION);
+        buffer.put(incremental ? TaskBackupFormat.FLAG_INCREMENTAL : 0);
+        buffer.putLong(exportedAt);
+    }
+
+    /**
+     * 写入一个清单，需要在所有任务记录之前写入
+     */
+    void writeList(TaskList list) throws IOException {
+        ensure(1 + 8);
+        buffer.put(TaskBackupFormat.RECORD_LIST);
+        buffer.putLong(list.getId());
+        writeString(list.getName());
+        ensure(8);
+        buffer.putLong(list.getCreatedAt());
+        listCount++;
+    }
+
+    void write(TaskBackupRow row) throws IOException {
+        if (row.deleted) {
+            ensure(1 + 8);
+            buffer.put(TaskBackupFormat.RECORD_DELETED);
+            buffer.putLong(row.taskId);
+            deletedCount++;
+            return;
+        }
+        ensure(1 + 8);
+        buffer.put(row.archived ? TaskBackupFormat.RECORD_ARCHIVED : TaskBackupFormat.RECORD_TASK);
+        buffer.putLong(row.taskId);
+        writeString(row.title);
+        writeString(row.description);
+        ensure(8 + 8 + 1 + 8 + 8 + 8);
+        buffer.putLong(row.createdAt);
+        buffer.putLong(row.sortIndex);
+        buffer.put(row.isCompleted ? (byte) 1 : 0);
+        buffer.putLong(row.startTime);
+        buffer.putLong(row.completedAt);
+        buffer.putLong(row.listId);
+        if (row.archived) {
+            ensure(8);
+            buffer.putLong(row.archivedAt);
+            archivedCount++;
+        } else {
+            taskCount++;
+        }
+    }
+
+    /**
+     * 写入结束记录并刷出缓冲区，不关闭通道
+     */
+    void finish() throws IOException {
+        ensure(1 + 4 + 4 + 4 + 4);
+        buffer.put(TaskBackupFormat.RECORD_END);
+        buffer.putInt(taskCount);
+        buffer.putInt(deletedCount);
+        buffer.putInt(archivedCount);
+        buffer.putInt(listCount);
+        flush();
+    }
+
+    int getTaskCount() { return taskCount; }
+
+    int getDeletedCount() { return deletedCount; }
+
+    int getArchivedCount() { return archivedCount; }
+
+    int getListCount() { return listCount; }
+
+    long getByteCount() { return byteCount; }
+
+    private void writeString(String value) throws IOException {
+        ensure(4);
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        // 超过缓冲区的长文本分段写入
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) flush();
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) flush();
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            byteCount += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
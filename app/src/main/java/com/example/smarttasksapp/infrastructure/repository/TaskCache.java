@@ -0,0 +1,297 @@
+package com.example.smarttasksapp.infrastructure.repository;
+
+import com.example.smarttasksapp.feature.tasks.domain.TaskCacheStats;
+import com.example.smarttasksapp.feature.tasks.domain.TaskEntity;
+
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+/**
+ * 按任务ID缓存TaskEntity的有界LRU缓存
+ * 以long为键的开放寻址哈希表（线性探测，删除时后移），LRU链表用数组下标串联，
+ * 查找和更新都不需要装箱或分配节点；容量满时淘汰最久未访问的任务
+ *
+ * TaskEntity不可变，缓存直接保存并返回实例，修改时整体替换
+ *
+ * 读取数据库后的填充不在写入事务中进行，用行版本和分段写入戳防止旧数据进入缓存：
+ * 写入方法和变更日志对任务的每次修改都会增加该任务所在分段的写入戳，
+ * 填充时写入戳已变化则放弃填充，已缓存的版本更新时也不覆盖
+ */
+final class TaskCache {
+    private static final int EMPTY = -1;
+    // 写入戳分段数，必须是2的幂
+    private static final int STAMP_STRIPES = 64;
+
+    private final int capacity;
+    // 哈希表：槽位 -> 条目下标，EMPTY表示空槽
+    private final int[] table;
+    private final int mask;
+    // 条目数组，下标即条目编号
+    private final long[] entryKeys;
+    private final TaskEntity[] entryValues;
+    private final int[] prev;
+    private final int[] next;
+    private final int[] freeEntries;
+    private int freeCount;
+    // LRU链表：head为最近访问，tail为最久未访问
+    private int head = EMPTY;
+    private int tail = EMPTY;
+    private int size;
+
+    private final long[] writeStamps = new long[STAMP_STRIPES];
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    TaskCache(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        // 负载因子不超过0.5
+        int tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        this.table = new int[tableSize];
+        this.mask = tableSize - 1;
+        Arrays.fill(table, EMPTY);
+        this.entryKeys = new long[capacity];
+        this.entryValues = new TaskEntity[capacity];
+        this.prev = new int[capacity];
+        this.next = new int[capacity];
+        this.freeEntries = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            freeEntries[i] = capacity - 1 - i;
+        }
+        this.freeCount = capacity;
+    }
+
+    /**
+     * 读取任务，未缓存时返回null
+     */
+    synchronized TaskEntity get(long taskId) {
+        int entry = find(taskId);
+        if (entry == EMPTY) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        moveToHead(entry);
+        return entryValues[entry];
+    }
+
+    /**
+     * 读取数据库之前取得任务的写入戳，读取后传给putIfNotNewer
+     */
+    synchronized long writeStamp(long taskId) {
+        return writeStamps[stripeOf(taskId)];
+    }
+
+    /**
+     * 写入或替换任务，必要时淘汰最久未访问的任务；用于写入路径
+     */
+    synchronized void put(TaskEntity task) {
+        long taskId = task.getId();
+        // 只缓存完整的任务，列表预览不能作为完整内容返回
+        if (taskId <= 0 || task.isDescriptionTruncated()) return;
+        markWritten(taskId);
+        int entry = find(taskId);
+        if (entry != EMPTY) {
+            entryValues[entry] = task;
+            moveToHead(entry);
+            return;
+        }
+        insert(task);
+    }
+
+    /**
+     * 用事务外读取到的任务填充缓存：已缓存的版本不比它旧时保留已缓存的；
+     * 未缓存时，取得写入戳之后该分段有过写入则不填充（读取到的可能是写入提交前的内容）
+     * @param stamp 读取前由writeStamp取得的写入戳
+     */
+    synchronized void putIfNotNewer(TaskEntity task, long stamp) {
+        long taskId = task.getId();
+        if (taskId <= 0 || task.isDescriptionTruncated()) return;
+        int entry = find(taskId);
+        if (entry != EMPTY) {
+            if (entryValues[entry].getVersion() < task.getVersion()) {
+                entryValues[entry] = task;
+            }
+            moveToHead(entry);
+            return;
+        }
+        if (writeStamps[stripeOf(taskId)] != stamp) return;
+        insert(task);
+    }
+
+    /**
+     * 只更新已缓存的任务，不改变其LRU位置；用于数据库变更后的刷新
+     * 已缓存的版本更新时不处理；新内容只有描述预览时原地更新其余字段，
+     * 预览与缓存的完整描述开头一致说明描述没有被修改，保留完整描述，否则移出缓存后按需重新读取
+     */
+    synchronized void replaceIfPresent(TaskEntity task) {
+        markWritten(task.getId());
+        int entry = find(task.getId());
+        if (entry == EMPTY) return;
+        TaskEntity cached = entryValues[entry];
+        if (cached.getVersion() > task.getVersion()) return;
+        if (!task.isDescriptionTruncated()) {
+            entryValues[entry] = task;
+            return;
+        }
+        String description = cached.getDescription();
+        if (description == null || task.getDescription() == null
+                || !description.startsWith(task.getDescription())) {
+            removeEntry(entry);
+            return;
+        }
+        entryValues[entry] = task.toBuilder()
+                .setDescription(description)
+                .setDescriptionTruncated(false)
+                .build();
+    }
+
+    /**
+     * 用update返回的新实例替换已缓存的任务，未缓存时什么都不做
+     */
+    synchronized void updateIfPresent(long taskId, UnaryOperator<TaskEntity> update) {
+        markWritten(taskId);
+        int entry = find(taskId);
+        if (entry != EMPTY) {
+            entryValues[entry] = update.apply(entryValues[entry]);
+        }
+    }
+
+    synchronized void remove(long taskId) {
+        markWritten(taskId);
+        int entry = find(taskId);
+        if (entry != EMPTY) {
+            removeEntry(entry);
+        }
+    }
+
+    synchronized void clear() {
+        for (int i = 0; i < STAMP_STRIPES; i++) {
+            writeStamps[i]++;
+        }
+        Arrays.fill(table, EMPTY);
+        Arrays.fill(entryValues, null);
+        for (int i = 0; i < capacity; i++) {
+            freeEntries[i] = capacity - 1 - i;
+        }
+        freeCount = capacity;
+        head = EMPTY;
+        tail = EMPTY;
+        size = 0;
+    }
+
+    synchronized TaskCacheStats stats() {
+        return new TaskCacheStats(hitCount, missCount, evictionCount, size, capacity);
+    }
+
+    private void insert(TaskEntity task) {
+        if (freeCount == 0) {
+            evict();
+        }
+        int entry = freeEntries[--freeCount];
+        entryKeys[entry] = task.getId();
+        entryValues[entry] = task;
+        insertSlot(entry);
+        linkHead(entry);
+        size++;
+    }
+
+    private void markWritten(long taskId) {
+        writeStamps[stripeOf(taskId)]++;
+    }
+
+    private static int stripeOf(long taskId) {
+        return (int) (taskId ^ (taskId >>> 32)) & (STAMP_STRIPES - 1);
+    }
+
+    private void evict() {
+        int victim = tail;
+        removeEntry(victim);
+        evictionCount++;
+    }
+
+    private void removeEntry(int entry) {
+        deleteSlot(entry);
+        unlink(entry);
+        entryValues[entry] = null;
+        freeEntries[freeCount++] = entry;
+        size--;
+    }
+
+    // ---------- 哈希表 ----------
+
+    private int slotOf(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private int find(long key) {
+        int slot = slotOf(key);
+        while (true) {
+            int entry = table[slot];
+            if (entry == EMPTY) return EMPTY;
+            if (entryKeys[entry] == key) return entry;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void insertSlot(int entry) {
+        int slot = slotOf(entryKeys[entry]);
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = entry;
+    }
+
+    /**
+     * 删除槽位后把同一探测链上后面的条目前移，保持查找不被空槽截断
+     */
+    private void deleteSlot(int entry) {
+        int slot = slotOf(entryKeys[entry]);
+        while (table[slot] != entry) {
+            slot = (slot + 1) & mask;
+        }
+        int hole = slot;
+        int current = (hole + 1) & mask;
+        while (table[current] != EMPTY) {
+            int home = slotOf(entryKeys[table[current]]);
+            // 条目的理想位置不在(hole, current]区间内时可以移动到空洞
+            boolean movable = hole <= current
+                    ? home <= hole || home > current
+                    : home <= hole && home > current;
+            if (movable) {
+                table[hole] = table[current];
+                hole = current;
+            }
+            current = (current + 1) & mask;
+        }
+        table[hole] = EMPTY;
+    }
+
+    // ---------- LRU链表 ----------
+
+    private void moveToHead(int entry) {
+        if (entry == head) return;
+        unlink(entry);
+        linkHead(entry);
+    }
+
+    private void linkHead(int entry) {
+        prev[entry] = EMPTY;
+        next[entry] = head;
+        if (head != EMPTY) prev[head] = entry;
+        head = entry;
+        if (tail == EMPTY) tail = entry;
+    }
+
+    private void unlink(int entry) {
+        int p = prev[entry];
+        int n = next[entry];
+        if (p != EMPTY) next[p] = n; else head = n;
+        if (n != EMPTY) prev[n] = p; else tail = p;
+        prev[entry] = EMPTY;
+        next[entry] = EMPTY;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.smarttasksapp.infrastructure.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.lifecycle.LiveData;
+
+import com.example.smarttasksapp.feature.tasks.domain.TaskChangeSet;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 任务变更流
+ * 把TaskChangeTracker读取的变更集按产生顺序逐个投递到主线程
+ * （不使用postValue，避免中间的变更集被合并丢失）
+ *
+ * 没有活跃观察者期间的变更不投递，重新开始观察时发出一次reset
+ */
+class TaskChangeLiveData extends LiveData<TaskChangeSet> implements TaskChangeTracker.Listener {
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean active = new AtomicBoolean(false);
+    private final AtomicBoolean missedChanges = new AtomicBoolean(false);
+
+    @Override
+    public void onTaskChanges(TaskChangeSet changes) {
+        if (active.get()) {
+            mainHandler.post(() -> setValue(changes));
+        } else {
+            missedChanges.set(true);
+        }
+    }
+
+    @Override
+    protected void onActive() {
+        active.set(true);
+        if (missedChanges.getAndSet(false)) {
+            mainHandler.post(() -> setValue(TaskChangeSet.reset()));
+        }
+    }
+
+    @Override
+    protected void onInactive() {
+        active.set(false);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.smarttasksapp.infrastructure.repository;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import com.example.smarttasksapp.core.constants.Constants;
+import com.example.smarttasksapp.feature.tasks.domain.TaskChangeSet;
+import com.example.smarttasksapp.feature.tasks.domain.TaskEntity;
+import com.example.smarttasksapp.infrastructure.dao.TaskDao;
+import com.example.smarttasksapp.infrastructure.database.AppDatabase;
+import com.example.smarttasksapp.infrastructure.entity.TaskChange;
+import com.example.smarttasksapp.infrastructure.entity.TaskSummary;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * 任务变更日志读取
+ * 任务表失效时读取变更日志（task_changes）中新增的记录，只读取涉及任务的摘要，读完即删除日志，
+ * 每个变更集的大小与变更量成正比，与表的总大小无关
+ *
+ * 启动后一直向Room注册（日志因此不会积累），按提交顺序在读取线程上通知所有监听者
+ */
+class TaskChangeTracker {
+    private static final String TAG = "TaskChangeTracker";
+
+    // 单个变更集最多包含的日志条数，超过时改为reset，由监听者整体刷新
+    private static final int MAX_CHANGES_PER_SET = 500;
+
+    /**
+     * 变更监听，在读取线程上按提交顺序调用，不能阻塞
+     */
+    interface Listener {
+        void onTaskChanges(TaskChangeSet changes);
+    }
+
+    private final AppDatabase database;
+    private final TaskDao taskDao;
+    private final Executor executor;
+    private final Function<TaskSummary, TaskEntity> converter;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private final InvalidationTracker.Observer observer;
+    private boolean started = false;
+
+    TaskChangeTracker(AppDatabase database, Executor executor, Function<TaskSummary, TaskEntity> converter) {
+        this.database = database;
+        this.taskDao = database.taskDao();
+        this.executor = executor;
+        this.converter = converter;
+        this.observer = new InvalidationTracker.Observer(Constants.TABLE_NAME) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                // 连续的失效通知合并为一次读取
+                if (drainScheduled.compareAndSet(false, true)) {
+                    executor.execute(TaskChangeTracker.this::drain);
+                }
+            }
+        };
+    }
+
+    void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 开始观察，注册会同步数据库触发器，在线程池中执行
+     */
+    void start() {
+        executor.execute(this::register);
+    }
+
+    private synchronized void register() {
+        if (started) return;
+        try {
+            database.getInvalidationTracker().addObserver(observer);
+            started = true;
+            // 上次进程退出前没有读取的日志无法再对应到内存中的数据，直接丢弃
+            int stale = taskDao.clearChanges();
+            if (stale > 0) {
+                Log.d(TAG, "Discarded " + stale + " stale task changes");
+                notifyListeners(TaskChangeSet.reset());
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error starting task change tracking: " + e.getMessage(), e);
+        }
+    }
+
+    private synchronized void drain() {
+        drainScheduled.set(false);
+        if (!started) return;
+        TaskChangeSet changes;
+        try {
+            changes = database.runInTransaction(this::readChanges);
+        } catch (Exception e) {
+            Log.e(TAG, "Error reading task changes: " + e.getMessage(), e);
+            changes = TaskChangeSet.reset();
+        }
+        if (changes != null) {
+            notifyListeners(changes);
+        }
+    }
+
+    private void notifyListeners(TaskChangeSet changes) {
+        for (Listener listener : listeners) {
+            listener.onTaskChanges(changes);
+        }
+    }
+
+    /**
+     * 读取并删除变更日志，合并为一个变更集；需要在事务中调用
+     * 同一任务的多条日志只保留最终状态：行仍存在时为新增或修改，不存在时为删除
+     */
+    private TaskChangeSet readChanges() {
+        List<TaskChange> log = taskDao.loadChanges(MAX_CHANGES_PER_SET + 1);
+        if (log.isEmpty()) return null;
+        if (log.size() > MAX_CHANGES_PER_SET) {
+            taskDao.clearChanges();
+            return TaskChangeSet.reset();
+        }
+
+        Set<Long> touchedIds = new LinkedHashSet<>();
+        Set<Long> insertedIds = new HashSet<>();
+        for (TaskChange change : log) {
+            touchedIds.add(change.getTaskId());
+            if (change.getOp() == TaskChange.OP_INSERT) {
+                insertedIds.add(change.getTaskId());
+            }
+        }
+        taskDao.pruneChanges(log.get(log.size() - 1).getSeq());
+
+        Map<Long, TaskSummary> rows = new HashMap<>();
+        for (TaskSummary task : taskDao.getTaskSummariesByIds(new ArrayList<>(touchedIds))) {
+            rows.put(task.getId(), task);
+        }
+
+        List<TaskEntity> inserted = new ArrayList<>();
+        List<TaskEntity> updated = new ArrayList<>();
+        Set<Long> deletedIds = new LinkedHashSet<>();
+        for (Long taskId : touchedIds) {
+            TaskSummary row = rows.get(taskId);
+            if (row == null) {
+                deletedIds.add(taskId);
+            } else if (insertedIds.contains(taskId)) {
+                inserted.add(converter.apply(row));
+            } else {
+                updated.add(converter.apply(row));
+            }
+        }
+        return new TaskChangeSet(inserted, updated, deletedIds);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.smarttasksapp.infrastructure.repository;
+
+import com.example.smarttasksapp.feature.tasks.domain.TaskEntity;
+import com.example.smarttasksapp.infrastructure.entity.TaskSummary;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 保持实例的TaskSummary列表转换
+ * 记住上一次转换得到的实例，ID和行版本都没有变化的行直接复用上一次的TaskEntity，
+ * 只为新增和修改过的行分配对象；下游可以用引用相等判断任务内容没有变化
+ *
+ * 每个数据流使用自己的实例，只保留上一次转换的结果，不会随时间积累
+ */
+final class TaskEntityMapper {
+    private final Function<TaskSummary, TaskEntity> converter;
+    private Map<Long, TaskEntity> previous = new HashMap<>();
+
+    TaskEntityMapper(Function<TaskSummary, TaskEntity> converter) {
+        this.converter = converter;
+    }
+
+    synchronized List<TaskEntity> map(List<TaskSummary> summaries) {
+        if (summaries == null) return null;
+        List<TaskEntity> tasks = new ArrayList<>(summaries.size());
+        Map<Long, TaskEntity> current = new HashMap<>(Math.max(16, summaries.size() * 2));
+        for (TaskSummary summary : summaries) {
+            TaskEntity task = previous.get(summary.getId());
+            if (task == null || task.getVersion() != summary.getVersion()) {
+                task = converter.apply(summary);
+            }
+            tasks.add(task);
+            current.put(task.getId(), task);
+        }
+        previous = current;
+        return tasks;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.smarttasksapp.infrastructure.repository;
+
+import android.util.Log;
+
+import com.example.smarttasksapp.core.constants.Constants;
+import com.example.smarttasksapp.infrastructure.dao.TaskDao;
+import com.example.smarttasksapp.infrastructure.dao.TaskOperationDao;
+import com.example.smarttasksapp.infrastructure.database.AppDatabase;
+import com.example.smarttasksapp.infrastructure.entity.TaskOperation;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 任务操作的撤销日志（task_operations）
+ * 每次用户操作在其写入事务中追加一批记录，只保存被修改字段修改前后的值；
+ * 撤销和重做按记录时返回的批次ID进行，在一个事务中回放，回放直接写入任务表，不产生新的记录
+ *
+ * 日志只保留最近Constants.UNDO_HISTORY_LIMIT批：每记录Constants.UNDO_COMPACT_INTERVAL批
+ * 在后台线程裁剪一次，同时删除任务已被清除或归档的记录，写入路径上只多一次插入
+ */
+class TaskOperationJournal {
+    private static final String TAG = "TaskOperationJournal";
+
+    private final AppDatabase database;
+    private final TaskDao taskDao;
+    private final TaskOperationDao operationDao;
+    private final SortOrderManager sortOrderManager;
+    private final Executor executor;
+    private final AtomicInteger recordedSinceCompaction = new AtomicInteger();
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean(false);
+
+    TaskOperationJournal(AppDatabase database, SortOrderManager sortOrderManager, Executor executor) {
+        this.database = database;
+        this.taskDao = database.taskDao();
+        this.operationDao = database.taskOperationDao();
+        this.sortOrderManager = sortOrderManager;
+        this.executor = executor;
+    }
+
+    /**
+     * 把一次用户操作的记录作为一批写入，并丢弃重做栈；需要在该操作的写入事务中调用
+     * @return 批次ID，用于撤销这一次操作；没有记录时为0
+     */
+    long record(TaskOperation... operations) {
+        return record(Arrays.asList(operations));
+    }
+
+    long record(List<TaskOperation> operations) {
+        if (operations.isEmpty()) return 0;
+        operationDao.clearUndone();
+        long batchId = operationDao.nextBatchId();
+        for (TaskOperation operation : operations) {
+            operation.setBatchId(batchId);
+        }
+        operationDao.insertAll(operations);
+        if (recordedSinceCompaction.incrementAndGet() >= Constants.UNDO_COMPACT_INTERVAL
+                && compactionScheduled.compareAndSet(false, true)) {
+            executor.execute(this::compact);
+        }
+        return batchId;
+    }
+
+    /**
+     * 撤销指定的一批操作，批内逆序回放修改前的值
+     * 之后的操作又修改过同一任务时不撤销，避免用旧值覆盖较新的修改
+     * @return 涉及的任务ID；批次不存在、已撤销或不能撤销时为空
+     */
+    Set<Long> undo(long batchId) {
+        return database.runInTransaction(() -> {
+            if (!Boolean.FALSE.equals(operationDao.isUndone(batchId))
+                    || operationDao.hasLaterOperations(batchId)) {
+                return Collections.<Long>emptySet();
+            }
+            List<TaskOperation> batch = operationDao.loadBatch(batchId);
+            Set<Long> taskIds = new LinkedHashSet<>();
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                TaskOperation operation = batch.get(i);
+                replay(operation, true);
+                taskIds.add(operation.getTaskId());
+            }
+            operationDao.setUndone(batchId, true);
+            return taskIds;
+        });
+    }
+
+    /**
+     * 重做指定的一批已撤销的操作，批内顺序回放修改后的值；撤销后记录了新的操作时批次已被丢弃
+     * @return 涉及的任务ID；批次不存在或未撤销时为空
+     */
+    Set<Long> redo(long batchId) {
+        return database.runInTransaction(() -> {
+            if (!Boolean.TRUE.equals(operationDao.isUndone(batchId))) {
+                return Collections.<Long>emptySet();
+            }
+            Set<Long> taskIds = new LinkedHashSet<>();
+            for (TaskOperation operation : operationDao.loadBatch(batchId)) {
+                replay(operation, false);
+                taskIds.add(operation.getTaskId());
+            }
+            operationDao.setUndone(batchId, false);
+            return taskIds;
+        });
+    }
+
+    /**
+     * 删除任务已不存在的记录，只保留最近的若干批
+     * @return 删除的记录数
+     */
+    int compact() {
+        compactionScheduled.set(false);
+        recordedSinceCompaction.set(0);
+        try {
+            int removed = database.runInTransaction(() ->
+                    operationDao.deleteOrphans() + operationDao.trimToLimit(Constants.UNDO_HISTORY_LIMIT));
+            Log.d(TAG, "Compacted operation journal: " + removed + " records removed");
+            return removed;
+        } catch (Exception e) {
+            Log.e(TAG, "Error compacting operation journal: " + e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * 回放一条记录；任务已被删除或清除时对应的写入不会生效
+     * @param undo 为true时写入修改前的值，否则写入修改后的值
+     */
+    private void replay(TaskOperation operation, boolean undo) {
+        long taskId = operation.getTaskId();
+        switch (operation.getOp()) {
+            case TaskOperation.OP_DELETE:
+                if (undo) {
+                    taskDao.clearDeleted(taskId);
+                } else {
+                    taskDao.markDeleted(taskId, System.currentTimeMillis());
+                }
+                break;
+            case TaskOperation.OP_COMPLETED:
+                taskDao.updateCompletedStatus(taskId,
+                        (undo ? operation.getOldValue() : operation.getNewValue()) != 0,
+                        undo ? operation.getOldExtra() : operation.getNewExtra());
+                break;
+            case TaskOperation.OP_MOVE:
+                // 按相邻任务回放，期间排序键被重新编号也能回到原来的位置
+                sortOrderManager.moveBetween(taskId,
+                        undo ? operation.getOldValue() : operation.getNewValue(),
+                        undo ? operation.getOldExtra() : operation.getNewExtra());
+                break;
+            case TaskOperation.OP_SORT_INDEX:
+                taskDao.updateSortIndex(taskId, undo ? operation.getOldValue() : operation.getNewValue());
+                break;
+            case TaskOperation.OP_START_TIME:
+                taskDao.updateStartTime(taskId, undo ? operation.getOldValue() : operation.getNewValue());
+                break;
+            case TaskOperation.OP_TEXT:
+                taskDao.updateTitleAndDescription(taskId,
+                        undo ? operation.getOldTitle() : operation.getNewTitle(),
+                        undo ? operation.getOldDescription() : operation.getNewDescription());
+                break;
+            default:
+                Log.w(TAG, "Unknown task operation: " + operation.getOp());
+                break;
+        }
+    }
+}
@@ -1,20 +1,55 @@
 package com.example.smarttasksapp.infrastructure.repository;
 
-import android.content.Context;
 import android.util.Log;
 
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.Transformations;
 
+import com.example.smarttasksapp.core.constants.Constants;
 import com.example.smarttasksapp.feature.tasks.data.ITaskRepository;
+import com.example.smarttasksapp.feature.tasks.domain.TaskBackupResult;
+import com.example.smarttasksapp.feature.tasks.domain.TaskCacheStats;
+import com.example.smarttasksapp.feature.tasks.domain.TaskChangeSet;
 import com.example.smarttasksapp.feature.tasks.domain.TaskEntity;
+import com.example.smarttasksapp.feature.tasks.domain.TaskListEntity;
+import com.example.smarttasksapp.feature.tasks.domain.TaskPageKey;
+import com.example.smarttasksapp.feature.tasks.domain.TaskPatch;
+import com.example.smarttasksapp.feature.tasks.domain.TaskPatchResult;
+import com.example.smarttasksapp.feature.tasks.domain.TaskStatistics;
 import com.example.smarttasksapp.infrastructure.database.AppDatabase;
+import com.example.smarttasksapp.infrastructure.dao.ArchivedTaskDao;
+import com.example.smarttasksapp.infrastructure.dao.TaskBackupDao;
 import com.example.smarttasksapp.infrastructure.dao.TaskDao;
+import com.example.smarttasksapp.infrastructure.dao.TaskListDao;
+import com.example.smarttasksapp.infrastructure.entity.ArchivedTask;
 import com.example.smarttasksapp.infrastructure.entity.Task;
+import com.example.smarttasksapp.infrastructure.entity.TaskBackupRow;
+import com.example.smarttasksapp.infrastructure.entity.TaskDayCount;
+import com.example.smarttasksapp.infrastructure.entity.TaskList;
+import com.example.smarttasksapp.infrastructure.entity.TaskOperation;
+import com.example.smarttasksapp.infrastructure.entity.TaskSummary;
 
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -26,119 +61,800 @@ import java.util.stream.Collectors;
 public class TaskRepositoryImpl implements ITaskRepository {
     private static final String TAG = "TaskRepositoryImpl";
     
+    private final AppDatabase database;
     private final TaskDao taskDao;
-    private final ExecutorService executorService;
+    private final ArchivedTaskDao archivedTaskDao;
+    private final TaskBackupDao taskBackupDao;
+    private final TaskListDao taskListDao;
+    private final Executor readExecutor;
+    private final Executor writeExecutor;
+    private final ScheduledExecutorService timer;
+    private final TaskChangeLiveData taskChanges;
+    private final TaskStatisticsLiveData taskStatistics;
+    private final TaskCache taskCache;
+    private final SortOrderManager sortOrderManager;
+    private final TaskWriteCoalescer writeCoalescer;
+    private final TaskOperationJournal operationJournal;
     
-    public TaskRepositoryImpl(Context context, ExecutorService executorService) {
-        this.taskDao = AppDatabase.getInstance(context).taskDao();
-        this.executorService = executorService;
+    /**
+     * @param readExecutor 界面等待结果的读取（分页、按ID读取、计数、变更通知）
+     * @param writeExecutor 写入，必须串行执行，合并写入的批次按提交顺序落库
+     * @param timer 共用的定时线程，用于写入合并窗口和搜索重查的延迟
+     */
+    public TaskRepositoryImpl(AppDatabase database, Executor readExecutor, Executor writeExecutor,
+                              ScheduledExecutorService timer) {
+        this.database = database;
+        this.taskDao = database.taskDao();
+        this.archivedTaskDao = database.archivedTaskDao();
+        this.taskBackupDao = database.taskBackupDao();
+        this.taskListDao = database.taskListDao();
+        this.readExecutor = readExecutor;
+        this.writeExecutor = writeExecutor;
+        this.timer = timer;
+        this.taskChanges = new TaskChangeLiveData();
+        this.taskStatistics = new TaskStatisticsLiveData(database, readExecutor);
+        this.taskCache = new TaskCache(Constants.TASK_CACHE_CAPACITY);
+        this.sortOrderManager = new SortOrderManager(database, writeExecutor);
+        this.writeCoalescer = new TaskWriteCoalescer(database, writeExecutor, timer, taskCache::remove);
+        this.operationJournal = new TaskOperationJournal(database, sortOrderManager, writeExecutor);
+        
+        // 变更日志同时驱动缓存失效和列表变更流
+        TaskChangeTracker changeTracker = new TaskChangeTracker(database, readExecutor, this::convertSummaryToFeatureEntity);
+        changeTracker.addListener(this::applyChangesToCache);
+        changeTracker.addListener(taskChanges);
+        changeTracker.start();
         Log.d(TAG, "TaskRepositoryImpl initialized");
     }
     
     @Override
-    public LiveData<List<TaskEntity>> observeAll() {
-        // 使用Transformations.map将Infrastructure层的Task转换为Feature层的TaskEntity
-        return Transformations.map(taskDao.observeAll(), this::convertToFeatureEntityList);
+    public LiveData<List<TaskEntity>> observeList(long listId) {
+        // 使用Transformations.map将Infrastructure层的TaskSummary转换为Feature层的TaskEntity，
+        // 没有变化的任务沿用上一次发出的实例
+        TaskEntityMapper mapper = newEntityMapper();
+        return Transformations.map(taskDao.observeList(listId), mapper::map);
     }
     
     @Override
-    public CompletableFuture<Long> addTask(String title, String description, long startTime) {
+    public CompletableFuture<List<TaskEntity>> loadTaskPage(long listId, TaskPageKey after, int limit) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                List<TaskSummary> page = after == null
+                        ? taskDao.loadFirstPage(listId, limit)
+                        : taskDao.loadPageAfter(listId, after.isCompleted(), after.getSortIndex(),
+                                after.getCreatedAt(), after.getId(), limit);
+                return convertSummariesToFeatureEntityList(page);
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading task page: " + e.getMessage(), e);
+                throw new RuntimeException("Failed to load task page", e);
+            }
+        }, readExecutor);
+    }
+    
+    @Override
+    public LiveData<List<TaskListEntity>> observeTaskLists() {
+        return Transformations.map(taskListDao.observeAll(), lists -> {
+            List<TaskListEntity> entities = new ArrayList<>(lists.size());
+            for (TaskList list : lists) {
+                entities.add(new TaskListEntity(list.getId(), list.getName(),
+                        list.getTaskCount(), list.getCompletedCount()));
+            }
+            return entities;
+        });
+    }
+    
+    @Override
+    public CompletableFuture<Long> addTaskList(String name) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                long listId = taskListDao.insert(new TaskList(name));
+                Log.d(TAG, "Task list added with ID: " + listId);
+                return listId;
+            } catch (Exception e) {
+                Log.e(TAG, "Error adding task list: " + e.getMessage(), e);
+                throw new RuntimeException("Failed to add task list", e);
+            }
+        }, writeExecutor);
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> deleteTaskList(long listId) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                // 清单中的任务由外键级联删除，变更日志会把它们作为删除通知列表和缓存
+                boolean deleted = taskListDao.delete(listId) > 0;
+                Log.d(TAG, "Task list deleted: " + listId + " -> " + deleted);
+                return deleted;
+            } catch (Exception e) {
+                Log.e(TAG, "Error deleting task list: " + e.getMessage(), e);
+                throw new RuntimeException("Failed to delete task list", e);
+            }
+        }, writeExecutor);
+    }
+    
+    @Override
+    public CompletableFuture<Integer> countTasksInList(long listId, Boolean isCompleted) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return isCompleted == null
+                        ? taskListDao.getTaskCount(listId)
+                        : taskListDao.getTaskCountByStatus(listId, isCompleted);
+            } catch (Exception e) {
+                Log.e(TAG, "Error counting tasks in list: " + e.getMessage(), e);
+                throw new RuntimeException("Failed to count tasks in list", e);
+            }
+        }, readExecutor);
+    }
+    
+    @Override
+    public LiveData<List<TaskEntity>> searchTasks(String query) {
+        String matchQuery = TaskSearchRanker.toMatchQuery(query);
+        if (matchQuery == null) {
+            return new MutableLiveData<>(Collections.emptyList());
+        }
+        return new TaskSearchLiveData(database, matchQuery, newEntityMapper(), readExecutor, timer);
+    }
+    
+    @Override
+    public LiveData<TaskChangeSet> observeTaskChanges() {
+        return taskChanges;
+    }
+    
+    @Override
+    public LiveData<List<TaskEntity>> observeTasksInRange(long from, long to) {
+        TaskEntityMapper mapper = newEntityMapper();
+        return Transformations.map(taskDao.observeTasksInRange(from, to), mapper::map);
+    }
+    
+    @Override
+    public LiveData<Map<LocalDate, Integer>> countTasksPerDay(long from, long to) {
+        return Transformations.map(taskDao.countTasksPerDay(from, to), counts -> {
+            Map<LocalDate, Integer> perDay = new LinkedHashMap<>();
+            if (counts != null) {
+                for (TaskDayCount count : counts) {
+                    perDay.put(LocalDate.parse(count.day), count.taskCount);
+                }
+            }
+            return perDay;
+        });
+    }
+    
+    @Override
+    public LiveData<TaskStatistics> observeTaskStatistics() {
+        return taskStatistics;
+    }
+    
+    @Override
+    public CompletableFuture<TaskEntity> getTask(long taskId) {
+        TaskEntity cached = taskCache.get(taskId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                // 在事务外读取，不与写入争用事务；读取期间任务被修改时不填充缓存，也不覆盖更新的版本
+                long stamp = taskCache.writeStamp(taskId);
+                Task task = taskDao.getTaskById(taskId);
+                if (task == null) return null;
+                TaskEntity taskEntity = convertToFeatureEntity(task);
+                taskCache.putIfNotNewer(taskEntity, stamp);
+                return taskEntity;
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading task: " + e.getMessage(), e);
+                throw new RuntimeException("Failed to load task", e);
+            }
+        }, readExecutor);
+    }
+    
+    @Override
+    public TaskCacheStats getTaskCacheStats() {
+        return taskCache.stats();
+    }
+    
+    @Override
+    public CompletableFuture<Long> addTask(long listId, String title, String description, long startTime) {
         return CompletableFuture.supplyAsync(() -> {
             try {
                 // 创建Infrastructure层的Task
                 Task entity = new Task();
+                entity.setListId(listId);
                 entity.setTitle(title);
                 entity.setDescription(description);
                 entity.setStartTime(startTime);
                 entity.setCompleted(false);
                 entity.setCreatedAt(System.currentTimeMillis());
-                entity.setSortIndex(0);
+                entity.setVersion(entity.getCreatedAt());
+                entity.setSortIndex(sortOrderManager.nextPendingSortIndex(listId));
                 
-                long taskId = taskDao.insert(entity);
+                long taskId = database.runInTransaction(() -> {
+                    long id = taskDao.insert(entity);
+                    entity.setId(id);
+                    taskCache.put(convertToFeatureEntity(entity));
+                    return id;
+                });
                 Log.d(TAG, "Task added successfully with ID: " + taskId);
                 return taskId;
             } catch (Exception e) {
                 Log.e(TAG, "Error adding task: " + e.getMessage(), e);
                 throw new RuntimeException("Failed to add task", e);
             }
-        }, executorService);
+        }, writeExecutor);
     }
     
     @Override
-    public CompletableFuture<Boolean> updateTask(TaskEntity taskEntity) {
+    public CompletableFuture<List<Long>> addTasks(List<TaskEntity> taskEntities) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                // 将Feature层的TaskEntity转换为Infrastructure层的Task
-                Task task = convertToInfrastructureEntity(taskEntity);
-                taskDao.update(task);
-                Log.d(TAG, "Task updated successfully: " + task.getId());
-                return true;
+                List<Long> taskIds = database.runInTransaction(() -> {
+                    // 整批任务按给定顺序排在各自清单内未完成任务的最后
+                    Map<Long, Long> nextSortIndex = new HashMap<>();
+                    long now = System.currentTimeMillis();
+                    List<Task> entities = new ArrayList<>(taskEntities.size());
+                    for (TaskEntity taskEntity : taskEntities) {
+                        long listId = taskEntity.getListId();
+                        long sortIndex = nextSortIndex.computeIfAbsent(listId, sortOrderManager::nextPendingSortIndex);
+                        Task entity = new Task();
+                        entity.setListId(listId);
+                        entity.setTitle(taskEntity.getTitle());
+                        entity.setDescription(taskEntity.getDescription());
+                        entity.setStartTime(taskEntity.getStartTime());
+                        entity.setCompleted(false);
+                        entity.setCreatedAt(now);
+                        entity.setVersion(now);
+                        entity.setSortIndex(sortIndex);
+                        entities.add(entity);
+                        nextSortIndex.put(listId, sortIndex - Constants.SORT_KEY_GAP);
+                    }
+                    List<Long> ids = taskDao.insertAll(entities);
+                    for (int i = 0; i < entities.size(); i++) {
+                        Task entity = entities.get(i);
+                        entity.setId(ids.get(i));
+                        taskCache.put(convertToFeatureEntity(entity));
+                    }
+                    return ids;
+                });
+                Log.d(TAG, "Tasks added successfully: " + taskIds.size());
+                return taskIds;
             } catch (Exception e) {
-                Log.e(TAG, "Error updating task: " + e.getMessage(), e);
-                throw new RuntimeException("Failed to update task", e);
+                Log.e(TAG, "Error adding tasks: " + e.getMessage(), e);
+                throw new RuntimeException("Failed to add tasks", e);
             }
-        }, executorService);
+        }, writeExecutor);
+    }
+    
+    @Override
+    public CompletableFuture<Long> deleteTask(long taskId) {
+        // 软删除只更新删除时间，耗时与任务内容无关，行由维护任务在空闲时清除
+        long[] batchId = {0};
+        return writeCoalescer.submit(taskId, TaskWriteCoalescer.Field.DELETE, dao -> {
+                    // 批次失败后写入会单独重试，结果每次重新记录
+                    batchId[0] = 0;
+                    if (dao.markDeleted(taskId, System.currentTimeMillis()) > 0) {
+                        batchId[0] = operationJournal.record(TaskOperation.deleted(taskId));
+                    }
+                    taskCache.remove(taskId);
+                })
+                .thenApply(ignored -> batchId[0])
+                .whenComplete((result, throwable) -> {
+                    if (throwable != null) {
+                        Log.e(TAG, "Error deleting task: " + throwable.getMessage(), throwable);
+                    } else {
+                        Log.d(TAG, "Task deleted successfully: " + taskId);
+                    }
+                });
+    }
+    
+    @Override
+    public CompletableFuture<Long> updateTaskCompletedStatus(long taskId, boolean isCompleted) {
+        long[] batchId = {0};
+        return writeCoalescer.submit(taskId, TaskWriteCoalescer.Field.COMPLETED,
+                        dao -> {
+                            batchId[0] = 0;
+                            long completedAt = isCompleted ? System.currentTimeMillis() : 0;
+                            TaskSummary before = dao.getTaskSummaryById(taskId);
+                            dao.updateCompletedStatus(taskId, isCompleted, completedAt);
+                            if (before != null && before.isCompleted() != isCompleted) {
+                                batchId[0] = operationJournal.record(TaskOperation.completed(taskId,
+                                        before.isCompleted(), before.getCompletedAt(), isCompleted, completedAt));
+                            }
+                            updateCachedVersion(dao, taskId, cached -> cached
+                                    .setCompleted(isCompleted)
+                                    .setCompletedAt(completedAt));
+                        })
+                .thenApply(ignored -> batchId[0])
+                .whenComplete((result, throwable) -> {
+                    if (throwable != null) {
+                        Log.e(TAG, "Error updating task status: " + throwable.getMessage(), throwable);
+                    } else {
+                        Log.d(TAG, "Task status updated: " + taskId + " -> " + isCompleted);
+                    }
+                });
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> updateTaskStartTime(long taskId, long startTime) {
+        return writeCoalescer.submit(taskId, TaskWriteCoalescer.Field.START_TIME,
+                        dao -> {
+                            TaskSummary before = dao.getTaskSummaryById(taskId);
+                            dao.updateStartTime(taskId, startTime);
+                            if (before != null && before.getStartTime() != startTime) {
+                                operationJournal.record(TaskOperation.startTimeChanged(taskId, before.getStartTime(), startTime));
+                            }
+                            updateCachedVersion(dao, taskId, cached -> cached.setStartTime(startTime));
+                        })
+                .whenComplete((result, throwable) -> {
+                    if (throwable != null) {
+                        Log.e(TAG, "Error updating task start time: " + throwable.getMessage(), throwable);
+                    } else {
+                        Log.d(TAG, "Task start time updated: " + taskId + " -> " + startTime);
+                    }
+                });
+    }
+    
+    @Override
+    public CompletableFuture<TaskPatchResult> patchTask(TaskPatch patch) {
+        long taskId = patch.getTaskId();
+        // 结果在提交事务中写入；被删除覆盖而没有执行时保持NOT_FOUND
+        TaskPatchResult[] result = {TaskPatchResult.notFound()};
+        return writeCoalescer.submit(taskId, TaskWriteCoalescer.Field.PATCH, dao -> {
+                    long completedAt = patch.hasCompleted() && patch.isCompleted() ? System.currentTimeMillis() : 0;
+                    Task before = dao.getTaskById(taskId);
+                    int updated = dao.patch(taskId, patch.getExpectedVersion(),
+                            patch.hasTitle(), patch.getTitle(),
+                            patch.hasDescription(), patch.getDescription(),
+                            patch.hasStartTime(), patch.getStartTime(),
+                            patch.hasCompleted(), patch.isCompleted(), completedAt);
+                    Long version = dao.getVersion(taskId);
+                    if (version == null) {
+                        result[0] = TaskPatchResult.notFound();
+                    } else if (updated == 0) {
+                        result[0] = TaskPatchResult.conflict(version);
+                    } else {
+                        result[0] = TaskPatchResult.applied(version);
+                        recordPatch(before, patch, completedAt);
+                        taskCache.updateIfPresent(taskId, cached -> patch.applyTo(cached, completedAt)
+                                .toBuilder()
+                                .setVersion(version)
+                                .build());
+                    }
+                })
+                .thenApply(ignored -> result[0])
+                .whenComplete((patchResult, throwable) -> {
+                    if (throwable != null) {
+                        Log.e(TAG, "Error patching task: " + throwable.getMessage(), throwable);
+                    } else {
+                        Log.d(TAG, "Task patched: " + patch + " -> " + patchResult);
+                    }
+                });
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> persistOrder(List<TaskEntity> orderedTaskEntities) {
+        // 将Feature层的TaskEntity列表转换为Infrastructure层的Task列表
+        List<Task> orderedTasks = orderedTaskEntities.stream()
+                .map(this::convertToInfrastructureEntity)
+                .collect(Collectors.toList());
+        // 经过写入队列，排在之前提交的各任务写入之后执行
+        return writeCoalescer.submit(0, TaskWriteCoalescer.Field.ORDER, dao -> {
+                    // 记录排序键变化的任务，整个列表的重排作为一次操作撤销
+                    List<TaskOperation> operations = new ArrayList<>();
+                    for (int i = 0; i < orderedTasks.size(); i++) {
+                        long taskId = orderedTasks.get(i).getId();
+                        long sortIndex = (orderedTasks.size() - i) * Constants.SORT_KEY_GAP; // 与TaskDao.updateSortIndices一致
+                        TaskSummary before = dao.getTaskSummaryById(taskId);
+                        if (before != null && before.getSortIndex() != sortIndex) {
+                            operations.add(TaskOperation.sortIndexChanged(taskId, before.getSortIndex(), sortIndex));
+                        }
+                    }
+                    dao.updateSortIndices(orderedTasks);
+                    operationJournal.record(operations);
+                })
+                .whenComplete((result, throwable) -> {
+                    if (throwable != null) {
+                        Log.e(TAG, "Error persisting task order: " + throwable.getMessage(), throwable);
+                    } else {
+                        Log.d(TAG, "Task order persisted successfully");
+                    }
+                });
+    }
+    
+    @Override
+    public CompletableFuture<Long> moveTask(long taskId, long aboveTaskId, long belowTaskId) {
+        long[] batchId = {0};
+        return writeCoalescer.submit(taskId, TaskWriteCoalescer.Field.MOVE, dao -> {
+                    batchId[0] = 0;
+                    TaskSummary task = dao.getTaskSummaryById(taskId);
+                    if (task == null) return;
+                    // 记录移动前的相邻任务，撤销时移回它们之间
+                    long oldAboveId = firstId(dao.loadPartitionBefore(task.getListId(), task.isCompleted(),
+                            task.getSortIndex(), task.getCreatedAt(), task.getId(), 1));
+                    long oldBelowId = firstId(dao.loadPartitionAfter(task.getListId(), task.isCompleted(),
+                            task.getSortIndex(), task.getCreatedAt(), task.getId(), 1));
+                    if (!sortOrderManager.moveBetween(taskId, aboveTaskId, belowTaskId)) return;
+                    batchId[0] = operationJournal.record(
+                            TaskOperation.moved(taskId, oldAboveId, oldBelowId, aboveTaskId, belowTaskId));
+                })
+                .thenApply(ignored -> batchId[0])
+                .whenComplete((result, throwable) -> {
+                    if (throwable != null) {
+                        Log.e(TAG, "Error moving task: " + throwable.getMessage(), throwable);
+                    } else {
+                        Log.d(TAG, "Task moved: " + taskId + " between " + aboveTaskId + " and " + belowTaskId + " -> " + result);
+                    }
+                });
     }
     
     @Override
-    public CompletableFuture<Boolean> deleteTask(long taskId) {
+    public CompletableFuture<Set<Long>> undoOperation(long batchId) {
+        return replayOperations(batchId, true);
+    }
+    
+    @Override
+    public CompletableFuture<Set<Long>> redoOperation(long batchId) {
+        return replayOperations(batchId, false);
+    }
+    
+    @Override
+    public CompletableFuture<Integer> compactOperationJournal() {
+        return CompletableFuture.supplyAsync(operationJournal::compact, writeExecutor);
+    }
+    
+    /**
+     * 撤销或重做一批操作，经过写入队列，排在之前提交的写入之后执行
+     */
+    private CompletableFuture<Set<Long>> replayOperations(long batchId, boolean undo) {
+        Set<Long> replayed = new LinkedHashSet<>();
+        return writeCoalescer.submit(0, TaskWriteCoalescer.Field.REPLAY, dao -> {
+                    replayed.clear();
+                    Set<Long> taskIds = undo ? operationJournal.undo(batchId) : operationJournal.redo(batchId);
+                    for (Long taskId : taskIds) {
+                        taskCache.remove(taskId);
+                    }
+                    replayed.addAll(taskIds);
+                })
+                .thenApply(ignored -> replayed)
+                .whenComplete((result, throwable) -> {
+                    String action = undo ? "undo" : "redo";
+                    if (throwable != null) {
+                        Log.e(TAG, "Error replaying task operations (" + action + " " + batchId + "): " + throwable.getMessage(), throwable);
+                    } else {
+                        Log.d(TAG, "Task operations replayed (" + action + " " + batchId + "): " + result);
+                    }
+                });
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> restoreDeletedTask(long taskId) {
+        // 与删除经过同一个写入队列，先删除后恢复时恢复不会抢在删除之前执行
+        boolean[] restored = {false};
+        return writeCoalescer.submit(taskId, TaskWriteCoalescer.Field.RESTORE,
+                        dao -> restored[0] = dao.clearDeleted(taskId) > 0)
+                .thenApply(ignored -> restored[0])
+                .whenComplete((result, throwable) -> {
+                    if (throwable != null) {
+                        Log.e(TAG, "Error restoring deleted task: " + throwable.getMessage(), throwable);
+                    } else {
+                        Log.d(TAG, "Deleted task restored: " + taskId + " -> " + result);
+                    }
+                });
+    }
+    
+    @Override
+    public CompletableFuture<Integer> purgeDeletedTasks(long deletedBefore) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                taskDao.deleteTask(taskId);
-                Log.d(TAG, "Task deleted successfully: " + taskId);
-                return true;
+                // 分批清除，每批一个语句事务，批次之间其他写入可以继续进行
+                int total = 0;
+                int purged;
+                do {
+                    purged = taskDao.purgeDeleted(deletedBefore, Constants.PURGE_BATCH_SIZE);
+                    total += purged;
+                } while (purged == Constants.PURGE_BATCH_SIZE);
+                Log.d(TAG, "Purged " + total + " deleted tasks");
+                return total;
             } catch (Exception e) {
-                Log.e(TAG, "Error deleting task: " + e.getMessage(), e);
-                throw new RuntimeException("Failed to delete task", e);
+                Log.e(TAG, "Error purging deleted tasks: " + e.getMessage(), e);
+                throw new RuntimeException("Failed to purge deleted tasks", e);
             }
-        }, executorService);
+        }, writeExecutor);
     }
     
     @Override
-    public CompletableFuture<Boolean> updateTaskCompletedStatus(long taskId, boolean isCompleted) {
+    public CompletableFuture<Integer> archiveCompletedTasks(long completedBefore) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                taskDao.updateCompletedStatus(taskId, isCompleted);
-                Log.d(TAG, "Task status updated: " + taskId + " -> " + isCompleted);
-                return true;
+                // 分批归档，每批一个事务，批次之间其他写入可以继续进行
+                long archivedAt = System.currentTimeMillis();
+                int total = 0;
+                int archived;
+                do {
+                    archived = archivedTaskDao.archiveBatch(completedBefore, archivedAt, Constants.ARCHIVE_BATCH_SIZE);
+                    total += archived;
+                } while (archived == Constants.ARCHIVE_BATCH_SIZE);
+                Log.d(TAG, "Archived " + total + " completed tasks");
+                return total;
             } catch (Exception e) {
-                Log.e(TAG, "Error updating task status: " + e.getMessage(), e);
-                throw new RuntimeException("Failed to update task status", e);
+                Log.e(TAG, "Error archiving tasks: " + e.getMessage(), e);
+                throw new RuntimeException("Failed to archive tasks", e);
             }
-        }, executorService);
+        }, writeExecutor);
     }
     
     @Override
-    public CompletableFuture<Boolean> updateTaskStartTime(long taskId, long startTime) {
+    public CompletableFuture<List<TaskEntity>> loadArchivedTasks(TaskEntity after, int limit) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                taskDao.updateStartTime(taskId, startTime);
-                Log.d(TAG, "Task start time updated: " + taskId + " -> " + startTime);
-                return true;
+                List<ArchivedTask> page = after == null
+                        ? archivedTaskDao.loadFirstPage(limit)
+                        : archivedTaskDao.loadPageAfter(after.getCompletedAt(), after.getId(), limit);
+                return page.stream()
+                        .map(this::convertArchivedToFeatureEntity)
+                        .collect(Collectors.toList());
             } catch (Exception e) {
-                Log.e(TAG, "Error updating task start time: " + e.getMessage(), e);
-                throw new RuntimeException("Failed to update task start time", e);
+                Log.e(TAG, "Error loading archived tasks: " + e.getMessage(), e);
+                throw new RuntimeException("Failed to load archived tasks", e);
             }
-        }, executorService);
+        }, readExecutor);
     }
     
     @Override
-    public CompletableFuture<Boolean> persistOrder(List<TaskEntity> orderedTaskEntities) {
+    public CompletableFuture<Integer> getArchivedTaskCount() {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                // 将Feature层的TaskEntity列表转换为Infrastructure层的Task列表
-                List<Task> orderedTasks = orderedTaskEntities.stream()
-                        .map(this::convertToInfrastructureEntity)
-                        .collect(Collectors.toList());
-                
-                taskDao.updateSortIndices(orderedTasks);
-                Log.d(TAG, "Task order persisted successfully");
-                return true;
+                return archivedTaskDao.getArchivedTaskCount();
+            } catch (Exception e) {
+                Log.e(TAG, "Error counting archived tasks: " + e.getMessage(), e);
+                throw new RuntimeException("Failed to count archived tasks", e);
+            }
+        }, readExecutor);
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> restoreArchivedTask(long taskId) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                boolean restored = archivedTaskDao.restore(taskId, System.currentTimeMillis());
+                Log.d(TAG, "Archived task restored: " + taskId + " -> " + restored);
+                return restored;
             } catch (Exception e) {
-                Log.e(TAG, "Error persisting task order: " + e.getMessage(), e);
-                throw new RuntimeException("Failed to persist task order", e);
+                Log.e(TAG, "Error restoring archived task: " + e.getMessage(), e);
+                throw new RuntimeException("Failed to restore archived task", e);
+            }
+        }, writeExecutor);
+    }
+    
+    @Override
+    public CompletableFuture<TaskBackupResult> exportTasks(WritableByteChannel target, boolean incremental) {
+        // 导出开始前待导出记录的位置，导出期间再次变化的任务留给下一次增量导出
+        long[] maxSeq = {0};
+        return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        TaskBackupWriter writer = new TaskBackupWriter(target, incremental, System.currentTimeMillis());
+                        // 所有批次在同一个事务中读取，导出的是同一时刻的快照
+                        database.runInTransaction(() -> {
+                            maxSeq[0] = taskBackupDao.getMaxPendingSeq();
+                            // 清单很少，增量备份也全部写入，导入时据此把任务放回对应的清单
+                            for (TaskList list : taskBackupDao.getTaskLists()) {
+                                writer.writeList(list);
+                            }
+                            if (incremental) {
+                                exportBatches(writer, after -> taskBackupDao.loadPendingAfter(after, maxSeq[0], Constants.BACKUP_BATCH_SIZE),
+                                        row -> row.seq);
+                            } else {
+                                // 归档任务也是用户数据，全量备份同样包含
+                                exportBatches(writer, after -> taskBackupDao.loadTasksAfter(after, Constants.BACKUP_BATCH_SIZE),
+                                        row -> row.taskId);
+                                exportBatches(writer, after -> taskBackupDao.loadArchivedTasksAfter(after, Constants.BACKUP_BATCH_SIZE),
+                                        row -> row.taskId);
+                            }
+                            return null;
+                        });
+                        writer.finish();
+                        return new TaskBackupResult(incremental, writer.getTaskCount(), writer.getDeletedCount(),
+                                writer.getArchivedCount(), writer.getListCount(), writer.getByteCount());
+                    } catch (Exception e) {
+                        Log.e(TAG, "Error exporting tasks: " + e.getMessage(), e);
+                        throw new RuntimeException("Failed to export tasks", e);
+                    }
+                }, readExecutor)
+                // 写入成功后才在写入线程上清除，全量导出同样作为之后增量导出的起点
+                .thenCompose(result -> CompletableFuture.runAsync(() -> taskBackupDao.clearPending(maxSeq[0]), writeExecutor)
+                        .thenApply(ignored -> result))
+                .whenComplete((result, throwable) -> {
+                    if (throwable != null) {
+                        Log.e(TAG, "Error exporting tasks: " + throwable.getMessage(), throwable);
+                    } else {
+                        Log.d(TAG, "Tasks exported: " + result);
+                    }
+                });
+    }
+    
+    @Override
+    public CompletableFuture<TaskBackupResult> importTasks(ReadableByteChannel source) {
+        // 读取和解析不占用写入线程，整个文件解析成功后才开始写入
+        return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return new TaskBackupImport(source, System.currentTimeMillis());
+                    } catch (Exception e) {
+                        Log.e(TAG, "Error reading task backup: " + e.getMessage(), e);
+                        throw new RuntimeException("Failed to read task backup", e);
+                    }
+                }, readExecutor)
+                .thenCompose(this::commitImport)
+                .whenComplete((result, throwable) -> {
+                    if (throwable != null) {
+                        Log.e(TAG, "Error importing tasks: " + throwable.getMessage(), throwable);
+                    } else {
+                        Log.d(TAG, "Tasks imported: " + result);
+                    }
+                });
+    }
+    
+    /**
+     * 把解析完成的备份分批提交到写入线程，每批一个事务，批次之间其他写入可以插入执行
+     * 导入的任务使用新的本机ID，不会覆盖本机同ID的任务；删除记录只作用于本次导入的任务
+     */
+    private CompletableFuture<TaskBackupResult> commitImport(TaskBackupImport backup) {
+        // 备份中的清单ID -> 本机清单ID，备份中的任务ID -> 本机任务ID；只在写入线程上读写
+        Map<Long, Long> listIdMap = new HashMap<>();
+        Set<Long> localListIds = new HashSet<>();
+        Map<Long, Long> taskIdMap = new HashMap<>();
+        CompletableFuture<Void> committed = CompletableFuture.runAsync(() -> {
+            List<TaskList> localLists = new ArrayList<>(taskBackupDao.getTaskLists());
+            for (TaskList list : localLists) {
+                localListIds.add(list.getId());
+            }
+            database.runInTransaction(() -> {
+                for (TaskList list : backup.lists) {
+                    listIdMap.put(list.getId(), importTaskList(list, localLists));
+                }
+            });
+        }, writeExecutor);
+        for (int from = 0; from < backup.tasks.size(); from += Constants.BACKUP_BATCH_SIZE) {
+            List<Task> batch = backup.tasks.subList(from, Math.min(from + Constants.BACKUP_BATCH_SIZE, backup.tasks.size()));
+            committed = committed.thenRunAsync(() -> {
+                for (Task task : batch) {
+                    task.setListId(mapListId(task.getListId(), listIdMap, localListIds));
+                }
+                taskBackupDao.importTasks(batch, taskIdMap);
+            }, writeExecutor);
+        }
+        for (int from = 0; from < backup.archivedTasks.size(); from += Constants.BACKUP_BATCH_SIZE) {
+            List<ArchivedTask> batch = backup.archivedTasks.subList(from,
+                    Math.min(from + Constants.BACKUP_BATCH_SIZE, backup.archivedTasks.size()));
+            committed = committed.thenRunAsync(() -> {
+                for (ArchivedTask task : batch) {
+                    task.setListId(mapListId(task.getListId(), listIdMap, localListIds));
+                }
+                taskBackupDao.importArchivedTasks(batch, taskIdMap);
+            }, writeExecutor);
+        }
+        if (!backup.deletedIds.isEmpty()) {
+            committed = committed.thenRunAsync(() -> {
+                List<Long> localIds = new ArrayList<>();
+                for (Long deletedId : backup.deletedIds) {
+                    Long localId = taskIdMap.get(deletedId);
+                    if (localId != null) localIds.add(localId);
+                }
+                for (int from = 0; from < localIds.size(); from += Constants.BACKUP_BATCH_SIZE) {
+                    taskBackupDao.markDeleted(localIds.subList(from,
+                            Math.min(from + Constants.BACKUP_BATCH_SIZE, localIds.size())), backup.importedAt);
+                }
+                Log.d(TAG, "Backup deletes applied: " + localIds.size() + "/" + backup.deletedIds.size());
+            }, writeExecutor);
+        }
+        return committed.thenApply(ignored -> backup.result);
+    }
+    
+    /**
+     * 找到或创建备份中的清单对应的本机清单：默认清单对应默认清单，
+     * 其余优先ID和名称都相同的清单，其次同名清单，都没有时新建
+     * @return 本机清单ID
+     */
+    private long importTaskList(TaskList backupList, List<TaskList> localLists) {
+        if (backupList.getId() == Constants.DEFAULT_TASK_LIST_ID) {
+            return Constants.DEFAULT_TASK_LIST_ID;
+        }
+        TaskList sameName = null;
+        for (TaskList local : localLists) {
+            if (!Objects.equals(local.getName(), backupList.getName())) continue;
+            if (local.getId() == backupList.getId()) return local.getId();
+            if (sameName == null) sameName = local;
+        }
+        if (sameName != null) {
+            return sameName.getId();
+        }
+        TaskList created = new TaskList();
+        created.setName(backupList.getName());
+        created.setCreatedAt(backupList.getCreatedAt());
+        created.setId(taskBackupDao.insertTaskList(created));
+        localLists.add(created);
+        Log.d(TAG, "Task list created from backup: " + backupList.getId() + " -> " + created.getId());
+        return created.getId();
+    }
+    
+    /**
+     * 备份中任务的清单ID换成本机清单ID
+     * 版本4之前的备份没有清单记录：本机存在同ID的清单时沿用，否则放入默认清单
+     */
+    private static long mapListId(long backupListId, Map<Long, Long> listIdMap, Set<Long> localListIds) {
+        Long mapped = listIdMap.get(backupListId);
+        if (mapped != null) return mapped;
+        return localListIds.contains(backupListId) ? backupListId : Constants.DEFAULT_TASK_LIST_ID;
+    }
+    
+    /**
+     * 按游标分批读取并写入备份，一批不满时结束
+     */
+    private static void exportBatches(TaskBackupWriter writer, LongFunction<List<TaskBackupRow>> loadAfter,
+                                      ToLongFunction<TaskBackupRow> cursorOf) throws IOException {
+        long cursor = 0;
+        List<TaskBackupRow> batch;
+        do {
+            batch = loadAfter.apply(cursor);
+            for (TaskBackupRow row : batch) {
+                writer.write(row);
+                cursor = cursorOf.applyAsLong(row);
             }
-        }, executorService);
+        } while (batch.size() == Constants.BACKUP_BATCH_SIZE);
+    }
+    
+    /**
+     * 把已写入的部分修改记入撤销日志，只记录实际变化的字段；需要在写入事务中调用
+     */
+    private void recordPatch(Task before, TaskPatch patch, long completedAt) {
+        if (before == null) return;
+        long taskId = before.getId();
+        List<TaskOperation> operations = new ArrayList<>(3);
+        String title = patch.hasTitle() ? patch.getTitle() : before.getTitle();
+        String description = patch.hasDescription() ? patch.getDescription() : before.getDescription();
+        if (!Objects.equals(title, before.getTitle()) || !Objects.equals(description, before.getDescription())) {
+            operations.add(TaskOperation.textChanged(taskId, before.getTitle(), before.getDescription(), title, description));
+        }
+        if (patch.hasStartTime() && patch.getStartTime() != before.getStartTime()) {
+            operations.add(TaskOperation.startTimeChanged(taskId, before.getStartTime(), patch.getStartTime()));
+        }
+        if (patch.hasCompleted() && patch.isCompleted() != before.isCompleted()) {
+            operations.add(TaskOperation.completed(taskId, before.isCompleted(), before.getCompletedAt(),
+                    patch.isCompleted(), completedAt));
+        }
+        operationJournal.record(operations);
+    }
+    
+    private static long firstId(List<TaskSummary> tasks) {
+        return tasks.isEmpty() ? 0 : tasks.get(0).getId();
+    }
+    
+    /**
+     * 修改已缓存的任务并同步写入后的行版本，需要在写入事务中调用
+     */
+    private void updateCachedVersion(TaskDao dao, long taskId, Consumer<TaskEntity.Builder> update) {
+        Long version = dao.getVersion(taskId);
+        taskCache.updateIfPresent(taskId, cached -> {
+            TaskEntity.Builder builder = cached.toBuilder();
+            update.accept(builder);
+            if (version != null) builder.setVersion(version);
+            return builder.build();
+        });
+    }
+    
+    /**
+     * 用变更日志刷新缓存：修改过的任务就地更新（描述被截断时保留缓存中的完整描述），删除的任务移出缓存
+     * 覆盖了不经过仓库写入方法的修改（如排序键重新编号）
+     */
+    private void applyChangesToCache(TaskChangeSet changes) {
+        if (changes.isReset()) {
+            taskCache.clear();
+            return;
+        }
+        for (Long taskId : changes.getDeletedIds()) {
+            taskCache.remove(taskId);
+        }
+        for (TaskEntity task : changes.getInserted()) {
+            taskCache.replaceIfPresent(task);
+        }
+        for (TaskEntity task : changes.getUpdated()) {
+            taskCache.replaceIfPresent(task);
+        }
     }
     
     /**
@@ -152,7 +868,10 @@ public class TaskRepositoryImpl implements ITaskRepository {
         task.setStartTime(taskEntity.getStartTime());
         task.setCompleted(taskEntity.isCompleted());
         task.setCreatedAt(taskEntity.getCreatedAt());
+        task.setListId(taskEntity.getListId());
         task.setSortIndex(taskEntity.getSortIndex());
+        task.setCompletedAt(taskEntity.getCompletedAt());
+        task.setVersion(taskEntity.getVersion());
         return task;
     }
     
@@ -160,24 +879,70 @@ public class TaskRepositoryImpl implements ITaskRepository {
      * 将Infrastructure层的Task转换为Feature层的TaskEntity
      */
     private TaskEntity convertToFeatureEntity(Task task) {
-        return new TaskEntity(
-            task.getId(),
-            task.getTitle(),
-            task.getDescription(),
-            task.getCreatedAt(),
-            task.getSortIndex(),
-            task.isCompleted(),
-            task.getStartTime()
-        );
+        return TaskEntity.builder()
+                .setId(task.getId())
+                .setTitle(task.getTitle())
+                .setDescription(task.getDescription())
+                .setCreatedAt(task.getCreatedAt())
+                .setSortIndex(task.getSortIndex())
+                .setCompleted(task.isCompleted())
+                .setStartTime(task.getStartTime())
+                .setCompletedAt(task.getCompletedAt())
+                .setListId(task.getListId())
+                .setVersion(task.getVersion())
+                .build();
+    }
+    
+    /**
+     * 将归档任务转换为Feature层的TaskEntity，归档任务都是已完成的
+     */
+    private TaskEntity convertArchivedToFeatureEntity(ArchivedTask archivedTask) {
+        return TaskEntity.builder()
+                .setId(archivedTask.getId())
+                .setTitle(archivedTask.getTitle())
+                .setDescription(archivedTask.getDescription())
+                .setCreatedAt(archivedTask.getCreatedAt())
+                .setSortIndex(archivedTask.getSortIndex())
+                .setCompleted(true)
+                .setStartTime(archivedTask.getStartTime())
+                .setCompletedAt(archivedTask.getCompletedAt())
+                .setListId(archivedTask.getListId())
+                .build();
+    }
+    
+    /**
+     * 将列表投影TaskSummary转换为Feature层的TaskEntity，描述为预览
+     */
+    private TaskEntity convertSummaryToFeatureEntity(TaskSummary summary) {
+        return TaskEntity.builder()
+                .setId(summary.getId())
+                .setTitle(summary.getTitle())
+                .setDescription(summary.getDescription())
+                .setCreatedAt(summary.getCreatedAt())
+                .setSortIndex(summary.getSortIndex())
+                .setCompleted(summary.isCompleted())
+                .setStartTime(summary.getStartTime())
+                .setCompletedAt(summary.getCompletedAt())
+                .setListId(summary.getListId())
+                .setDescriptionTruncated(summary.isDescriptionTruncated())
+                .setVersion(summary.getVersion())
+                .build();
+    }
+    
+    /**
+     * 为一个列表数据流创建保持实例的转换
+     */
+    private TaskEntityMapper newEntityMapper() {
+        return new TaskEntityMapper(this::convertSummaryToFeatureEntity);
     }
     
     /**
-     * 将Infrastructure层的Task列表转换为Feature层的TaskEntity列表
+     * 将TaskSummary列表转换为Feature层的TaskEntity列表
      */
-    private List<TaskEntity> convertToFeatureEntityList(List<Task> tasks) {
-        if (tasks == null) return null;
-        return tasks.stream()
-                .map(this::convertToFeatureEntity)
+    private List<TaskEntity> convertSummariesToFeatureEntityList(List<TaskSummary> summaries) {
+        if (summaries == null) return null;
+        return summaries.stream()
+                .map(this::convertSummaryToFeatureEntity)
                 .collect(Collectors.toList());
     }
 }
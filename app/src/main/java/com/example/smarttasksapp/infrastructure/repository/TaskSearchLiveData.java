@@ -0,0 +1,133 @@
+package com.example.smarttasksapp.infrastructure.repository;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.room.InvalidationTracker;
+
+import com.example.smarttasksapp.core.constants.Constants;
+import com.example.smarttasksapp.feature.tasks.domain.TaskEntity;
+import com.example.smarttasksapp.infrastructure.dao.TaskDao;
+import com.example.smarttasksapp.infrastructure.database.AppDatabase;
+import com.example.smarttasksapp.infrastructure.entity.TaskSummary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 全文搜索结果流
+ * 每次搜索都要读出全部命中及其matchinfo，在Java侧排序后截取前SEARCH_RESULT_LIMIT个，代价与命中数成正比；
+ * 因此任务表失效后不立即重新搜索，而是等SEARCH_REFRESH_DELAY_MS，期间的失效通知合并为一次搜索
+ *
+ * 框架SQLite不能注册自定义函数，FTS4也没有内置的bm25，相关度无法在SQL中用ORDER BY计算
+ */
+class TaskSearchLiveData extends LiveData<List<TaskEntity>> {
+    private static final String TAG = "TaskSearchLiveData";
+
+    private final InvalidationTracker invalidationTracker;
+    private final TaskDao taskDao;
+    private final String matchQuery;
+    private final TaskEntityMapper mapper;
+    private final Executor executor;
+    private final ScheduledExecutorService timer;
+    private final AtomicBoolean wanted = new AtomicBoolean(false);
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean(false);
+    private final AtomicLong generation = new AtomicLong();
+    private final InvalidationTracker.Observer observer;
+    private boolean registered = false;
+
+    /**
+     * @param matchQuery TaskSearchRanker.toMatchQuery生成的FTS MATCH表达式
+     */
+    TaskSearchLiveData(AppDatabase database, String matchQuery, TaskEntityMapper mapper,
+                       Executor executor, ScheduledExecutorService timer) {
+        this.invalidationTracker = database.getInvalidationTracker();
+        this.taskDao = database.taskDao();
+        this.matchQuery = matchQuery;
+        this.mapper = mapper;
+        this.executor = executor;
+        this.timer = timer;
+        this.observer = new InvalidationTracker.Observer(Constants.TABLE_NAME) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                scheduleRefresh(Constants.SEARCH_REFRESH_DELAY_MS);
+            }
+        };
+    }
+
+    @Override
+    protected void onActive() {
+        wanted.set(true);
+        executor.execute(this::syncRegistration);
+        scheduleRefresh(0);
+    }
+
+    @Override
+    protected void onInactive() {
+        wanted.set(false);
+        executor.execute(this::syncRegistration);
+    }
+
+    private synchronized void syncRegistration() {
+        boolean shouldObserve = wanted.get();
+        if (shouldObserve && !registered) {
+            invalidationTracker.addObserver(observer);
+            registered = true;
+        } else if (!shouldObserve && registered) {
+            invalidationTracker.removeObserver(observer);
+            registered = false;
+        }
+    }
+
+    private void scheduleRefresh(long delayMs) {
+        // 已经有一次搜索在等待时，新的失效通知由它一并处理
+        if (wanted.get() && refreshScheduled.compareAndSet(false, true)) {
+            timer.schedule(() -> executor.execute(this::refresh), delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void refresh() {
+        refreshScheduled.set(false);
+        long current = generation.incrementAndGet();
+        List<TaskEntity> ranked;
+        try {
+            ranked = mapper.map(loadRankedSummaries());
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading search results: " + e.getMessage(), e);
+            return;
+        }
+        // 较早开始的搜索完成得较慢时，不覆盖较新的结果
+        synchronized (this) {
+            if (generation.get() == current) postValue(ranked);
+        }
+    }
+
+    /**
+     * 按相关度取前SEARCH_RESULT_LIMIT个命中，读取它们的摘要并保持排序
+     */
+    private List<TaskSummary> loadRankedSummaries() {
+        List<Long> rankedIds = TaskSearchRanker.rank(taskDao.searchTasks(matchQuery), Constants.SEARCH_RESULT_LIMIT);
+        if (rankedIds.isEmpty()) return Collections.emptyList();
+        Map<Long, TaskSummary> byId = new HashMap<>();
+        for (TaskSummary summary : taskDao.getTaskSummariesByIds(rankedIds)) {
+            byId.put(summary.getId(), summary);
+        }
+        List<TaskSummary> ranked = new ArrayList<>(rankedIds.size());
+        for (Long taskId : rankedIds) {
+            // 排序期间被删除的任务不在结果中
+            TaskSummary summary = byId.get(taskId);
+            if (summary != null) ranked.add(summary);
+        }
+        return ranked;
+    }
+}
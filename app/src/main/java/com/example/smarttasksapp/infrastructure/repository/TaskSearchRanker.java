@@ -0,0 +1,94 @@
+package com.example.smarttasksapp.infrastructure.repository;
+
+import com.example.smarttasksapp.infrastructure.entity.TaskSearchResult;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 全文搜索的查询构造与相关度排序
+ */
+final class TaskSearchRanker {
+
+    // 列权重，顺序与TaskFts的列一致：标题、描述
+    private static final double[] COLUMN_WEIGHTS = {2.0, 1.0};
+
+    private TaskSearchRanker() {}
+
+    /**
+     * 把用户输入转换为FTS MATCH表达式：每个词做前缀匹配，词之间为AND
+     * 去掉所有FTS语法字符，返回null表示没有可搜索的词
+     */
+    static String toMatchQuery(String input) {
+        if (input == null) return null;
+        StringBuilder query = new StringBuilder();
+        StringBuilder token = new StringBuilder();
+        String lower = input.toLowerCase(Locale.ROOT);
+        for (int i = 0; i <= lower.length(); i++) {
+            char c = i < lower.length() ? lower.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else if (token.length() > 0) {
+                if (query.length() > 0) query.append(' ');
+                query.append(token).append('*');
+                token.setLength(0);
+            }
+        }
+        return query.length() == 0 ? null : query.toString();
+    }
+
+    /**
+     * 按matchinfo('pcx')计算的相关度从高到低排序，返回前limit个任务ID
+     * 每个短语在每列的得分为：本行命中次数 / 全表命中次数，再乘以列权重
+     */
+    static List<Long> rank(List<TaskSearchResult> results, int limit) {
+        if (results == null || results.isEmpty()) return Collections.emptyList();
+        List<ScoredTask> scored = new ArrayList<>(results.size());
+        for (TaskSearchResult result : results) {
+            scored.add(new ScoredTask(result.taskId, score(result.matchInfo)));
+        }
+        Collections.sort(scored, (a, b) -> Double.compare(b.score, a.score));
+        int count = Math.min(limit, scored.size());
+        List<Long> ranked = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ranked.add(scored.get(i).taskId);
+        }
+        return ranked;
+    }
+
+    private static double score(byte[] matchInfo) {
+        if (matchInfo == null || matchInfo.length < 8) return 0;
+        IntBuffer info = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder()).asIntBuffer();
+        int phraseCount = info.get(0);
+        int columnCount = info.get(1);
+        double score = 0;
+        for (int phrase = 0; phrase < phraseCount; phrase++) {
+            for (int column = 0; column < columnCount; column++) {
+                int base = 2 + (phrase * columnCount + column) * 3;
+                if (base + 1 >= info.limit()) return score;
+                int hitsThisRow = info.get(base);
+                int hitsAllRows = info.get(base + 1);
+                if (hitsThisRow > 0 && hitsAllRows > 0) {
+                    double weight = column < COLUMN_WEIGHTS.length ? COLUMN_WEIGHTS[column] : 1.0;
+                    score += weight * hitsThisRow / hitsAllRows;
+                }
+            }
+        }
+        return score;
+    }
+
+    private static final class ScoredTask {
+        final long taskId;
+        final double score;
+
+        ScoredTask(long taskId, double score) {
+            this.taskId = taskId;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.smarttasksapp.infrastructure.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.room.InvalidationTracker;
+
+import com.example.smarttasksapp.feature.tasks.domain.TaskStatistics;
+import com.example.smarttasksapp.infrastructure.dao.TaskStatsDao;
+import com.example.smarttasksapp.infrastructure.database.AppDatabase;
+import com.example.smarttasksapp.infrastructure.entity.TaskStats;
+
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 任务统计流
+ * 只读取task_stats中由触发器维护的计数行，计数变化时（task_stats失效）重新读取，与任务表大小无关
+ *
+ * 逾期数还会随时间变化：每次读取时查出下一个到期的未完成任务，到时间后推进逾期计数的截止时间，
+ * 只统计这段时间内到期的任务
+ */
+class TaskStatisticsLiveData extends LiveData<TaskStatistics> {
+    private static final String TAG = "TaskStatisticsLiveData";
+    private static final String TABLE_NAME = "task_stats";
+
+    private final InvalidationTracker invalidationTracker;
+    private final TaskStatsDao statsDao;
+    private final Executor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean wanted = new AtomicBoolean(false);
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean(false);
+    private final InvalidationTracker.Observer observer;
+    private final Runnable dueRefresh = this::scheduleRefresh;
+    private boolean registered = false;
+
+    TaskStatisticsLiveData(AppDatabase database, Executor executor) {
+        this.invalidationTracker = database.getInvalidationTracker();
+        this.statsDao = database.taskStatsDao();
+        this.executor = executor;
+        this.observer = new InvalidationTracker.Observer(TABLE_NAME) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                scheduleRefresh();
+            }
+        };
+    }
+
+    @Override
+    protected void onActive() {
+        wanted.set(true);
+        executor.execute(this::syncRegistration);
+        scheduleRefresh();
+    }
+
+    @Override
+    protected void onInactive() {
+        wanted.set(false);
+        mainHandler.removeCallbacks(dueRefresh);
+        executor.execute(this::syncRegistration);
+    }
+
+    private synchronized void syncRegistration() {
+        boolean shouldObserve = wanted.get();
+        if (shouldObserve && !registered) {
+            invalidationTracker.addObserver(observer);
+            registered = true;
+        } else if (!shouldObserve && registered) {
+            invalidationTracker.removeObserver(observer);
+            registered = false;
+        }
+    }
+
+    private void scheduleRefresh() {
+        // 连续的失效通知合并为一次读取
+        if (wanted.get() && refreshScheduled.compareAndSet(false, true)) {
+            executor.execute(this::refresh);
+        }
+    }
+
+    private void refresh() {
+        refreshScheduled.set(false);
+        try {
+            long now = System.currentTimeMillis();
+            TaskStats stats = statsDao.getStats();
+            if (stats == null) return;
+            Long nextDue = statsDao.getNextDueTime(stats.getOverdueAsOf());
+            if (nextDue != null && nextDue <= now) {
+                // 推进会写入task_stats，随后的失效通知再读取一次，结果不变
+                statsDao.advanceOverdue(now);
+                stats = statsDao.getStats();
+                nextDue = statsDao.getNextDueTime(now);
+            }
+            postValue(new TaskStatistics(
+                    stats.getTotalCount(), stats.getCompletedCount(), stats.getOverdueCount()));
+            mainHandler.removeCallbacks(dueRefresh);
+            if (nextDue != null && wanted.get()) {
+                // 下一个任务到期时再推进一次
+                mainHandler.postDelayed(dueRefresh, nextDue - now + 1);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error reading task statistics: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.smarttasksapp.infrastructure.repository;
+
+import android.util.Log;
+
+import com.example.smarttasksapp.infrastructure.dao.TaskDao;
+import com.example.smarttasksapp.infrastructure.database.AppDatabase;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * 任务写入合并队列
+ * 短时间窗口内（或达到数量上限前）到达的写入在同一个事务中提交，
+ * 同一任务同一字段的后一次写入覆盖前一次，删除覆盖该任务所有未提交的写入；
+ * 部分修改、移动、恢复、整体重排和撤销日志回放不与其他写入互相覆盖，只按提交顺序执行；
+ * 同一任务的写入按调用顺序生效（后写入者胜出），仓库中针对单个任务的写入都应经过这里；
+ * 每个调用方的Future在所属批次提交后各自完成；批次事务失败时逐个写入重新提交，只有出错的写入失败；
+ * 计时器线程只负责合并窗口的定时，批次在串行的写入线程池上提交
+ */
+class TaskWriteCoalescer {
+    private static final String TAG = "TaskWriteCoalescer";
+
+    // 合并窗口
+    private static final long WINDOW_MS = 30;
+    // 单批最多写入数，达到后立即提交
+    private static final int MAX_BATCH = 64;
+
+    /**
+     * 写入覆盖的字段，同一任务同一字段的写入互相覆盖
+     */
+    enum Field {
+        COMPLETED(true),
+        START_TIME(true),
+        DELETE(true),
+        // 部分修改，每次写入都单独执行
+        PATCH(false),
+        // 移动到两个相邻任务之间
+        MOVE(false),
+        // 恢复已删除的任务
+        RESTORE(false),
+        // 整个列表重排，排在之前提交的写入之后执行
+        ORDER(false),
+        // 撤销或重做，排在之前提交的写入之后执行
+        REPLAY(false);
+
+        // 同一任务的后一次写入是否覆盖前一次
+        final boolean mergeable;
+
+        Field(boolean mergeable) {
+            this.mergeable = mergeable;
+        }
+    }
+
+    /**
+     * 一次写入，在提交事务中执行（可同时更新内存缓存，写入失败时由rollbackListener撤销）
+     * 批次失败后会在单独的事务中再执行一次，写入需要能在回滚后重复执行
+     */
+    interface Write {
+        void apply(TaskDao taskDao);
+    }
+
+    private final Consumer<Runnable> transactionRunner;
+    private final TaskDao taskDao;
+    private final ScheduledExecutorService timer;
+    private final Executor writeExecutor;
+    // 写入提交失败时对其任务ID调用
+    private final LongConsumer rollbackListener;
+    private final Object lock = new Object();
+
+    private LinkedHashMap<Key, PendingWrite> queue = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+    // 不可合并写入的序号，使其键互不相同
+    private long uniqueSeq = 0;
+
+    /**
+     * @param writeExecutor 提交批次的线程池，必须串行执行以保证批次之间的顺序
+     * @param timer 合并窗口的计时器（AppExecutors.timer()），到时后只把提交交给writeExecutor
+     */
+    TaskWriteCoalescer(AppDatabase database, Executor writeExecutor, ScheduledExecutorService timer,
+                       LongConsumer rollbackListener) {
+        this(database::runInTransaction, database.taskDao(), writeExecutor, timer, rollbackListener);
+    }
+
+    /**
+     * @param transactionRunner 在一个事务中执行给定的写入，抛出异常时回滚
+     */
+    TaskWriteCoalescer(Consumer<Runnable> transactionRunner, TaskDao taskDao, Executor writeExecutor,
+                       ScheduledExecutorService timer, LongConsumer rollbackListener) {
+        this.transactionRunner = transactionRunner;
+        this.taskDao = taskDao;
+        this.writeExecutor = writeExecutor;
+        this.timer = timer;
+        this.rollbackListener = rollbackListener;
+    }
+
+    CompletableFuture<Boolean> submit(long taskId, Field field, Write write) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        boolean flushNow = false;
+        synchronized (lock) {
+            Key key = new Key(taskId, field, field.mergeable ? 0 : ++uniqueSeq);
+            PendingWrite pending = new PendingWrite(write, future);
+            PendingWrite previous = queue.remove(key);
+            if (previous != null) {
+                pending.absorb(previous);
+            }
+            if (field == Field.DELETE) {
+                Iterator<Map.Entry<Key, PendingWrite>> iterator = queue.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<Key, PendingWrite> entry = iterator.next();
+                    if (entry.getKey().taskId == taskId) {
+                        pending.absorb(entry.getValue());
+                        iterator.remove();
+                    }
+                }
+            }
+            queue.put(key, pending);
+
+            if (queue.size() >= MAX_BATCH) {
+                flushNow = true;
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                timer.schedule(() -> writeExecutor.execute(this::flush), WINDOW_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (flushNow) {
+            writeExecutor.execute(this::flush);
+        }
+        return future;
+    }
+
+    private void flush() {
+        LinkedHashMap<Key, PendingWrite> batch;
+        synchronized (lock) {
+            if (queue.isEmpty()) return;
+            batch = queue;
+            queue = new LinkedHashMap<>();
+            flushScheduled = false;
+        }
+
+        try {
+            transactionRunner.accept(() -> {
+                for (PendingWrite pending : batch.values()) {
+                    pending.write.apply(taskDao);
+                }
+            });
+            Log.d(TAG, "Committed " + batch.size() + " coalesced task writes");
+            for (PendingWrite pending : batch.values()) {
+                pending.complete(null);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error committing task writes: " + e.getMessage(), e);
+            if (batch.size() == 1) {
+                fail(batch.entrySet().iterator().next(), e);
+            } else {
+                retryIndividually(batch);
+            }
+        }
+    }
+
+    /**
+     * 整批事务失败后逐个写入单独提交，只让出错的写入失败，其余调用方照常完成
+     */
+    private void retryIndividually(LinkedHashMap<Key, PendingWrite> batch) {
+        for (Map.Entry<Key, PendingWrite> entry : batch.entrySet()) {
+            PendingWrite pending = entry.getValue();
+            try {
+                transactionRunner.accept(() -> pending.write.apply(taskDao));
+                pending.complete(null);
+            } catch (Exception e) {
+                Log.e(TAG, "Error committing task write for " + entry.getKey().taskId + ": " + e.getMessage(), e);
+                fail(entry, e);
+            }
+        }
+    }
+
+    private void fail(Map.Entry<Key, PendingWrite> entry, Exception cause) {
+        rollbackListener.accept(entry.getKey().taskId);
+        entry.getValue().complete(new RuntimeException("Failed to commit task write", cause));
+    }
+
+    private static final class Key {
+        final long taskId;
+        final Field field;
+        final long seq;
+
+        Key(long taskId, Field field, long seq) {
+            this.taskId = taskId;
+            this.field = field;
+            this.seq = seq;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return taskId == key.taskId && field == key.field && seq == key.seq;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(taskId, field, seq);
+        }
+    }
+
+    private static final class PendingWrite {
+        final Write write;
+        final List<CompletableFuture<Boolean>> futures = new ArrayList<>(1);
+
+        PendingWrite(Write write, CompletableFuture<Boolean> future) {
+            this.write = write;
+            this.futures.add(future);
+        }
+
+        /**
+         * 被覆盖的写入不再执行，其调用方随覆盖它的写入一起完成
+         */
+        void absorb(PendingWrite superseded) {
+            futures.addAll(superseded.futures);
+        }
+
+        void complete(Throwable failure) {
+            for (CompletableFuture<Boolean> future : futures) {
+                if (failure == null) {
+                    future.complete(true);
+                } else {
+                    future.completeExceptionally(failure);
+                }
+            }
+        }
+    }
+}
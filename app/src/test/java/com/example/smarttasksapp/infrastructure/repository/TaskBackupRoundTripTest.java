@@ -0,0 +1,432 @@
+package com.example.smarttasksapp.infrastructure.repository;
+
+import com.example.smarttasksapp.core.constants.Constants;
+import com.example.smarttasksapp.infrastructure.entity.ArchivedTask;
+import com.example.smarttasksapp.infrastructure.entity.Task;
+import com.example.smarttasksapp.infrastructure.entity.TaskBackupRow;
+import com.example.smarttasksapp.infrastructure.entity.TaskList;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * TaskBackupWriter/TaskBackupReader/TaskBackupImport的往返测试：当前格式的全量与增量备份，以及旧版本（1、2、3）文件的读取
+ */
+public class TaskBackupRoundTripTest {
+
+    private static final long EXPORTED_AT = 1_700_000_000_000L;
+    private static final long IMPORTED_AT = 1_800_000_000_000L;
+    private static final int LARGE_BACKUP_TASKS = 100_000;
+
+    @Test
+    public void fullBackup_roundTripsTasksAndArchivedTasks() throws IOException {
+        TaskBackupRow pending = taskRow(1, "买牛奶", "两盒", false);
+        TaskBackupRow done = taskRow(2, "写周报", null, true);
+        TaskBackupRow archived = archivedRow(3, "旧任务", "已经完成很久了", 1_650_000_000_000L);
+
+        byte[] file = write(false, pending, done, archived);
+        TaskBackupReader reader = new TaskBackupReader(channel(file));
+
+        assertFalse(reader.isIncremental());
+        assertEquals(EXPORTED_AT, reader.getExportedAt());
+
+        assertTrue(reader.next());
+        assertFalse(reader.isDeletedRecord());
+        assertFalse(reader.isArchivedRecord());
+        assertSameTask(pending, reader.newTask(IMPORTED_AT));
+
+        assertTrue(reader.next());
+        Task restoredDone = reader.newTask(IMPORTED_AT);
+        assertSameTask(done, restoredDone);
+        assertNull(restoredDone.getDescription());
+
+        assertTrue(reader.next());
+        assertTrue(reader.isArchivedRecord());
+        assertSameArchivedTask(archived, reader.newArchivedTask());
+
+        assertFalse(reader.next());
+        assertFalse(reader.next());
+        assertEquals(2, reader.getTaskCount());
+        assertEquals(1, reader.getArchivedCount());
+        assertEquals(0, reader.getDeletedCount());
+        assertEquals(file.length, reader.getByteCount());
+    }
+
+    @Test
+    public void incrementalBackup_carriesDeletesInOrder() throws IOException {
+        TaskBackupRow updated = taskRow(10, "改过的标题", "描述", false);
+        byte[] file = write(true, deletedRow(4), updated, deletedRow(7), archivedRow(12, "刚归档", null, EXPORTED_AT));
+
+        TaskBackupReader reader = new TaskBackupReader(channel(file));
+        assertTrue(reader.isIncremental());
+
+        List<Long> deletedIds = new ArrayList<>();
+        List<Long> taskIds = new ArrayList<>();
+        List<Long> archivedIds = new ArrayList<>();
+        while (reader.next()) {
+            if (reader.isDeletedRecord()) {
+                deletedIds.add(reader.getDeletedId());
+            } else if (reader.isArchivedRecord()) {
+                archivedIds.add(reader.newArchivedTask().getId());
+            } else {
+                Task task = reader.newTask(IMPORTED_AT);
+                assertSameTask(updated, task);
+                taskIds.add(task.getId());
+            }
+        }
+
+        assertEquals(Arrays.asList(4L, 7L), deletedIds);
+        assertEquals(Arrays.asList(10L), taskIds);
+        assertEquals(Arrays.asList(12L), archivedIds);
+        assertEquals(2, reader.getDeletedCount());
+        assertEquals(1, reader.getTaskCount());
+        assertEquals(1, reader.getArchivedCount());
+    }
+
+    @Test
+    public void taskLists_roundTripBeforeTasks() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TaskBackupWriter writer = new TaskBackupWriter(Channels.newChannel(out), false, EXPORTED_AT);
+        writer.writeList(taskList(1, "收件箱"));
+        writer.writeList(taskList(5, "工作"));
+        writer.write(taskRow(9, "开会", null, false));
+        writer.finish();
+
+        TaskBackupReader reader = new TaskBackupReader(channel(out.toByteArray()));
+        assertTrue(reader.next());
+        assertTrue(reader.isListRecord());
+        assertEquals("收件箱", reader.newTaskList().getName());
+        assertTrue(reader.next());
+        TaskList list = reader.newTaskList();
+        assertEquals(5, list.getId());
+        assertEquals("工作", list.getName());
+        assertEquals(EXPORTED_AT - 5, list.getCreatedAt());
+        assertTrue(reader.next());
+        assertFalse(reader.isListRecord());
+        assertEquals(9, reader.newTask(IMPORTED_AT).getId());
+        assertFalse(reader.next());
+        assertEquals(2, reader.getListCount());
+        assertEquals(1, reader.getTaskCount());
+    }
+
+    @Test
+    public void version3File_readsEndWithoutListCount() throws IOException {
+        ByteBuffer file = header(3, false);
+        putTaskFields(file, 8, "v3任务", null, true);
+        file.putLong(2);
+        file.put(TaskBackupFormat.RECORD_END).putInt(1).putInt(0).putInt(0);
+
+        TaskBackupReader reader = new TaskBackupReader(channel(file));
+
+        assertTrue(reader.next());
+        assertEquals(2, reader.newTask(IMPORTED_AT).getListId());
+        assertFalse(reader.next());
+        assertEquals(0, reader.getListCount());
+    }
+
+    @Test
+    public void version3File_rejectsListRecords() throws IOException {
+        ByteBuffer file = header(3, false);
+        file.put(TaskBackupFormat.RECORD_LIST);
+
+        TaskBackupReader reader = new TaskBackupReader(channel(file));
+        try {
+            reader.next();
+            fail("list records need version 4");
+        } catch (IOException expected) {
+            // 旧版本中没有清单记录
+        }
+    }
+
+    @Test
+    public void longDescription_spansBufferRefills() throws IOException {
+        char[] text = new char[TaskBackupFormat.BUFFER_SIZE];
+        Arrays.fill(text, '任');
+        TaskBackupRow row = taskRow(1, "长描述", new String(text), false);
+
+        TaskBackupReader reader = new TaskBackupReader(channel(write(false, row, taskRow(2, "后一条", "短", false))));
+
+        assertTrue(reader.next());
+        assertEquals(row.description, reader.newTask(IMPORTED_AT).getDescription());
+        assertTrue(reader.next());
+        assertEquals("后一条", reader.newTask(IMPORTED_AT).getTitle());
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void largeBackup_roundTripsEveryRecord() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TaskBackupWriter writer = new TaskBackupWriter(Channels.newChannel(out), false, EXPORTED_AT);
+        for (int i = 1; i <= LARGE_BACKUP_TASKS; i++) {
+            writer.write(taskRow(i, "任务 " + i, i % 3 == 0 ? null : "描述 " + i, i % 2 == 0));
+        }
+        writer.finish();
+        assertEquals(out.size(), writer.getByteCount());
+
+        TaskBackupReader reader = new TaskBackupReader(channel(out.toByteArray()));
+        long expectedId = 1;
+        while (reader.next()) {
+            Task task = reader.newTask(IMPORTED_AT);
+            assertEquals(expectedId, task.getId());
+            assertEquals("任务 " + expectedId, task.getTitle());
+            expectedId++;
+        }
+        assertEquals(LARGE_BACKUP_TASKS, reader.getTaskCount());
+    }
+
+    @Test
+    public void version1File_putsTasksInDefaultList() throws IOException {
+        ByteBuffer file = header(1, false);
+        putTaskFields(file, 5, "v1任务", "旧格式", true);
+        file.put(TaskBackupFormat.RECORD_DELETED).putLong(6);
+        file.put(TaskBackupFormat.RECORD_END).putInt(1).putInt(1);
+
+        TaskBackupReader reader = new TaskBackupReader(channel(file));
+
+        assertTrue(reader.next());
+        Task task = reader.newTask(IMPORTED_AT);
+        assertEquals(5, task.getId());
+        assertEquals("v1任务", task.getTitle());
+        assertEquals("旧格式", task.getDescription());
+        assertTrue(task.isCompleted());
+        assertEquals(Constants.DEFAULT_TASK_LIST_ID, task.getListId());
+        assertTrue(reader.next());
+        assertEquals(6, reader.getDeletedId());
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void version2File_readsListIdWithoutArchivedCount() throws IOException {
+        ByteBuffer file = header(2, true);
+        putTaskFields(file, 8, "v2任务", null, false);
+        file.putLong(42);
+        file.put(TaskBackupFormat.RECORD_END).putInt(1).putInt(0);
+
+        TaskBackupReader reader = new TaskBackupReader(channel(file));
+
+        assertTrue(reader.isIncremental());
+        assertTrue(reader.next());
+        assertEquals(42, reader.newTask(IMPORTED_AT).getListId());
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void version2File_rejectsArchivedRecords() throws IOException {
+        ByteBuffer file = header(2, false);
+        file.put(TaskBackupFormat.RECORD_ARCHIVED);
+
+        TaskBackupReader reader = new TaskBackupReader(channel(file));
+        try {
+            reader.next();
+            fail("archived records need version 3");
+        } catch (IOException expected) {
+            // 旧版本中没有归档记录
+        }
+    }
+
+    @Test
+    public void truncatedFile_failsInsteadOfReturningPartialData() throws IOException {
+        byte[] file = write(false, taskRow(1, "标题", "描述", false));
+        byte[] truncated = Arrays.copyOf(file, file.length - 5);
+
+        TaskBackupReader reader = new TaskBackupReader(channel(truncated));
+        try {
+            while (reader.next()) {
+                reader.newTask(IMPORTED_AT);
+            }
+            fail("truncated backup should not finish");
+        } catch (EOFException expected) {
+            // 缺少结束记录
+        }
+    }
+
+    @Test
+    public void backupImport_readsWholeFileBeforeCommitting() throws IOException {
+        byte[] file = write(true, deletedRow(4), taskRow(10, "改过的标题", "描述", false),
+                archivedRow(12, "刚归档", null, EXPORTED_AT));
+
+        TaskBackupImport backup = new TaskBackupImport(channel(file), IMPORTED_AT);
+        assertEquals(Arrays.asList(4L), backup.deletedIds);
+        assertEquals(1, backup.tasks.size());
+        assertEquals(IMPORTED_AT, backup.tasks.get(0).getVersion());
+        assertEquals(12, backup.archivedTasks.get(0).getId());
+        assertTrue(backup.result.isIncremental());
+
+        // 截断的文件在构造时就失败，导入不会写入其中任何一批
+        try {
+            new TaskBackupImport(channel(Arrays.copyOf(file, file.length - 5)), IMPORTED_AT);
+            fail("truncated backup should not be imported");
+        } catch (EOFException expected) {
+            // 缺少结束记录
+        }
+    }
+
+    @Test
+    public void recordCountMismatch_isRejected() throws IOException {
+        byte[] file = write(false, taskRow(1, "标题", "描述", false));
+        // 结束记录中的任务数在倒数第16个字节开始
+        ByteBuffer.wrap(file).putInt(file.length - 16, 2);
+
+        TaskBackupReader reader = new TaskBackupReader(channel(file));
+        assertTrue(reader.next());
+        try {
+            reader.next();
+            fail("count mismatch should be rejected");
+        } catch (IOException expected) {
+            assertEquals("Backup record count mismatch", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void wrongMagic_isRejected() {
+        byte[] file = new byte[32];
+        try {
+            new TaskBackupReader(channel(file));
+            fail("not a backup file");
+        } catch (IOException expected) {
+            assertEquals("Not a task backup file", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void emptyBackup_containsOnlyHeaderAndEnd() throws IOException {
+        byte[] file = write(true);
+        assertArrayEquals(Arrays.copyOfRange(header(TaskBackupFormat.VERSION, true).array(), 0, 17),
+                Arrays.copyOfRange(file, 0, 17));
+
+        TaskBackupReader reader = new TaskBackupReader(channel(file));
+        assertFalse(reader.next());
+        assertEquals(0, reader.getTaskCount());
+    }
+
+    private static byte[] write(boolean incremental, TaskBackupRow... rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TaskBackupWriter writer = new TaskBackupWriter(Channels.newChannel(out), incremental, EXPORTED_AT);
+        for (TaskBackupRow row : rows) {
+            writer.write(row);
+        }
+        writer.finish();
+        assertEquals(out.size(), writer.getByteCount());
+        return out.toByteArray();
+    }
+
+    private static ReadableByteChannel channel(byte[] bytes) {
+        return Channels.newChannel(new ByteArrayInputStream(bytes));
+    }
+
+    private static ReadableByteChannel channel(ByteBuffer buffer) {
+        return channel(Arrays.copyOf(buffer.array(), buffer.position()));
+    }
+
+    private static ByteBuffer header(int version, boolean incremental) {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        buffer.putInt(TaskBackupFormat.MAGIC);
+        buffer.putInt(version);
+        buffer.put(incremental ? TaskBackupFormat.FLAG_INCREMENTAL : 0);
+        buffer.putLong(EXPORTED_AT);
+        return buffer;
+    }
+
+    // 版本1的任务记录，版本2起在之后追加listId
+    private static void putTaskFields(ByteBuffer buffer, long id, String title, String description, boolean completed) {
+        buffer.put(TaskBackupFormat.RECORD_TASK);
+        buffer.putLong(id);
+        putString(buffer, title);
+        putString(buffer, description);
+        buffer.putLong(EXPORTED_AT - id);
+        buffer.putLong(id << 16);
+        buffer.put(completed ? (byte) 1 : 0);
+        buffer.putLong(EXPORTED_AT + id);
+        buffer.putLong(completed ? EXPORTED_AT : 0);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static TaskBackupRow taskRow(long id, String title, String description, boolean completed) {
+        TaskBackupRow row = new TaskBackupRow();
+        row.taskId = id;
+        row.title = title;
+        row.description = description;
+        row.createdAt = EXPORTED_AT - id;
+        row.sortIndex = -id << 16;
+        row.isCompleted = completed;
+        row.startTime = EXPORTED_AT + id;
+        row.completedAt = completed ? EXPORTED_AT : 0;
+        row.listId = 1 + id % 3;
+        return row;
+    }
+
+    private static TaskList taskList(long id, String name) {
+        TaskList list = new TaskList();
+        list.setId(id);
+        list.setName(name);
+        list.setCreatedAt(EXPORTED_AT - id);
+        return list;
+    }
+
+    private static TaskBackupRow archivedRow(long id, String title, String description, long archivedAt) {
+        TaskBackupRow row = taskRow(id, title, description, true);
+        row.archived = true;
+        row.archivedAt = archivedAt;
+        return row;
+    }
+
+    private static TaskBackupRow deletedRow(long id) {
+        TaskBackupRow row = new TaskBackupRow();
+        row.taskId = id;
+        row.deleted = true;
+        return row;
+    }
+
+    private static void assertSameTask(TaskBackupRow expected, Task actual) {
+        assertEquals(expected.taskId, actual.getId());
+        assertEquals(expected.title, actual.getTitle());
+        assertEquals(expected.description, actual.getDescription());
+        assertEquals(expected.createdAt, actual.getCreatedAt());
+        assertEquals(expected.sortIndex, actual.getSortIndex());
+        assertEquals(expected.isCompleted, actual.isCompleted());
+        assertEquals(expected.startTime, actual.getStartTime());
+        assertEquals(expected.completedAt, actual.getCompletedAt());
+        assertEquals(expected.listId, actual.getListId());
+        assertEquals(0, actual.getDeletedAt());
+        assertEquals(IMPORTED_AT, actual.getVersion());
+    }
+
+    private static void assertSameArchivedTask(TaskBackupRow expected, ArchivedTask actual) {
+        assertEquals(expected.taskId, actual.getId());
+        assertEquals(expected.title, actual.getTitle());
+        assertEquals(expected.description, actual.getDescription());
+        assertEquals(expected.createdAt, actual.getCreatedAt());
+        assertEquals(expected.sortIndex, actual.getSortIndex());
+        assertEquals(expected.startTime, actual.getStartTime());
+        assertEquals(expected.completedAt, actual.getCompletedAt());
+        assertEquals(expected.listId, actual.getListId());
+        assertEquals(expected.archivedAt, actual.getArchivedAt());
+    }
+}
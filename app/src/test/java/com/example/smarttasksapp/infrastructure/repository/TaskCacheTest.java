@@ -0,0 +1,151 @@
+package com.example.smarttasksapp.infrastructure.repository;
+
+import com.example.smarttasksapp.core.constants.Constants;
+import com.example.smarttasksapp.feature.tasks.domain.TaskEntity;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * TaskCache在事务外填充时的版本与写入戳检查，以及变更日志刷新时对完整描述的保留
+ */
+public class TaskCacheTest {
+
+    @Test
+    public void putIfNotNewer_fillsWhenNothingWasWritten() {
+        TaskCache cache = new TaskCache(8);
+        long stamp = cache.writeStamp(1);
+        cache.putIfNotNewer(task(1, "读取到的", 10), stamp);
+
+        TaskEntity cached = cache.get(1);
+        assertEquals("读取到的", cached.getTitle());
+        assertEquals(10, cached.getVersion());
+        assertEquals(3, cached.getListId());
+    }
+
+    @Test
+    public void putIfNotNewer_skipsFillAfterConcurrentWrite() {
+        TaskCache cache = new TaskCache(8);
+        long stamp = cache.writeStamp(1);
+        // 读取期间任务被修改，即使修改时它不在缓存中
+        cache.updateIfPresent(1, task -> task.toBuilder().setTitle("新标题").build());
+        cache.putIfNotNewer(task(1, "修改前", 10), stamp);
+
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    public void putIfNotNewer_skipsFillAfterChangeLogRemoval() {
+        TaskCache cache = new TaskCache(8);
+        long stamp = cache.writeStamp(1);
+        cache.remove(1);
+        cache.putIfNotNewer(task(1, "已删除", 10), stamp);
+
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    public void putIfNotNewer_keepsNewerCachedVersion() {
+        TaskCache cache = new TaskCache(8);
+        long stamp = cache.writeStamp(1);
+        cache.put(task(1, "新版本", 20));
+        cache.putIfNotNewer(task(1, "旧版本", 10), stamp);
+
+        assertEquals("新版本", cache.get(1).getTitle());
+        assertEquals(20, cache.get(1).getVersion());
+    }
+
+    @Test
+    public void putIfNotNewer_replacesOlderCachedVersion() {
+        TaskCache cache = new TaskCache(8);
+        cache.put(task(1, "旧版本", 10));
+        cache.putIfNotNewer(task(1, "新版本", 20), cache.writeStamp(1));
+
+        assertEquals("新版本", cache.get(1).getTitle());
+    }
+
+    @Test
+    public void writesToOtherStripes_doNotBlockFill() {
+        TaskCache cache = new TaskCache(8);
+        long stamp = cache.writeStamp(1);
+        cache.remove(2);
+        cache.putIfNotNewer(task(1, "读取到的", 10), stamp);
+
+        assertEquals("读取到的", cache.get(1).getTitle());
+    }
+
+    @Test
+    public void replaceIfPresent_keepsFullDescriptionWhenPreviewMatches() {
+        TaskCache cache = new TaskCache(8);
+        String description = longDescription('a');
+        cache.put(withDescription(task(1, "标题", 10), description));
+
+        TaskEntity summary = withDescription(task(1, "已完成", 11), description.substring(0, Constants.TASK_DESCRIPTION_PREVIEW_LENGTH))
+                .toBuilder()
+                .setDescriptionTruncated(true)
+                .setCompleted(true)
+                .setSortIndex(42)
+                .build();
+        cache.replaceIfPresent(summary);
+
+        TaskEntity cached = cache.get(1);
+        assertEquals(description, cached.getDescription());
+        assertEquals("已完成", cached.getTitle());
+        assertTrue(cached.isCompleted());
+        assertEquals(42, cached.getSortIndex());
+        assertEquals(11, cached.getVersion());
+        assertFalse(cached.isDescriptionTruncated());
+    }
+
+    @Test
+    public void replaceIfPresent_evictsWhenDescriptionChanged() {
+        TaskCache cache = new TaskCache(8);
+        cache.put(withDescription(task(1, "标题", 10), longDescription('a')));
+
+        TaskEntity summary = withDescription(task(1, "标题", 11),
+                longDescription('b').substring(0, Constants.TASK_DESCRIPTION_PREVIEW_LENGTH))
+                .toBuilder()
+                .setDescriptionTruncated(true)
+                .build();
+        cache.replaceIfPresent(summary);
+
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    public void replaceIfPresent_ignoresOlderVersion() {
+        TaskCache cache = new TaskCache(8);
+        cache.put(task(1, "新版本", 20));
+        cache.replaceIfPresent(task(1, "旧版本", 10));
+
+        assertEquals("新版本", cache.get(1).getTitle());
+    }
+
+    private static String longDescription(char c) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < Constants.TASK_DESCRIPTION_PREVIEW_LENGTH * 2; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    private static TaskEntity withDescription(TaskEntity task, String description) {
+        return task.toBuilder().setDescription(description).build();
+    }
+
+    private static TaskEntity task(long id, String title, long version) {
+        return TaskEntity.builder()
+                .setId(id)
+                .setTitle(title)
+                .setDescription("描述")
+                .setCreatedAt(1_000L)
+                .setSortIndex(1L)
+                .setListId(3)
+                .setVersion(version)
+                .build();
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.smarttasksapp.infrastructure.repository;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * TaskWriteCoalescer的顺序测试：多个线程同时写入同一批任务，
+ * 每个任务的写入必须按调用顺序生效，最后一次写入的值胜出；出错的写入不连累同一批次的其他调用方
+ */
+public class TaskWriteCoalescerStressTest {
+
+    private static final int THREADS = 8;
+    private static final int WRITES_PER_THREAD = 2000;
+    private static final int TASK_IDS = 16;
+
+    private static final TaskWriteCoalescer.Field[] FIELDS = {
+            TaskWriteCoalescer.Field.COMPLETED,
+            TaskWriteCoalescer.Field.START_TIME,
+            TaskWriteCoalescer.Field.PATCH,
+            TaskWriteCoalescer.Field.MOVE,
+    };
+
+    private ExecutorService writeExecutor;
+    private ScheduledExecutorService timer;
+    private TaskWriteCoalescer coalescer;
+    // 每个任务实际执行过的写入序号，只在写入线程上修改
+    private List<List<Long>> applied;
+
+    @Before
+    public void setUp() {
+        writeExecutor = Executors.newSingleThreadExecutor();
+        timer = Executors.newSingleThreadScheduledExecutor();
+        coalescer = new TaskWriteCoalescer(Runnable::run, null, writeExecutor, timer, taskId -> {});
+        applied = new ArrayList<>();
+        for (int i = 0; i < TASK_IDS; i++) {
+            applied.add(new ArrayList<>());
+        }
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        timer.shutdownNow();
+        writeExecutor.shutdown();
+        writeExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void concurrentWritesToSameTasks_lastWriterWins() throws Exception {
+        AtomicLong sequence = new AtomicLong();
+        long[] lastSubmitted = new long[TASK_IDS];
+        Object[] taskLocks = new Object[TASK_IDS];
+        for (int i = 0; i < TASK_IDS; i++) taskLocks[i] = new Object();
+
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long seed = t;
+            Thread thread = new Thread(() -> {
+                Random random = new Random(seed);
+                List<CompletableFuture<Boolean>> local = new ArrayList<>(WRITES_PER_THREAD);
+                awaitQuietly(start);
+                for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                    int taskId = random.nextInt(TASK_IDS);
+                    TaskWriteCoalescer.Field field = FIELDS[random.nextInt(FIELDS.length)];
+                    // 同一任务的提交在锁内完成，序号的先后就是调用的先后
+                    synchronized (taskLocks[taskId]) {
+                        long seq = sequence.incrementAndGet();
+                        local.add(coalescer.submit(taskId, field, dao -> applied.get(taskId).add(seq)));
+                        lastSubmitted[taskId] = seq;
+                    }
+                }
+                synchronized (futures) {
+                    futures.addAll(local);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) thread.join();
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        assertEquals(THREADS * WRITES_PER_THREAD, futures.size());
+
+        // 读取写入线程修改过的结果前，等待其中的任务全部结束
+        writeExecutor.submit(() -> {}).get(5, TimeUnit.SECONDS);
+        for (int taskId = 0; taskId < TASK_IDS; taskId++) {
+            List<Long> history = applied.get(taskId);
+            if (lastSubmitted[taskId] == 0) continue;
+            assertEquals("task " + taskId, lastSubmitted[taskId], (long) history.get(history.size() - 1));
+            // 被覆盖的写入可以跳过，但生效的写入不能倒序
+            for (int i = 1; i < history.size(); i++) {
+                assertTrue("task " + taskId + " reordered at " + i, history.get(i - 1) < history.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void restoreAfterDelete_runsAfterDelete() throws Exception {
+        List<String> operations = new ArrayList<>();
+        CompletableFuture<Boolean> deleted = coalescer.submit(1, TaskWriteCoalescer.Field.DELETE,
+                dao -> operations.add("delete"));
+        CompletableFuture<Boolean> restored = coalescer.submit(1, TaskWriteCoalescer.Field.RESTORE,
+                dao -> operations.add("restore"));
+
+        CompletableFuture.allOf(deleted, restored).get(5, TimeUnit.SECONDS);
+        writeExecutor.submit(() -> {}).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("delete", "restore"), operations);
+    }
+
+    @Test
+    public void deleteAfterPendingWrites_supersedesThem() throws Exception {
+        List<String> operations = new ArrayList<>();
+        CompletableFuture<Boolean> restored = coalescer.submit(1, TaskWriteCoalescer.Field.RESTORE,
+                dao -> operations.add("restore"));
+        CompletableFuture<Boolean> moved = coalescer.submit(1, TaskWriteCoalescer.Field.MOVE,
+                dao -> operations.add("move"));
+        CompletableFuture<Boolean> otherTask = coalescer.submit(2, TaskWriteCoalescer.Field.COMPLETED,
+                dao -> operations.add("complete 2"));
+        CompletableFuture<Boolean> deleted = coalescer.submit(1, TaskWriteCoalescer.Field.DELETE,
+                dao -> operations.add("delete"));
+
+        CompletableFuture.allOf(restored, moved, otherTask, deleted).get(5, TimeUnit.SECONDS);
+        writeExecutor.submit(() -> {}).get(5, TimeUnit.SECONDS);
+        // 被删除覆盖的写入不执行，但调用方仍然完成
+        assertEquals(List.of("complete 2", "delete"), operations);
+    }
+
+    @Test
+    public void failingWrite_failsOnlyItsOwnCaller() throws Exception {
+        // 事务抛出异常时丢弃其中的全部写入
+        List<String> committed = new ArrayList<>();
+        List<Long> rolledBack = new ArrayList<>();
+        TaskWriteCoalescer failing = new TaskWriteCoalescer(body -> {
+            int size = committed.size();
+            try {
+                body.run();
+            } catch (RuntimeException e) {
+                committed.subList(size, committed.size()).clear();
+                throw e;
+            }
+        }, null, writeExecutor, timer, rolledBack::add);
+
+        CompletableFuture<Boolean> first = failing.submit(1, TaskWriteCoalescer.Field.COMPLETED,
+                dao -> committed.add("complete 1"));
+        CompletableFuture<Boolean> broken = failing.submit(2, TaskWriteCoalescer.Field.PATCH, dao -> {
+            committed.add("patch 2");
+            throw new IllegalStateException("constraint failed");
+        });
+        CompletableFuture<Boolean> last = failing.submit(3, TaskWriteCoalescer.Field.START_TIME,
+                dao -> committed.add("start 3"));
+
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertTrue(last.get(5, TimeUnit.SECONDS));
+        try {
+            broken.get(5, TimeUnit.SECONDS);
+            fail("broken write should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RuntimeException);
+        }
+        writeExecutor.submit(() -> {}).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("complete 1", "start 3"), committed);
+        assertEquals(List.of(2L), rolledBack);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}